@@ -0,0 +1,132 @@
+package com.restaurant.store.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * PostgreSQL schema changes that {@code ddl-auto=update} cannot make on its own, applied at
+ * startup before Hibernate updates the schema. Each step checks whether it is still needed,
+ * so they are safe to run on every start; other databases are created from the entities.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PostgresMigrations implements InitializingBean {
+
+    private static final String CART_ITEMS_MERGE_SCRIPT = "db/postgres/cart_items_merge_duplicates.sql";
+    private static final String ORDERS_STATUS_INDEX_SCRIPT = "db/postgres/orders_status_index_shrink.sql";
+    private static final int ORDERS_STATUS_INDEX_COLUMNS = 3;
+
+    private final DataSource dataSource;
+
+    @Override
+    public void afterPropertiesSet() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            if (!"PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())) {
+                return;
+            }
+            mergeDuplicateCartItems(connection);
+            shrinkOrdersStatusIndex(connection);
+        }
+    }
+
+    /**
+     * Folds duplicate cart lines together before {@code uk_cart_items_cart_product} is added;
+     * Hibernate would fail to create the key on a table that still has them.
+     */
+    private void mergeDuplicateCartItems(Connection connection) throws SQLException {
+        if (!tableExists(connection, "cart_items") || constraintExists(connection, "uk_cart_items_cart_product")) {
+            return;
+        }
+        runScript(connection, CART_ITEMS_MERGE_SCRIPT);
+        log.info("Merged duplicate cart lines and added uk_cart_items_cart_product");
+    }
+
+    /**
+     * Drops the wide status indexes of {@code orders} so Hibernate creates the narrow
+     * {@code idx_orders_status_created_at_id}; it would leave an index of the same name as it is.
+     */
+    private void shrinkOrdersStatusIndex(Connection connection) throws SQLException {
+        if (!indexExists(connection, "idx_orders_status_created_at")
+                && indexColumns(connection, "idx_orders_status_created_at_id") <= ORDERS_STATUS_INDEX_COLUMNS) {
+            return;
+        }
+        runScript(connection, ORDERS_STATUS_INDEX_SCRIPT);
+        log.info("Dropped the wide status indexes of orders");
+    }
+
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        return exists(connection, "SELECT 1 FROM pg_class c WHERE c.relname = ? AND pg_table_is_visible(c.oid)", table);
+    }
+
+    private static boolean constraintExists(Connection connection, String constraint) throws SQLException {
+        return exists(connection, "SELECT 1 FROM pg_constraint WHERE conname = ?", constraint);
+    }
+
+    private static boolean indexExists(Connection connection, String index) throws SQLException {
+        return exists(connection, "SELECT 1 FROM pg_class c WHERE c.relname = ? AND c.relkind = 'i' "
+                + "AND pg_table_is_visible(c.oid)", index);
+    }
+
+    /**
+     * Number of columns in the index, or zero if there is none.
+     */
+    private static int indexColumns(Connection connection, String index) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT i.indnatts FROM pg_index i "
+                + "JOIN pg_class c ON c.oid = i.indexrelid WHERE c.relname = ? AND pg_table_is_visible(c.oid)")) {
+            statement.setString(1, index);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    private static boolean exists(Connection connection, String sql, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, name);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Runs a script in one transaction, so a failed migration leaves the table as it was.
+     */
+    private static void runScript(Connection connection, String script) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            new ResourceDatabasePopulator(new ClassPathResource(script)).populate(connection);
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Makes the JPA EntityManagerFactory, and with it Hibernate's schema update, wait for
+     * the migrations.
+     */
+    @Component
+    static class RunBeforeJpa extends EntityManagerFactoryDependsOnPostProcessor {
+
+        RunBeforeJpa() {
+            super(PostgresMigrations.class);
+        }
+    }
+}
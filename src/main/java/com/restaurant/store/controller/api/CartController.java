@@ -1,9 +1,11 @@
 package com.restaurant.store.controller.api;
 
 import com.restaurant.store.dto.request.AddToCartRequest;
+import com.restaurant.store.dto.request.CartBatchRequest;
 import com.restaurant.store.dto.request.UpdateCartItemRequest;
 import com.restaurant.store.dto.response.ApiResponse;
 import com.restaurant.store.dto.response.CartResponse;
+import com.restaurant.store.dto.response.CartSummaryResponse;
 import com.restaurant.store.dto.response.ErrorResponse;
 import com.restaurant.store.service.CartService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -50,6 +52,29 @@ public class CartController {
         return ResponseEntity.ok(ApiResponse.success("Cart retrieved successfully", cart));
     }
     
+    @Operation(
+            summary = "Get cart summary",
+            description = "Retrieves the item count and total of the current user's cart, e.g. for a header badge. "
+                    + "Changes are also pushed to /user/queue/cart over WebSocket."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Cart summary retrieved successfully"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "401",
+                    description = "Unauthorized - Invalid or missing JWT token",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @GetMapping("/summary")
+    public ResponseEntity<ApiResponse<CartSummaryResponse>> getCartSummary(
+            @RequestHeader("Authorization") String authToken) {
+        CartSummaryResponse summary = cartService.getCartSummary(authToken);
+        return ResponseEntity.ok(ApiResponse.success("Cart summary retrieved successfully", summary));
+    }
+    
     @Operation(
             summary = "Add item to cart",
             description = "Adds a product to the shopping cart with specified quantity"
@@ -83,6 +108,40 @@ public class CartController {
         return ResponseEntity.ok(ApiResponse.success("Item added to cart successfully", cart));
     }
     
+    @Operation(
+            summary = "Apply cart changes",
+            description = "Applies an ordered list of add, set-quantity and remove operations in one transaction "
+                    + "and returns the resulting cart. If any operation fails, none is applied."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Cart updated successfully"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid request data",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "401",
+                    description = "Unauthorized",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "404",
+                    description = "Product or cart item not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<CartResponse>> applyBatch(
+            @Valid @RequestBody CartBatchRequest request,
+            @RequestHeader("Authorization") String authToken) {
+        CartResponse cart = cartService.applyBatch(request, authToken);
+        return ResponseEntity.ok(ApiResponse.success("Cart updated successfully", cart));
+    }
+    
     @Operation(
             summary = "Update cart item",
             description = "Updates the quantity of an item in the cart"
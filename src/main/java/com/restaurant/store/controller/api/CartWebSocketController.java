@@ -0,0 +1,29 @@
+package com.restaurant.store.controller.api;
+
+import com.restaurant.store.dto.response.CartSummaryResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Controller;
+
+/**
+ * WebSocket controller for cart updates.
+ * 
+ * Queues:
+ * - /user/queue/cart - Item count and total of the connected customer's cart, sent whenever
+ *   it changes (e.g. in another tab). Requires an Authorization header on the STOMP CONNECT.
+ */
+@Controller
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "WebSocket - Cart", description = "STOMP queue for cart updates")
+public class CartWebSocketController {
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    public void sendCartSummary(Long customerId, CartSummaryResponse summary) {
+        log.debug("Sending cart summary to customer: {}", customerId);
+        messagingTemplate.convertAndSendToUser(String.valueOf(customerId), "/queue/cart", summary);
+    }
+}
@@ -4,7 +4,11 @@ import com.restaurant.store.dto.request.CreateOrderRequest;
 import com.restaurant.store.dto.request.PaymentRequest;
 import com.restaurant.store.dto.response.ApiResponse;
 import com.restaurant.store.dto.response.ErrorResponse;
+import com.restaurant.store.dto.response.OrderHistoryPageResponse;
+import com.restaurant.store.dto.response.OrderIntakeResponse;
 import com.restaurant.store.dto.response.OrderResponse;
+import com.restaurant.store.service.IdempotencyService;
+import com.restaurant.store.service.OrderIntakeService;
 import com.restaurant.store.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -31,21 +35,44 @@ public class OrderController {
     
     @Autowired
     private OrderService orderService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private OrderIntakeService orderIntakeService;
     
     @Operation(
             summary = "Create order",
-            description = "Creates a new order from the current user's cart items"
+            description = "Creates a new order from the given items or, when none are given, from the current user's cart items, emptying the cart. "
+                    + "A retry with the same Idempotency-Key returns the original response instead of creating another order. "
+                    + "In async intake mode the request is queued and answered with 202 and an intake ticket instead"
     )
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
                     responseCode = "201",
                     description = "Order created successfully"
             ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "202",
+                    description = "Order request queued (async intake mode); the outcome is pushed on /topic/orders/intake/{ticketId}"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "503",
+                    description = "Intake queue is full; retry after the Retry-After delay",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
                     responseCode = "400",
                     description = "Invalid order data or empty cart",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))
             ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "409",
+                    description = "Cart changed or was already checked out while the order was being placed, "
+                            + "or the Idempotency-Key was used for a different request",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
                     responseCode = "401",
                     description = "Unauthorized",
@@ -53,13 +80,51 @@ public class OrderController {
             )
     })
     @PostMapping
-    public ResponseEntity<ApiResponse<OrderResponse>> createOrder(
+    public ResponseEntity<ApiResponse<?>> createOrder(
             @Valid @RequestBody CreateOrderRequest request,
+            @RequestHeader("Authorization") String authToken,
+            @Parameter(description = "Client-generated key that makes retries of this request safe")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        
+        return idempotencyService.execute(idempotencyKey, "POST /api/orders", request, () -> {
+            if (orderIntakeService.isEnabled()) {
+                OrderIntakeResponse ticket = orderIntakeService.submit(request, authToken);
+                return ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .body(ApiResponse.success("Order received and queued for processing", ticket));
+            }
+            OrderResponse response = orderService.createOrder(request, authToken);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ApiResponse.success("Order created successfully", response));
+        });
+    }
+    
+    @Operation(
+            summary = "Get order intake ticket",
+            description = "Retrieves the state of an order request queued in async intake mode, with its queue position"
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Ticket retrieved successfully"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "401",
+                    description = "Unauthorized",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "404",
+                    description = "Ticket not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @GetMapping("/intake/{ticketId}")
+    public ResponseEntity<ApiResponse<OrderIntakeResponse>> getIntakeTicket(
+            @Parameter(description = "Intake ticket ID") @PathVariable Long ticketId,
             @RequestHeader("Authorization") String authToken) {
         
-        OrderResponse response = orderService.createOrder(request, authToken);
-        return ResponseEntity.status(HttpStatus.CREATED)
-                .body(ApiResponse.success("Order created successfully", response));
+        OrderIntakeResponse ticket = orderIntakeService.getTicket(ticketId, authToken);
+        return ResponseEntity.ok(ApiResponse.success("Order intake ticket retrieved successfully", ticket));
     }
     
     @Operation(
@@ -178,10 +243,14 @@ public class OrderController {
     public ResponseEntity<ApiResponse<String>> payOrder(
             @Parameter(description = "Order ID") @PathVariable Long orderId,
             @Valid @RequestBody PaymentRequest request,
-            @RequestHeader("Authorization") String authToken) {
+            @RequestHeader("Authorization") String authToken,
+            @Parameter(description = "Client-generated key that makes retries of this request safe")
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
         
-        String result = orderService.processPayment(orderId, request, authToken);
-        return ResponseEntity.ok(ApiResponse.success(result, null));
+        return idempotencyService.execute(idempotencyKey, "POST /api/orders/" + orderId + "/pay", request, () -> {
+            String result = orderService.processPayment(orderId, request, authToken);
+            return ResponseEntity.ok(ApiResponse.success(result, null));
+        });
     }
     
     @Operation(
@@ -210,7 +279,9 @@ public class OrderController {
     
     @Operation(
             summary = "Get my orders",
-            description = "Retrieves all orders for the currently authenticated user"
+            description = "Retrieves all orders for the currently authenticated user. With includeArchived, returns "
+                    + "one page of at most 'limit' orders, archived ones included; pass the id of the last order as "
+                    + "'before' to fetch older orders."
     )
     @ApiResponses(value = {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
@@ -225,12 +296,47 @@ public class OrderController {
     })
     @GetMapping("/my-orders")
     public ResponseEntity<ApiResponse<List<OrderResponse>>> getMyOrders(
+            @Parameter(description = "Also return orders that have been archived, one page at a time") @RequestParam(defaultValue = "false") boolean includeArchived,
+            @Parameter(description = "Page size with includeArchived, at most " + OrderService.MAX_HISTORY_PAGE_SIZE) @RequestParam(defaultValue = "20") int limit,
+            @Parameter(description = "With includeArchived, only orders with a smaller id") @RequestParam(required = false) Long before,
             @RequestHeader("Authorization") String authToken) {
         
-        List<OrderResponse> orders = orderService.getMyOrders(authToken);
+        List<OrderResponse> orders = orderService.getMyOrders(authToken, includeArchived, before, limit);
         return ResponseEntity.ok(ApiResponse.success("Your orders retrieved successfully", orders));
     }
     
+    @Operation(
+            summary = "Get my order history",
+            description = "Retrieves the current user's orders as summaries, newest first, one page at a time. "
+                    + "Pass the returned nextCursor as 'before' to fetch older orders; use GET /api/orders/{orderId} for full details."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Order history retrieved successfully"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid page size",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "401",
+                    description = "Unauthorized",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @GetMapping("/history")
+    public ResponseEntity<ApiResponse<OrderHistoryPageResponse>> getMyOrderHistory(
+            @Parameter(description = "Page size, at most " + OrderService.MAX_HISTORY_PAGE_SIZE) @RequestParam(defaultValue = "20") int limit,
+            @Parameter(description = "Cursor returned as nextCursor by the previous page") @RequestParam(required = false) Long before,
+            @Parameter(description = "Also return orders that have been archived") @RequestParam(defaultValue = "false") boolean includeArchived,
+            @RequestHeader("Authorization") String authToken) {
+
+        OrderHistoryPageResponse page = orderService.getMyOrderHistory(authToken, before, limit, includeArchived);
+        return ResponseEntity.ok(ApiResponse.success("Order history retrieved successfully", page));
+    }
+
     @Operation(
             summary = "Cancel order",
             description = "Cancels an existing order"
@@ -1,5 +1,6 @@
 package com.restaurant.store.controller.api;
 
+import com.restaurant.store.dto.response.OrderIntakeResponse;
 import com.restaurant.store.dto.response.OrderResponse;
 import com.restaurant.store.dto.response.OrderStatusMessage;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -26,6 +27,7 @@ import java.time.LocalDateTime;
  * - /topic/orders/{orderId} - Order updates
  * - /topic/orders/{orderId}/status - Order status messages
  * - /topic/orders/{orderId}/notifications - Order notifications
+ * - /topic/orders/intake/{ticketId} - Outcome of an order accepted in async intake mode
  * 
  * See /api/websocket/info for detailed connection instructions.
  */
@@ -84,4 +86,9 @@ public class OrderStatusWebSocketController {
         log.info("Sending notification for order: {} - {}", orderId, payload.getEventType());
         messagingTemplate.convertAndSend("/topic/orders/" + orderId + "/notifications", payload);
     }
+
+    public void sendOrderIntakeUpdate(Long ticketId, OrderIntakeResponse intakeResponse) {
+        log.info("Sending intake update for ticket: {} - Status: {}", ticketId, intakeResponse.getStatus());
+        messagingTemplate.convertAndSend("/topic/orders/intake/" + ticketId, intakeResponse);
+    }
 }
@@ -1,7 +1,9 @@
 package com.restaurant.store.controller.api;
 
 import com.restaurant.store.dto.response.ApiResponse;
+import com.restaurant.store.dto.response.CatalogChangesResponse;
 import com.restaurant.store.dto.response.ErrorResponse;
+import com.restaurant.store.dto.response.ProductPageResponse;
 import com.restaurant.store.dto.response.ProductResponse;
 import com.restaurant.store.entity.Category;
 import com.restaurant.store.service.ProductService;
@@ -13,14 +15,16 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/api")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = "ETag")
 @Tag(name = "Products & Categories", description = "Endpoints for browsing menu, categories, and products")
 public class ProductController {
     
@@ -35,13 +39,22 @@ public class ProductController {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
                     responseCode = "200",
                     description = "Categories retrieved successfully"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "304",
+                    description = "Menu unchanged since the ETag sent in If-None-Match"
             )
     })
     @GetMapping("/categories")
-    public ResponseEntity<List<CategoryResponse>> getAllCategories() {
+    public ResponseEntity<List<CategoryResponse>> getAllCategories(WebRequest webRequest) {
         
+        String etag = productService.getCatalogEtag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
         List<CategoryResponse> categories = productService.getAllCategories();
-        return ResponseEntity.ok(categories);
+        return conditional(etag).body(categories);
     }
 
     @Operation(
@@ -52,17 +65,163 @@ public class ProductController {
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
                     responseCode = "200",
                     description = "Products retrieved successfully"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "304",
+                    description = "Menu unchanged since the ETag sent in If-None-Match"
             )
     })
     @GetMapping("/products")
     public ResponseEntity<ApiResponse<List<ProductResponse>>> getAllProducts(
             @Parameter(description = "Filter by category ID") @RequestParam(required = false) Long categoryId,
-            @Parameter(description = "Filter to show only available products") @RequestParam(required = false) Boolean availableOnly) {
+            @Parameter(description = "Filter to show only available products") @RequestParam(required = false) Boolean availableOnly,
+            WebRequest webRequest) {
         
+        String etag = productService.getCatalogEtag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
         List<ProductResponse> products = productService.getAllProducts(categoryId, availableOnly);
-        return ResponseEntity.ok(ApiResponse.success("Products retrieved successfully", products));
+        return conditional(etag).body(ApiResponse.success("Products retrieved successfully", products));
     }
     
+    @Operation(
+            summary = "Get a page of products",
+            description = "Retrieves products in id order, one page at a time. Selected by the 'limit' parameter; "
+                    + "pass the returned nextCursor as 'after' to fetch the following page."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Products retrieved successfully"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "304",
+                    description = "Menu unchanged since the ETag sent in If-None-Match"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Invalid page size",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @GetMapping(value = "/products", params = "limit")
+    public ResponseEntity<ApiResponse<ProductPageResponse>> getProductPage(
+            @Parameter(description = "Page size, at most " + ProductService.MAX_PAGE_SIZE) @RequestParam int limit,
+            @Parameter(description = "Cursor returned as nextCursor by the previous page") @RequestParam(required = false) Long after,
+            @Parameter(description = "Filter by category ID") @RequestParam(required = false) Long categoryId,
+            @Parameter(description = "Filter to show only available products") @RequestParam(required = false) Boolean availableOnly,
+            WebRequest webRequest) {
+
+        String etag = productService.getCatalogEtag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        ProductPageResponse page = productService.getProductPage(after, limit, categoryId, availableOnly);
+        return conditional(etag).body(ApiResponse.success("Products retrieved successfully", page));
+    }
+
+    @Operation(
+            summary = "Search products",
+            description = "Full-text search over product names and descriptions. Matches any part of a word, "
+                    + "so Khmer names can be searched without word breaks; every query word must match."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Search results retrieved successfully"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "304",
+                    description = "Menu unchanged since the ETag sent in If-None-Match"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Missing query or invalid limit",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @GetMapping("/products/search")
+    public ResponseEntity<ApiResponse<List<ProductResponse>>> searchProducts(
+            @Parameter(description = "Search text") @RequestParam(required = false) String q,
+            @Parameter(description = "Maximum number of results") @RequestParam(defaultValue = "20") int limit,
+            WebRequest webRequest) {
+
+        String etag = productService.getCatalogEtag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        List<ProductResponse> products = productService.searchProducts(q, limit);
+        return conditional(etag).body(ApiResponse.success("Search results retrieved successfully", products));
+    }
+
+    @Operation(
+            summary = "Autocomplete products",
+            description = "Suggests products whose name, or a word of their name or description, starts with the prefix"
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Suggestions retrieved successfully"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "304",
+                    description = "Menu unchanged since the ETag sent in If-None-Match"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "400",
+                    description = "Missing prefix or invalid limit",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+            )
+    })
+    @GetMapping("/products/autocomplete")
+    public ResponseEntity<ApiResponse<List<ProductResponse>>> autocompleteProducts(
+            @Parameter(description = "Text typed so far") @RequestParam(required = false) String prefix,
+            @Parameter(description = "Maximum number of suggestions") @RequestParam(defaultValue = "8") int limit,
+            WebRequest webRequest) {
+
+        String etag = productService.getCatalogEtag();
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        List<ProductResponse> products = productService.autocompleteProducts(prefix, limit);
+        return conditional(etag).body(ApiResponse.success("Suggestions retrieved successfully", products));
+    }
+
+    @Operation(
+            summary = "Get menu changes",
+            description = "Retrieves products and categories created, updated or deleted since the given catalog version. "
+                    + "Pass the returned version as 'since' on the next call; omit it to get the whole menu. "
+                    + "Changes close to the version may be sent again and should be applied as upserts."
+    )
+    @ApiResponses(value = {
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "200",
+                    description = "Menu changes retrieved successfully"
+            ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "304",
+                    description = "Menu unchanged since the ETag sent in If-None-Match"
+            )
+    })
+    @GetMapping("/products/changes")
+    public ResponseEntity<ApiResponse<CatalogChangesResponse>> getCatalogChanges(
+            @Parameter(description = "Catalog version returned by the previous call") @RequestParam(required = false) Long since,
+            WebRequest webRequest) {
+
+        String etag = productService.getCatalogChangesEtag(since);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        CatalogChangesResponse changes = productService.getCatalogChanges(since);
+        return conditional(etag).body(ApiResponse.success("Menu changes retrieved successfully", changes));
+    }
+
     @Operation(
             summary = "Get product by ID",
             description = "Retrieves detailed information about a specific product"
@@ -72,6 +231,10 @@ public class ProductController {
                     responseCode = "200",
                     description = "Product retrieved successfully"
             ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "304",
+                    description = "Product unchanged since the ETag sent in If-None-Match"
+            ),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
                     responseCode = "404",
                     description = "Product not found",
@@ -80,10 +243,16 @@ public class ProductController {
     })
     @GetMapping("/products/{productId}")
     public ResponseEntity<ApiResponse<ProductResponse>> getProduct(
-            @Parameter(description = "Product ID") @PathVariable Long productId) {
+            @Parameter(description = "Product ID") @PathVariable Long productId,
+            WebRequest webRequest) {
         
+        String etag = productService.getProductEtag(productId);
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
         ProductResponse product = productService.getProductById(productId);
-        return ResponseEntity.ok(ApiResponse.success("Product retrieved successfully", product));
+        return conditional(etag).body(ApiResponse.success("Product retrieved successfully", product));
     }
     
     @Operation(
@@ -95,6 +264,10 @@ public class ProductController {
                     responseCode = "200",
                     description = "Category products retrieved successfully"
             ),
+            @io.swagger.v3.oas.annotations.responses.ApiResponse(
+                    responseCode = "304",
+                    description = "Menu unchanged since the ETag sent in If-None-Match"
+            ),
             @io.swagger.v3.oas.annotations.responses.ApiResponse(
                     responseCode = "404",
                     description = "Category not found",
@@ -103,9 +276,25 @@ public class ProductController {
     })
     @GetMapping("/categories/{categoryId}/products")
     public ResponseEntity<ApiResponse<List<ProductResponse>>> getProductsByCategory(
-            @Parameter(description = "Category ID") @PathVariable Long categoryId) {
+            @Parameter(description = "Category ID") @PathVariable Long categoryId,
+            WebRequest webRequest) {
         
+        String etag = productService.getCatalogEtag();
         List<ProductResponse> products = productService.getProductsByCategory(categoryId);
-        return ResponseEntity.ok(ApiResponse.success("Category products retrieved successfully", products));
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        return conditional(etag).body(ApiResponse.success("Category products retrieved successfully", products));
+    }
+
+    /**
+     * Catalog responses may be stored by clients but must be revalidated with the ETag,
+     * which costs a 304 with no body while the menu is unchanged.
+     */
+    private ResponseEntity.BodyBuilder conditional(String etag) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache());
     }
 }
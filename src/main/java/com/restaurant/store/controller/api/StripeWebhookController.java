@@ -1,7 +1,6 @@
 package com.restaurant.store.controller.api;
 
 import com.restaurant.store.dto.response.ApiResponse;
-import com.restaurant.store.entity.Order;
 import com.restaurant.store.entity.OrderStatus;
 import com.restaurant.store.exception.StripeWebhookException;
 import com.restaurant.store.repository.OrderRepository;
@@ -21,8 +20,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Optional;
-
 @RestController
 @RequestMapping("/api/webhooks")
 @RequiredArgsConstructor
@@ -150,11 +147,12 @@ public class StripeWebhookController {
     }
 
     private void updateOrderStatus(Long orderId, OrderStatus status) {
-        Optional<Order> orderOpt = orderRepository.findById(orderId);
-        orderOpt.ifPresentOrElse(order -> {
-            order.setStatus(status);
-            orderRepository.save(order);
+        if (orderRepository.transitionStatus(orderId, status)) {
             log.info("Order {} status updated to {}", orderId, status);
-        }, () -> log.warn("Order {} referenced in Stripe metadata was not found", orderId));
+            return;
+        }
+        orderRepository.findStatusById(orderId).ifPresentOrElse(
+                current -> log.info("Order {} left at {}; Stripe cannot move it to {}", orderId, current, status),
+                () -> log.warn("Order {} referenced in Stripe metadata was not found", orderId));
     }
 }
@@ -1,27 +1,25 @@
 package com.restaurant.store.controller.api.internal;
 
 import com.restaurant.store.controller.api.OrderStatusWebSocketController;
+import com.restaurant.store.dto.request.OrderSearchRequest;
+import com.restaurant.store.dto.request.OrderStatusBatchUpdateRequest;
 import com.restaurant.store.dto.request.OrderStatusUpdateRequest;
 import com.restaurant.store.dto.response.ApiResponse;
 import com.restaurant.store.dto.response.OrderResponse;
+import com.restaurant.store.dto.response.OrderSearchPageResponse;
+import com.restaurant.store.dto.response.OrderStatusBatchResult;
 import com.restaurant.store.dto.response.OrderStatusMessage;
-import com.restaurant.store.entity.Delivery;
 import com.restaurant.store.entity.Order;
-import com.restaurant.store.entity.OrderItem;
 import com.restaurant.store.entity.OrderStatus;
 import com.restaurant.store.entity.OrderType;
-import com.restaurant.store.entity.Payment;
-import com.restaurant.store.entity.PaymentMethod;
-import com.restaurant.store.entity.PaymentStatus;
-import com.restaurant.store.entity.Pickup;
-import com.restaurant.store.entity.PickupStatus;
-import com.restaurant.store.mapper.OrderMapper;
-import com.restaurant.store.repository.OrderItemRepository;
+import com.restaurant.store.exception.ConflictException;
+import com.restaurant.store.exception.ResourceNotFoundException;
 import com.restaurant.store.repository.OrderRepository;
-import com.restaurant.store.repository.PaymentRepository;
-import com.restaurant.store.repository.PickupRepository;
-import com.restaurant.store.repository.DeliveryRepository;
+import com.restaurant.store.service.OrderResponseCache;
+import com.restaurant.store.service.OrderSearchService;
+import com.restaurant.store.service.OrderStatusUpdateService;
 import io.swagger.v3.oas.annotations.Hidden;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -40,12 +38,10 @@ import java.util.Map;
 public class InternalApiController {
 
     private final OrderRepository orderRepository;
-    private final OrderItemRepository orderItemRepository;
-    private final OrderMapper orderMapper;
+    private final OrderResponseCache orderResponseCache;
     private final OrderStatusWebSocketController webSocketController;
-    private final PaymentRepository paymentRepository;
-    private final PickupRepository pickupRepository;
-    private final DeliveryRepository deliveryRepository;
+    private final OrderStatusUpdateService orderStatusUpdateService;
+    private final OrderSearchService orderSearchService;
 
     @PostMapping("/orders/{orderId}/status")
     public ResponseEntity<ApiResponse<Object>> updateOrderStatus(
@@ -54,41 +50,30 @@ public class InternalApiController {
         
         log.info("Received order status update for order: {} - New status: {}", orderId, request.getStatus());
 
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("Order not found: " + orderId));
-
         OrderStatus newStatus = OrderStatus.valueOf(request.getStatus());
-        order.setStatus(newStatus);
-        order.setUpdatedAt(LocalDateTime.now());
+        boolean transitioned = orderRepository.transitionStatus(orderId, newStatus);
+        if (!transitioned) {
+            OrderStatus current = orderRepository.findStatusById(orderId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Order not found: " + orderId));
+            // A repeated update for the status the order already has is accepted as a no-op
+            if (current != newStatus) {
+                throw new ConflictException("Order " + orderId + " cannot move from " + current + " to " + newStatus);
+            }
+        }
 
         if (request.getEstimatedDeliveryTime() != null) {
-            order.setEstimatedDeliveryTime(request.getEstimatedDeliveryTime());
+            orderRepository.updateEstimatedDeliveryTime(orderId, request.getEstimatedDeliveryTime(), LocalDateTime.now());
         }
 
-        orderRepository.save(order);
-        syncPickupStatus(order, newStatus);
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found: " + orderId));
 
-        if (newStatus == OrderStatus.COMPLETED) {
-            markCashOnDeliveryPaymentsAsCompleted(orderId);
+        if (transitioned) {
+            orderStatusUpdateService.syncAfterTransitions(List.of(order), Map.of(orderId, newStatus));
         }
 
-        List<OrderItem> orderItems = orderItemRepository.findByOrderId(orderId);
-        List<Payment> payments = paymentRepository.findByOrderId(orderId);
-        Delivery delivery = deliveryRepository.findByOrderId(orderId).orElse(null);
-        Pickup pickup = pickupRepository.findByOrderId(orderId).orElse(null);
-        OrderResponse response = orderMapper.toResponse(order, orderItems, payments, delivery, pickup);
-        webSocketController.sendOrderUpdate(orderId, response);
-
-        OrderStatusMessage statusMessage = OrderStatusMessage.builder()
-                .status(order.getStatus().name())
-                .eventType("ORDER_STATUS_CHANGED")
-                .title("Order status updated")
-                .message("Your order is now " + newStatus.name())
-                .estimatedDeliveryTime(order.getEstimatedDeliveryTime())
-                .metadata(buildMetadata(order, request))
-                .build();
-        webSocketController.sendOrderStatusUpdate(orderId, statusMessage);
-        webSocketController.sendOrderNotification(orderId, statusMessage);
+        OrderResponse response = orderResponseCache.get(order);
+        broadcastStatusChange(response, request.getEstimatedDeliveryTime());
 
         return ResponseEntity.ok(ApiResponse.success(
                 "Order status updated successfully",
@@ -96,24 +81,48 @@ public class InternalApiController {
         ));
     }
 
-    private void markCashOnDeliveryPaymentsAsCompleted(Long orderId) {
-        List<Payment> payments = paymentRepository.findByOrderId(orderId);
-        if (payments.isEmpty()) {
-            return;
-        }
+    /**
+     * Applies status changes for many orders in one transaction. Each entry gets its own
+     * result; one that cannot be applied does not hold back the others. WebSocket updates
+     * go out once the transaction has committed, for the orders the batch actually changed.
+     */
+    @PostMapping("/orders/status:batch")
+    public ResponseEntity<ApiResponse<List<OrderStatusBatchResult>>> updateOrderStatuses(
+            @Valid @RequestBody OrderStatusBatchUpdateRequest request) {
+
+        log.info("Received batch status update for {} orders", request.getUpdates().size());
+
+        List<OrderStatusBatchResult> results = orderStatusUpdateService.applyBatch(request.getUpdates());
+
+        Map<Long, LocalDateTime> estimatedDeliveryTimes = new HashMap<>();
+        request.getUpdates().forEach(update -> {
+            if (update.getEstimatedDeliveryTime() != null) {
+                estimatedDeliveryTimes.put(update.getOrderId(), update.getEstimatedDeliveryTime());
+            }
+        });
+        results.stream()
+                .filter(result -> result.getOutcome() == OrderStatusBatchResult.Outcome.UPDATED
+                        || (result.getOutcome() == OrderStatusBatchResult.Outcome.UNCHANGED
+                                && result.isEstimatedDeliveryTimeChanged()))
+                .forEach(result -> broadcastStatusChange(
+                        result.getOrder(), estimatedDeliveryTimes.get(result.getOrderId())));
 
-        LocalDateTime now = LocalDateTime.now();
-        payments.stream()
-                .filter(payment -> payment.getMethod() == PaymentMethod.CASH_ON_DELIVERY)
-                .filter(payment -> payment.getStatus() != PaymentStatus.COMPLETED)
-                .forEach(payment -> {
-                    payment.setStatus(PaymentStatus.COMPLETED);
-                    if (payment.getPaidAt() == null) {
-                        payment.setPaidAt(now);
-                    }
-                    payment.setUpdatedAt(now);
-                    paymentRepository.save(payment);
-                });
+        return ResponseEntity.ok(ApiResponse.success(
+                "Order statuses processed",
+                results
+        ));
+    }
+
+    /**
+     * Searches orders by status, type, customer, external id and creation time, newest
+     * first. Pass the returned {@code nextCursor} as {@code cursor} to get the next page.
+     */
+    @GetMapping("/orders/search")
+    public ResponseEntity<ApiResponse<OrderSearchPageResponse>> searchOrders(@ModelAttribute OrderSearchRequest request) {
+        return ResponseEntity.ok(ApiResponse.success(
+                "Orders retrieved successfully",
+                orderSearchService.search(request)
+        ));
     }
 
     @PostMapping("/orders/{orderId}/sync")
@@ -130,59 +139,41 @@ public class InternalApiController {
         order.setSyncedAt(LocalDateTime.now());
         orderRepository.save(order);
 
-        List<OrderItem> orderItems = orderItemRepository.findByOrderId(orderId);
-        List<Payment> payments = paymentRepository.findByOrderId(orderId);
-        Delivery delivery = deliveryRepository.findByOrderId(orderId).orElse(null);
-        Pickup pickup = pickupRepository.findByOrderId(orderId).orElse(null);
         return ResponseEntity.ok(ApiResponse.success(
                 "Order synced successfully",
-                orderMapper.toResponse(order, orderItems, payments, delivery, pickup)
+                orderResponseCache.get(order)
         ));
     }
 
-    private void syncPickupStatus(Order order, OrderStatus newStatus) {
-        if (order.getOrderType() != OrderType.PICKUP) {
-            return;
-        }
-
-        pickupRepository.findByOrderId(order.getId()).ifPresent(pickup -> {
-            switch (newStatus) {
-                case PREPARING -> pickup.setStatus(PickupStatus.PREPARING);
-                case READY_FOR_DELIVERY, READY_FOR_PICKUP -> pickup.setStatus(PickupStatus.READY_FOR_PICKUP);
-                case COMPLETED -> {
-                    pickup.setStatus(PickupStatus.COMPLETED);
-                    pickup.setPickedUpAt(LocalDateTime.now());
-                }
-                case CANCELLED -> pickup.setStatus(PickupStatus.CANCELLED);
-                default -> { }
-            }
-
-            if (pickup.getStatus() == PickupStatus.READY_FOR_PICKUP) {
-                LocalDateTime now = LocalDateTime.now();
-                pickup.setReadyAt(now);
-                pickup.setWindowStart(now.minusMinutes(5));
-                pickup.setWindowEnd(now.plusHours(1));
-            }
+    private void broadcastStatusChange(OrderResponse response, LocalDateTime estimatedDeliveryTime) {
+        Long orderId = response.getId();
+        webSocketController.sendOrderUpdate(orderId, response);
 
-            pickupRepository.save(pickup);
-        });
+        OrderStatusMessage statusMessage = OrderStatusMessage.builder()
+                .status(response.getStatus().name())
+                .eventType("ORDER_STATUS_CHANGED")
+                .title("Order status updated")
+                .message("Your order is now " + response.getStatus().name())
+                .estimatedDeliveryTime(response.getEstimatedDeliveryTime())
+                .metadata(buildMetadata(response, estimatedDeliveryTime))
+                .build();
+        webSocketController.sendOrderStatusUpdate(orderId, statusMessage);
+        webSocketController.sendOrderNotification(orderId, statusMessage);
     }
 
-    private Map<String, Object> buildMetadata(Order order, OrderStatusUpdateRequest request) {
+    private Map<String, Object> buildMetadata(OrderResponse response, LocalDateTime estimatedDeliveryTime) {
         Map<String, Object> metadata = new HashMap<>();
-        metadata.put("orderId", order.getId());
-        metadata.put("orderType", order.getOrderType().name());
-        if (request.getEstimatedDeliveryTime() != null) {
-            metadata.put("estimatedDeliveryTime", request.getEstimatedDeliveryTime());
+        metadata.put("orderId", response.getId());
+        metadata.put("orderType", response.getOrderType().name());
+        if (estimatedDeliveryTime != null) {
+            metadata.put("estimatedDeliveryTime", estimatedDeliveryTime);
         }
 
-        if (order.getOrderType() == OrderType.PICKUP) {
-            pickupRepository.findByOrderId(order.getId()).ifPresent(pickup -> {
-                metadata.put("pickupStatus", pickup.getStatus().name());
-                metadata.put("pickupCode", pickup.getPickupCode());
-                metadata.put("pickupWindowStart", pickup.getWindowStart());
-                metadata.put("pickupWindowEnd", pickup.getWindowEnd());
-            });
+        if (response.getOrderType() == OrderType.PICKUP && response.getPickupStatus() != null) {
+            metadata.put("pickupStatus", response.getPickupStatus().name());
+            metadata.put("pickupCode", response.getPickupCode());
+            metadata.put("pickupWindowStart", response.getPickupWindowStart());
+            metadata.put("pickupWindowEnd", response.getPickupWindowEnd());
         }
 
         return metadata;
@@ -10,6 +10,7 @@ import com.restaurant.store.exception.ResourceNotFoundException;
 import com.restaurant.store.exception.UnauthorizedException;
 import com.restaurant.store.security.AuthHelper;
 import com.restaurant.store.service.CartService;
+import com.restaurant.store.service.IdempotencyService;
 import com.restaurant.store.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,6 +23,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
@@ -39,6 +41,7 @@ public class CheckoutWebController {
     private final AuthHelper authHelper;
     private final CartService cartService;
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
     
     @Value("${stripe.api.key}")
     private String stripePublicKey;
@@ -70,20 +73,23 @@ public class CheckoutWebController {
     @PostMapping("/place-order")
     @ResponseBody
     public ResponseEntity<ApiResponse<OrderResponse>> createOrder(
-            @Valid @RequestBody CreateOrderRequest request) {
-        try {
-            Customer customer = authHelper.user();
-            OrderResponse order = orderService.createOrderForCustomer(request, customer.getId());
-            return ResponseEntity.status(HttpStatus.CREATED)
-                    .body(ApiResponse.success("Order created successfully", order));
-        } catch (UnauthorizedException ex) {
-            log.debug("Unauthorized order creation attempt: {}", ex.getMessage());
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
-                    .body(ApiResponse.error("Please login to place an order"));
-        } catch (BadRequestException | ResourceNotFoundException ex) {
-            log.warn("Failed to create order: {}", ex.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(ApiResponse.error(ex.getMessage()));
-        }
+            @Valid @RequestBody CreateOrderRequest request,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        return idempotencyService.execute(idempotencyKey, "POST /checkout/place-order", request, () -> {
+            try {
+                Customer customer = authHelper.user();
+                OrderResponse order = orderService.createOrderForCustomer(request, customer.getId());
+                return ResponseEntity.status(HttpStatus.CREATED)
+                        .body(ApiResponse.success("Order created successfully", order));
+            } catch (UnauthorizedException ex) {
+                log.debug("Unauthorized order creation attempt: {}", ex.getMessage());
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                        .body(ApiResponse.error("Please login to place an order"));
+            } catch (BadRequestException | ResourceNotFoundException ex) {
+                log.warn("Failed to create order: {}", ex.getMessage());
+                return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                        .body(ApiResponse.error(ex.getMessage()));
+            }
+        });
     }
 }
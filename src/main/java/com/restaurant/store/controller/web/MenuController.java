@@ -1,18 +1,22 @@
 package com.restaurant.store.controller.web;
 
-import com.restaurant.store.dto.response.CategoryResponse;
 import com.restaurant.store.dto.response.CustomerResponse;
 import com.restaurant.store.dto.response.ProductResponse;
+import com.restaurant.store.service.MenuFragmentCache;
 import com.restaurant.store.service.ProductService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
 
 @Controller
 @RequestMapping
@@ -20,6 +24,9 @@ public class MenuController {
     
     @Autowired
     private ProductService productService;
+
+    @Autowired
+    private MenuFragmentCache menuFragmentCache;
     
     @GetMapping({"/", "/menu"})
     public String menu(
@@ -27,8 +34,8 @@ public class MenuController {
             HttpServletRequest request,
             Model model) {
         
-        List<CategoryResponse> categories = productService.getAllCategories();
-        List<ProductResponse> products = productService.getAllProducts(categoryId, null);
+        // The grid is rendered once per category and catalog version; only the header is per customer
+        MenuFragmentCache.RenderedMenu rendered = menuFragmentCache.get(categoryId);
         
         // Get customer from session for cart functionality
         HttpSession session = request.getSession(false);
@@ -37,13 +44,75 @@ public class MenuController {
             customer = (CustomerResponse) session.getAttribute("customer");
         }
         
-        model.addAttribute("categories", categories);
-        model.addAttribute("products", products);
+        model.addAttribute("categoriesJson", rendered.categoriesJson());
+        model.addAttribute("gridHtml", rendered.gridMarkup());
         model.addAttribute("selectedCategoryId", categoryId);
         model.addAttribute("customer", customer);
         
         return "menu";
     }
+
+    /**
+     * The products grid as pre-rendered HTML, written straight from the cache, which the menu
+     * page swaps in when another category is picked. Clients that accept gzip get the precompressed copy; each
+     * encoding has its own ETag, so a cache never revalidates one against the other.
+     */
+    @GetMapping("/menu/products-grid")
+    @ResponseBody
+    public ResponseEntity<byte[]> productsGrid(
+            @RequestParam(required = false) Long categoryId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        MenuFragmentCache.RenderedMenu rendered = menuFragmentCache.get(categoryId);
+        boolean gzip = acceptsGzip(acceptEncoding);
+
+        // A matching If-None-Match turns this into a 304 that keeps the ETag and Vary headers
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8))
+                .eTag(gzip ? rendered.gzipEtag() : rendered.etag())
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(rendered.gridGzip());
+        }
+        return response.body(rendered.gridHtml());
+    }
+
+    /**
+     * Whether the Accept-Encoding header allows gzip: named with a non-zero q-value, or
+     * covered by {@code *} when gzip itself is not listed.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.length() > 2 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q') && param.charAt(1) == '=') {
+                    try {
+                        quality = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzip = gzip == null ? quality : Math.max(gzip, quality);
+            } else if (name.equals("*")) {
+                wildcard = quality;
+            }
+        }
+        if (gzip != null) {
+            return gzip > 0;
+        }
+        return wildcard != null && wildcard > 0;
+    }
     
     @GetMapping("/products/{productId}")
     public String productDetails(@PathVariable Long productId, Model model) {
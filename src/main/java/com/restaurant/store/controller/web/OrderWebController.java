@@ -1,5 +1,6 @@
 package com.restaurant.store.controller.web;
 
+import com.restaurant.store.dto.response.OrderHistoryPageResponse;
 import com.restaurant.store.dto.response.OrderResponse;
 import com.restaurant.store.entity.Customer;
 import com.restaurant.store.entity.OrderStatus;
@@ -36,6 +37,8 @@ public class OrderWebController {
     private final AuthHelper authHelper;
     private final OrderService orderService;
 
+    private static final int HISTORY_PAGE_SIZE = 20;
+
     private static final List<OrderStatus> DELIVERY_TRACKING_STATUSES = List.of(
             OrderStatus.PENDING,
             OrderStatus.CONFIRMED,
@@ -74,8 +77,11 @@ public class OrderWebController {
     public String orders(Model model, RedirectAttributes redirectAttributes) {
         try {
             Customer customer = authHelper.user();
-            List<OrderResponse> orders = orderService.getOrdersForCustomer(customer.getId());
-            model.addAttribute("orders", orders);
+            // First page of summaries only; older pages and order details are fetched by the page
+            OrderHistoryPageResponse history = orderService.getOrderHistoryForCustomer(customer.getId(), null, HISTORY_PAGE_SIZE, true);
+            model.addAttribute("orders", history.getItems());
+            model.addAttribute("nextCursor", history.getNextCursor());
+            model.addAttribute("historyPageSize", HISTORY_PAGE_SIZE);
 
             return "orders";
         } catch (UnauthorizedException ex) {
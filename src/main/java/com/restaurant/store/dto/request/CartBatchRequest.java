@@ -0,0 +1,50 @@
+package com.restaurant.store.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Changes to apply to the shopping cart in order, all or none")
+public class CartBatchRequest {
+
+    @NotEmpty(message = "At least one operation is required")
+    @Size(max = 100, message = "At most 100 operations can be sent at once")
+    @Valid
+    private List<Operation> operations;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Operation {
+
+        @Schema(description = "ADD adds the quantity of a product; SET_QUANTITY and REMOVE change a line",
+                example = "ADD", required = true)
+        @NotNull(message = "Operation type is required")
+        private Type type;
+
+        @Schema(description = "Product to add, or whose line to change when cartItemId is not given", example = "1")
+        private Long productId;
+
+        @Schema(description = "Cart item to change", example = "5")
+        private Long cartItemId;
+
+        @Schema(description = "Quantity to add or set; not used by REMOVE", example = "2", minimum = "1")
+        @Min(value = 1, message = "Quantity must be at least 1")
+        private Integer quantity;
+    }
+
+    public enum Type {
+        ADD, SET_QUANTITY, REMOVE
+    }
+}
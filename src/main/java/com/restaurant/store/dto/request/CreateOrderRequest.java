@@ -2,7 +2,6 @@ package com.restaurant.store.dto.request;
 
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.AssertTrue;
-import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
@@ -18,7 +17,10 @@ import java.util.List;
 @AllArgsConstructor
 public class CreateOrderRequest {
     
-    @NotEmpty(message = "Order items cannot be empty")
+    /**
+     * Lines to order. When empty, the customer's cart is checked out instead and emptied
+     * in the same transaction as the order is created.
+     */
     @Valid
     private List<OrderItemRequest> orderItems;
     
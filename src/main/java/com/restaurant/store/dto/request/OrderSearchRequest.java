@@ -0,0 +1,44 @@
+package com.restaurant.store.dto.request;
+
+import com.restaurant.store.entity.OrderStatus;
+import com.restaurant.store.entity.OrderType;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Filters for the internal order search. Every filter is optional and they are combined
+ * with AND; {@code status} matches any of the given statuses.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSearchRequest {
+    private List<OrderStatus> status;
+    private OrderType orderType;
+    private Long customerId;
+    private Long externalId;
+
+    /**
+     * Inclusive lower bound on the creation time.
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdFrom;
+
+    /**
+     * Exclusive upper bound on the creation time.
+     */
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime createdTo;
+
+    /**
+     * {@code nextCursor} of the previous page; omitted for the first page.
+     */
+    private String cursor;
+
+    private Integer limit;
+}
@@ -0,0 +1,37 @@
+package com.restaurant.store.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusBatchUpdateRequest {
+
+    @NotEmpty(message = "At least one update is required")
+    @Size(max = 200, message = "At most 200 updates can be sent at once")
+    @Valid
+    private List<Update> updates;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Update {
+        @NotNull(message = "Order ID is required")
+        private Long orderId;
+
+        @NotBlank(message = "Status is required")
+        private String status;
+
+        private LocalDateTime estimatedDeliveryTime;
+    }
+}
@@ -0,0 +1,17 @@
+package com.restaurant.store.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartSummaryResponse {
+    private Integer itemCount;
+    private BigDecimal total;
+}
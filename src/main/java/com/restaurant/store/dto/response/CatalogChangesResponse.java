@@ -0,0 +1,28 @@
+package com.restaurant.store.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CatalogChangesResponse {
+    /**
+     * Catalog version to send as {@code since} on the next call.
+     */
+    private long version;
+    /**
+     * True when no {@code since} was given and the lists hold the whole menu;
+     * the client should replace its local copy instead of merging.
+     */
+    private boolean fullResync;
+    private List<CategoryResponse> categories;
+    private List<ProductResponse> products;
+    private List<Long> deletedCategoryIds;
+    private List<Long> deletedProductIds;
+}
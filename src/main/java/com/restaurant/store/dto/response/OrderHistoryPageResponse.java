@@ -0,0 +1,22 @@
+package com.restaurant.store.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderHistoryPageResponse {
+    private List<OrderSummaryResponse> items;
+    /**
+     * Cursor to send as {@code before} for the next (older) page; null on the last page.
+     */
+    private Long nextCursor;
+    private boolean hasMore;
+    private int limit;
+}
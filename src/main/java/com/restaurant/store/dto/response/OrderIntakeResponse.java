@@ -0,0 +1,37 @@
+package com.restaurant.store.dto.response;
+
+import com.restaurant.store.entity.OrderIntakeTicket;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderIntakeResponse {
+    private Long ticketId;
+    private OrderIntakeTicket.Status status;
+    /**
+     * Set once the order has been created.
+     */
+    private Long orderId;
+    /**
+     * Why the order could not be created, for {@code FAILED} tickets.
+     */
+    private String error;
+    /**
+     * Tickets queued ahead of this one; null once it has been processed.
+     */
+    private Long queuePosition;
+    /**
+     * Tickets waiting in the whole queue.
+     */
+    private long queueDepth;
+    private int queueCapacity;
+    private LocalDateTime createdAt;
+    private LocalDateTime processedAt;
+}
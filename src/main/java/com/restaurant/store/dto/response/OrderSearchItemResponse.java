@@ -0,0 +1,28 @@
+package com.restaurant.store.dto.response;
+
+import com.restaurant.store.entity.OrderStatus;
+import com.restaurant.store.entity.OrderType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One row of the internal order search, projected straight from the {@code orders} table.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSearchItemResponse {
+    private Long id;
+    private Long externalId;
+    private Long customerId;
+    private OrderStatus status;
+    private OrderType orderType;
+    private BigDecimal totalPrice;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,22 @@
+package com.restaurant.store.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSearchPageResponse {
+    private List<OrderSearchItemResponse> items;
+    /**
+     * Cursor to send as {@code cursor} for the next (older) page; null on the last page.
+     */
+    private String nextCursor;
+    private boolean hasMore;
+    private int limit;
+}
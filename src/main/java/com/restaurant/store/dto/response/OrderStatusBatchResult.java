@@ -0,0 +1,38 @@
+package com.restaurant.store.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one entry of a batch status update.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusBatchResult {
+
+    public enum Outcome {
+        /** The order moved to the requested status. */
+        UPDATED,
+        /** The order already had the requested status. */
+        UNCHANGED,
+        /** The order's current status does not allow the requested one. */
+        REJECTED,
+        NOT_FOUND
+    }
+
+    private Long orderId;
+    private Outcome outcome;
+    private String message;
+    /**
+     * Whether the entry changed the order's estimated delivery time.
+     */
+    private boolean estimatedDeliveryTimeChanged;
+    /**
+     * The order after the batch; null when it was not found.
+     */
+    private OrderResponse order;
+}
@@ -0,0 +1,31 @@
+package com.restaurant.store.dto.response;
+
+import com.restaurant.store.entity.OrderStatus;
+import com.restaurant.store.entity.OrderType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One row of a customer's order history; the full {@link OrderResponse} is loaded when
+ * the order is opened.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryResponse {
+    private Long id;
+    private OrderStatus status;
+    private BigDecimal totalPrice;
+    private OrderType orderType;
+    private LocalDateTime createdAt;
+    /**
+     * Total quantity over all order lines.
+     */
+    private Long itemCount;
+}
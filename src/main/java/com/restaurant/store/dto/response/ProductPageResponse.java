@@ -0,0 +1,22 @@
+package com.restaurant.store.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductPageResponse {
+    private List<ProductResponse> items;
+    /**
+     * Cursor to send as {@code after} for the next page; null on the last page.
+     */
+    private Long nextCursor;
+    private boolean hasMore;
+    private int limit;
+}
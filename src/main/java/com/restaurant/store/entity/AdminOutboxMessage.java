@@ -0,0 +1,85 @@
+package com.restaurant.store.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * A pending notification for the Admin backend, written in the same transaction as the
+ * order change it describes and delivered later by the outbox dispatcher.
+ */
+@Entity
+@Table(name = "admin_outbox", indexes = {
+        @Index(name = "idx_admin_outbox_status_id", columnList = "status, id"),
+        @Index(name = "idx_admin_outbox_order_id", columnList = "order_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class AdminOutboxMessage {
+
+    public enum Type {
+        ORDER_CREATED,
+        ORDER_STATUS_CHANGED
+    }
+
+    public enum Status {
+        PENDING,
+        SENT,
+        FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private Type type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    /**
+     * Instance currently delivering this message, and until when it may; a lease rather than
+     * a row lock, since delivery calls the Admin API outside any transaction.
+     */
+    @Column(name = "claimed_by", length = 64)
+    private String claimedBy;
+
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    public AdminOutboxMessage(Long orderId, Type type) {
+        this.orderId = orderId;
+        this.type = type;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+
+    public boolean isDue(LocalDateTime now) {
+        return !nextAttemptAt.isAfter(now);
+    }
+}
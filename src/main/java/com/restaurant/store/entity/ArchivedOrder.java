@@ -0,0 +1,61 @@
+package com.restaurant.store.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A finished order moved out of the hot tables by the order archiver.
+ * <p>
+ * The columns history pages filter and list by are kept as columns; everything else is
+ * stored as the order's {@code OrderResponse} JSON at the time it was archived, since
+ * archived orders no longer change. The id is the original order id.
+ */
+@Entity
+@Table(name = "order_archive", indexes = {
+        @Index(name = "idx_order_archive_customer_id_id", columnList = "customer_id, id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class ArchivedOrder {
+
+    @Id
+    private Long id;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private OrderStatus status;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "order_type", nullable = false)
+    private OrderType orderType;
+
+    @Column(name = "total_price", nullable = false, precision = 10, scale = 2)
+    private BigDecimal totalPrice;
+
+    @Column(name = "item_count", nullable = false)
+    private Long itemCount;
+
+    @Column(name = "external_id")
+    private Long externalId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String snapshot;
+}
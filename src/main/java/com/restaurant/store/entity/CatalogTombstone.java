@@ -0,0 +1,43 @@
+package com.restaurant.store.entity;
+
+import com.restaurant.store.event.CatalogChangedEvent;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records that a product or category was deleted, so clients syncing the menu
+ * incrementally can drop it from their local copy.
+ */
+@Entity
+@Table(name = "catalog_tombstones", indexes = {
+        @Index(name = "idx_catalog_tombstones_deleted_at", columnList = "deleted_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class CatalogTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 20)
+    private CatalogChangedEvent.EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    public CatalogTombstone(CatalogChangedEvent.EntityType entityType, Long entityId) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.deletedAt = LocalDateTime.now();
+    }
+}
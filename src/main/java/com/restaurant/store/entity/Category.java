@@ -1,6 +1,7 @@
 package com.restaurant.store.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.restaurant.store.event.CatalogEntityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -13,6 +14,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "categories")
+@EntityListeners(CatalogEntityListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
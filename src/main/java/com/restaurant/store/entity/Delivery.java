@@ -1,5 +1,6 @@
 package com.restaurant.store.entity;
 
+import com.restaurant.store.event.OrderEntityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -11,6 +12,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "deliveries")
+@EntityListeners(OrderEntityListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -1,18 +1,28 @@
 package com.restaurant.store.entity;
 
+import com.restaurant.store.event.OrderEntityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_customer_id_id", columnList = "customer_id, id"),
+        // Keyset order of the internal search, and of its status-filtered form (also used by
+        // the archiver); kept narrow, as every status change rewrites the status index entry
+        @Index(name = "idx_orders_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_orders_status_created_at_id", columnList = "status, created_at, id")
+})
+@EntityListeners(OrderEntityListener.class)
+@DynamicUpdate
 @Getter
 @Setter
 @NoArgsConstructor
@@ -63,6 +73,13 @@ public class Order {
     
     @Column(name = "estimated_delivery_time")
     private LocalDateTime estimatedDeliveryTime;
+
+    /**
+     * Whether the order was placed from the customer's cart, which it emptied, and is not
+     * paid yet; its lines go back to the cart if it is cancelled or its checkout expires.
+     */
+    @Column(name = "cart_restorable", nullable = false, columnDefinition = "boolean default false")
+    private boolean cartRestorable;
     
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<OrderItem> orderItems;
@@ -0,0 +1,76 @@
+package com.restaurant.store.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * An order request accepted in async intake mode, waiting in the intake queue until a
+ * worker turns it into an order.
+ */
+@Entity
+@Table(name = "order_intake", indexes = {
+        @Index(name = "idx_order_intake_status_id", columnList = "status, id"),
+        @Index(name = "idx_order_intake_processed_at", columnList = "processed_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class OrderIntakeTicket {
+
+    public enum Status {
+        QUEUED,
+        COMPLETED,
+        FAILED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long id;
+
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+
+    /**
+     * The {@code CreateOrderRequest} as JSON.
+     */
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.QUEUED;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(length = 500)
+    private String error;
+
+    /**
+     * Failed attempts so far; only errors worth retrying leave the ticket queued.
+     */
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private int attempts;
+
+    /**
+     * Earliest time a queued ticket is picked up again after a failed attempt.
+     */
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    public OrderIntakeTicket(Long customerId, String payload) {
+        this.customerId = customerId;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -1,5 +1,6 @@
 package com.restaurant.store.entity;
 
+import com.restaurant.store.event.OrderEntityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
@@ -11,7 +12,10 @@ import lombok.Setter;
 import java.math.BigDecimal;
 
 @Entity
-@Table(name = "order_items")
+@Table(name = "order_items", indexes = {
+        @Index(name = "idx_order_items_order_id", columnList = "order_id")
+})
+@EntityListeners(OrderEntityListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -1,5 +1,56 @@
 package com.restaurant.store.entity;
 
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lifecycle of an order. Orders only move forward: any step may be skipped, an open order
+ * may be cancelled at any time, and {@link #COMPLETED} and {@link #CANCELLED} are final.
+ */
 public enum OrderStatus {
-    PENDING, CONFIRMED, PREPARING, READY_FOR_PICKUP, READY_FOR_DELIVERY, OUT_FOR_DELIVERY, COMPLETED, CANCELLED
+    PENDING, CONFIRMED, PREPARING, READY_FOR_PICKUP, READY_FOR_DELIVERY, OUT_FOR_DELIVERY, COMPLETED, CANCELLED;
+
+    private static final Map<OrderStatus, Set<OrderStatus>> NEXT = new EnumMap<>(OrderStatus.class);
+    private static final Map<OrderStatus, Set<OrderStatus>> PREVIOUS = new EnumMap<>(OrderStatus.class);
+
+    static {
+        allow(PENDING, CONFIRMED, PREPARING, READY_FOR_PICKUP, READY_FOR_DELIVERY, OUT_FOR_DELIVERY, COMPLETED, CANCELLED);
+        allow(CONFIRMED, PREPARING, READY_FOR_PICKUP, READY_FOR_DELIVERY, OUT_FOR_DELIVERY, COMPLETED, CANCELLED);
+        allow(PREPARING, READY_FOR_PICKUP, READY_FOR_DELIVERY, OUT_FOR_DELIVERY, COMPLETED, CANCELLED);
+        allow(READY_FOR_PICKUP, COMPLETED, CANCELLED);
+        allow(READY_FOR_DELIVERY, OUT_FOR_DELIVERY, COMPLETED, CANCELLED);
+        allow(OUT_FOR_DELIVERY, COMPLETED, CANCELLED);
+        allow(COMPLETED);
+        allow(CANCELLED);
+
+        for (OrderStatus status : values()) {
+            PREVIOUS.put(status, EnumSet.noneOf(OrderStatus.class));
+        }
+        NEXT.forEach((from, targets) -> targets.forEach(to -> PREVIOUS.get(to).add(from)));
+        PREVIOUS.replaceAll((to, sources) -> Collections.unmodifiableSet(sources));
+    }
+
+    private static void allow(OrderStatus from, OrderStatus... to) {
+        Set<OrderStatus> targets = EnumSet.noneOf(OrderStatus.class);
+        Collections.addAll(targets, to);
+        NEXT.put(from, Collections.unmodifiableSet(targets));
+    }
+
+    public boolean canTransitionTo(OrderStatus target) {
+        return NEXT.get(this).contains(target);
+    }
+
+    /**
+     * Statuses an order may be in to move to this one.
+     */
+    public Set<OrderStatus> previousStatuses() {
+        return PREVIOUS.get(this);
+    }
+
+    public boolean isFinal() {
+        return NEXT.get(this).isEmpty();
+    }
 }
@@ -1,5 +1,6 @@
 package com.restaurant.store.entity;
 
+import com.restaurant.store.event.OrderEntityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
@@ -12,6 +13,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "payments")
+@EntityListeners(OrderEntityListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
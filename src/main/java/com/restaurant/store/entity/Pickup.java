@@ -1,5 +1,6 @@
 package com.restaurant.store.entity;
 
+import com.restaurant.store.event.OrderEntityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Size;
 import lombok.Getter;
@@ -10,6 +11,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "pickups")
+@EntityListeners(OrderEntityListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
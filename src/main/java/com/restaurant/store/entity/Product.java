@@ -1,10 +1,12 @@
 package com.restaurant.store.entity;
 
+import com.restaurant.store.event.CatalogEntityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -14,7 +16,10 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_products_category_id_id", columnList = "category_id, id")
+})
+@EntityListeners(CatalogEntityListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -63,6 +68,14 @@ public class Product {
     
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<OrderItem> orderItems;
+
+    /**
+     * Category id as last read from or written to the database, so a move to another
+     * category can be told apart from other updates.
+     */
+    @Transient
+    @Setter(AccessLevel.NONE)
+    private Long storedCategoryId;
     
     public Product(String name, String description, BigDecimal price, String imageUrl, Boolean isAvailable, Category category) {
         this.name = name;
@@ -88,4 +101,11 @@ public class Product {
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
     }
+
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    protected void rememberCategory() {
+        storedCategoryId = category != null ? category.getId() : null;
+    }
 }
\ No newline at end of file
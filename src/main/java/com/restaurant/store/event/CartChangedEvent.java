@@ -0,0 +1,19 @@
+package com.restaurant.store.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Published whenever a customer's cart changes, with the cart's item count and subtotal
+ * (in minor units) after the change.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class CartChangedEvent {
+
+    private final Long customerId;
+    private final int itemCount;
+    private final long subtotalMinor;
+}
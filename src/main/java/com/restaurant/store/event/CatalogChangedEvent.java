@@ -0,0 +1,39 @@
+package com.restaurant.store.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * Published whenever a product or category row is inserted, updated or deleted,
+ * regardless of whether the change came from the admin sync job, an admin event
+ * or a local write.
+ * <p>
+ * {@code categoryIds} lists the categories whose products the change adds to or removes
+ * from: the product's category when it is inserted or deleted, and both the old and the
+ * new category when it moves.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class CatalogChangedEvent {
+
+    public enum EntityType {
+        PRODUCT, CATEGORY
+    }
+
+    public enum ChangeType {
+        CREATED, UPDATED, DELETED
+    }
+
+    private final EntityType entityType;
+    private final ChangeType changeType;
+    private final Long entityId;
+    private final List<Long> categoryIds;
+
+    public CatalogChangedEvent(EntityType entityType, ChangeType changeType, Long entityId) {
+        this(entityType, changeType, entityId, List.of());
+    }
+}
@@ -0,0 +1,74 @@
+package com.restaurant.store.event;
+
+import com.restaurant.store.entity.Category;
+import com.restaurant.store.entity.Product;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PreRemove;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * JPA entity listener attached to {@link Product} and {@link Category}.
+ * Turns every catalog write into a {@link CatalogChangedEvent} so that in-memory
+ * catalog views do not have to know which service performed the write.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        publish(entity, CatalogChangedEvent.ChangeType.CREATED);
+    }
+
+    @PostUpdate
+    public void onUpdate(Object entity) {
+        publish(entity, CatalogChangedEvent.ChangeType.UPDATED);
+    }
+
+    /**
+     * Deletes are reported before the row is removed rather than at flush time, so that
+     * listeners bound to the transaction (such as the tombstone writer) are registered
+     * before the commit starts.
+     */
+    @PreRemove
+    public void onRemove(Object entity) {
+        publish(entity, CatalogChangedEvent.ChangeType.DELETED);
+    }
+
+    private void publish(Object entity, CatalogChangedEvent.ChangeType changeType) {
+        if (entity instanceof Product product) {
+            eventPublisher.publishEvent(new CatalogChangedEvent(
+                    CatalogChangedEvent.EntityType.PRODUCT, changeType, product.getId(),
+                    affectedCategories(product, changeType)));
+        } else if (entity instanceof Category category) {
+            eventPublisher.publishEvent(new CatalogChangedEvent(
+                    CatalogChangedEvent.EntityType.CATEGORY, changeType, category.getId()));
+        }
+    }
+
+    /**
+     * Entity listener callbacks run before the entity's own, so on update
+     * {@link Product#getStoredCategoryId()} still holds the category the product was in.
+     */
+    private static List<Long> affectedCategories(Product product, CatalogChangedEvent.ChangeType changeType) {
+        Long categoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+        List<Long> categoryIds = new ArrayList<>(2);
+        if (changeType != CatalogChangedEvent.ChangeType.UPDATED) {
+            categoryIds.add(categoryId);
+        } else if (!Objects.equals(categoryId, product.getStoredCategoryId())) {
+            categoryIds.add(product.getStoredCategoryId());
+            categoryIds.add(categoryId);
+        }
+        categoryIds.removeIf(Objects::isNull);
+        return categoryIds;
+    }
+}
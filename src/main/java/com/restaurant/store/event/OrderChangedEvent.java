@@ -0,0 +1,23 @@
+package com.restaurant.store.event;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Published whenever an order, or one of its items, payments, deliveries or pickups, is
+ * inserted, updated or deleted, whichever service or controller made the change.
+ * {@code orderRowWritten} is false when only one of those child rows was written.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor
+public class OrderChangedEvent {
+
+    private final Long orderId;
+    private final boolean orderRowWritten;
+
+    public OrderChangedEvent(Long orderId) {
+        this(orderId, true);
+    }
+}
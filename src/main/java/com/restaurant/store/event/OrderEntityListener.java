@@ -0,0 +1,47 @@
+package com.restaurant.store.event;
+
+import com.restaurant.store.entity.Delivery;
+import com.restaurant.store.entity.Order;
+import com.restaurant.store.entity.OrderItem;
+import com.restaurant.store.entity.Payment;
+import com.restaurant.store.entity.Pickup;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener attached to {@link Order} and the entities that make up an order
+ * response. Turns every write into an {@link OrderChangedEvent} for the order concerned,
+ * so cached order views do not have to know which service performed the write.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        Order order = null;
+        if (entity instanceof Order changed) {
+            order = changed;
+        } else if (entity instanceof OrderItem item) {
+            order = item.getOrder();
+        } else if (entity instanceof Payment payment) {
+            order = payment.getOrder();
+        } else if (entity instanceof Delivery delivery) {
+            order = delivery.getOrder();
+        } else if (entity instanceof Pickup pickup) {
+            order = pickup.getOrder();
+        }
+
+        if (order != null && order.getId() != null) {
+            eventPublisher.publishEvent(new OrderChangedEvent(order.getId(), entity == order));
+        }
+    }
+}
@@ -365,34 +365,38 @@ public class AdminApiClient implements AdminIntegrationService {
     }
 
     @Override
-    public void updateOrderStatus(Order order) {
+    public boolean updateOrderStatus(Order order) {
         if (order == null || order.getExternalId() == null) {
-            return;
+            // Not created in Admin yet; the status change has to wait for it
+            return false;
         }
 
         try {
             String token = authenticate();
             if (token == null) {
                 log.warn("Unable to authenticate with Admin API while updating order status for {}", order.getId());
-                return;
+                return false;
             }
 
             UpdateOrderStatusRequestDTO request = UpdateOrderStatusRequestDTO.builder()
                     .status(order.getStatus())
                     .build();
 
+            // retrieve() turns any non-2xx answer into a WebClientResponseException
             adminWebClient.patch()
                     .uri("/orders/{id}/status", order.getExternalId())
                     .headers(headers -> headers.setBearerAuth(token))
                     .bodyValue(request)
                     .retrieve()
-                    .bodyToMono(Void.class)
+                    .toBodilessEntity()
                     .block();
+            return true;
         } catch (WebClientResponseException e) {
             log.error("Error forwarding status for order {} to Admin API: {} - {}", order.getId(), e.getStatusCode(), e.getMessage());
         } catch (Exception e) {
             log.error("Unexpected error forwarding status for order {} to Admin API", order.getId(), e);
         }
+        return false;
     }
 
     @Override
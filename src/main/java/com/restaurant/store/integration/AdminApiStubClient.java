@@ -134,11 +134,12 @@ public class AdminApiStubClient implements AdminIntegrationService {
     }
 
     @Override
-    public void updateOrderStatus(Order order) {
+    public boolean updateOrderStatus(Order order) {
         if (order == null) {
-            return;
+            return false;
         }
         log.info("Stubbed Admin API received status {} for order {}", order.getStatus(), order.getExternalId());
+        return true;
     }
 
     @Override
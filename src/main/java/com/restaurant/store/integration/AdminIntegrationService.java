@@ -25,7 +25,10 @@ public interface AdminIntegrationService {
 
     Optional<Long> syncOrderToAdmin(Order order, List<OrderItem> orderItems);
 
-    void updateOrderStatus(Order order);
+    /**
+     * Forwards the order's current status; true only once the Admin API answered with a 2xx.
+     */
+    boolean updateOrderStatus(Order order);
 
     List<OrderDTO> fetchKitchenOrders();
 
@@ -0,0 +1,70 @@
+package com.restaurant.store.integration;
+
+import com.restaurant.store.entity.AdminOutboxMessage;
+import com.restaurant.store.repository.AdminOutboxMessageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Background delivery of {@link AdminSyncOutbox} messages.
+ * <p>
+ * Each run takes a batch of the orders whose oldest pending message is due and delivers
+ * every order separately, so one failing order only delays itself. Sent and failed
+ * messages are kept for {@code admin.api.outbox.retention-hours} and deleted after that.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AdminOutboxDispatcher {
+
+    private final AdminOutboxMessageRepository outboxRepository;
+    private final AdminSyncOutbox adminSyncOutbox;
+
+    @Value("${admin.api.outbox.enabled:true}")
+    private boolean outboxEnabled;
+
+    @Value("${admin.api.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${admin.api.outbox.retention-hours:168}")
+    private int retentionHours;
+
+    @Scheduled(fixedDelayString = "${admin.api.outbox.interval:1000}")
+    public void dispatch() {
+        if (!outboxEnabled) {
+            return;
+        }
+
+        List<Long> orderIds = outboxRepository.findDueOrderIds(
+                AdminOutboxMessage.Status.PENDING, LocalDateTime.now(), PageRequest.of(0, batchSize));
+        if (orderIds.isEmpty()) {
+            return;
+        }
+
+        log.debug("Dispatching Admin outbox messages for {} orders", orderIds.size());
+        orderIds.forEach(orderId -> {
+            try {
+                adminSyncOutbox.deliver(orderId);
+            } catch (Exception e) {
+                log.error("Failed to deliver Admin outbox messages for order {}", orderId, e);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${admin.api.outbox.prune-interval:3600000}",
+            initialDelayString = "${admin.api.outbox.prune-interval:3600000}")
+    public void pruneFinished() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(retentionHours);
+        int pruned = outboxRepository.deleteFinishedBefore(AdminOutboxMessage.Status.PENDING, cutoff);
+        if (pruned > 0) {
+            log.info("Pruned {} Admin outbox messages finished before {}", pruned, cutoff);
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.restaurant.store.integration;
+
+import com.restaurant.store.entity.AdminOutboxMessage;
+import com.restaurant.store.entity.Category;
+import com.restaurant.store.entity.Order;
+import com.restaurant.store.entity.OrderItem;
+import com.restaurant.store.entity.Product;
+import com.restaurant.store.repository.AdminOutboxMessageRepository;
+import com.restaurant.store.repository.CategoryRepository;
+import com.restaurant.store.repository.OrderItemRepository;
+import com.restaurant.store.repository.OrderRepository;
+import com.restaurant.store.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Transactional outbox for order changes the Admin backend has to hear about.
+ * <p>
+ * The order path only records a message, in the same transaction as the change, so placing
+ * or updating an order never waits on the Admin API. {@link AdminOutboxDispatcher} later hands the messages
+ * of one order to {@link #deliver} in the order they were written; a message that fails is
+ * retried with exponential backoff and holds back the later messages of the same order, so
+ * the Admin backend never sees a status change before the order it belongs to.
+ * <p>
+ * Delivery leases the order's messages to this instance in a short transaction, calls the
+ * Admin API outside any transaction and records each outcome in another short one, so no
+ * connection or row lock is held across HTTP calls and two instances never send the same
+ * message.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AdminSyncOutbox {
+
+    static final int MAX_ATTEMPTS = 10;
+    private static final Duration INITIAL_BACKOFF = Duration.ofSeconds(2);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(5);
+    static final Duration LEASE = Duration.ofMinutes(5);
+
+    private final String owner = UUID.randomUUID().toString();
+
+    private final AdminOutboxMessageRepository outboxRepository;
+    private final AdminIntegrationService adminIntegrationService;
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderCreated(Order order) {
+        outboxRepository.save(new AdminOutboxMessage(order.getId(), AdminOutboxMessage.Type.ORDER_CREATED));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderStatusChanged(Order order) {
+        outboxRepository.save(new AdminOutboxMessage(order.getId(), AdminOutboxMessage.Type.ORDER_STATUS_CHANGED));
+    }
+
+    /**
+     * Delivers the pending messages of one order, oldest first, stopping at the first one
+     * that is not due yet or fails. A run of consecutive status changes is sent as a single
+     * update, since the Admin API only takes the order's current status. Does nothing while
+     * another instance holds the order's lease.
+     */
+    public void deliver(Long orderId) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer claimed = transactionTemplate.execute(status ->
+                outboxRepository.claim(orderId, AdminOutboxMessage.Status.PENDING, owner, now, now.plus(LEASE)));
+        if (claimed == null || claimed == 0) {
+            return;
+        }
+        try {
+            Delivery delivery = transactionTemplate.execute(status -> prepare(orderId, now));
+            if (delivery != null) {
+                deliver(delivery, now);
+            }
+        } finally {
+            transactionTemplate.executeWithoutResult(status -> outboxRepository.release(orderId, owner));
+        }
+    }
+
+    /**
+     * The messages leased to this instance, with the order graph the Admin calls need loaded
+     * up front so it can be used after the transaction ends. Null when there is nothing to
+     * send, including when another instance still leases part of the order.
+     */
+    private Delivery prepare(Long orderId, LocalDateTime now) {
+        if (outboxRepository.existsByOrderIdAndStatusAndClaimedByNotAndClaimedUntilGreaterThanEqual(
+                orderId, AdminOutboxMessage.Status.PENDING, owner, now)) {
+            return null;
+        }
+        List<AdminOutboxMessage> messages = outboxRepository.findByOrderIdAndStatusAndClaimedByOrderByIdAsc(
+                orderId, AdminOutboxMessage.Status.PENDING, owner);
+        if (messages.isEmpty()) {
+            return null;
+        }
+        Optional<Order> found = orderRepository.findById(orderId);
+        if (found.isEmpty()) {
+            messages.forEach(message -> giveUp(message, "Order no longer exists"));
+            return null;
+        }
+        Order order = found.get();
+        Hibernate.initialize(order.getCustomer());
+        List<OrderItem> orderItems = orderItemRepository.findByOrderId(orderId);
+        for (OrderItem orderItem : orderItems) {
+            Product product = orderItem.getProduct();
+            if (product != null) {
+                Hibernate.initialize(product);
+                Hibernate.initialize(product.getCategory());
+            }
+        }
+        return new Delivery(order, orderItems, messages);
+    }
+
+    private void deliver(Delivery delivery, LocalDateTime now) {
+        List<AdminOutboxMessage> messages = delivery.messages();
+        Long orderId = delivery.order().getId();
+
+        int i = 0;
+        while (i < messages.size()) {
+            AdminOutboxMessage message = messages.get(i);
+            if (!message.isDue(now)) {
+                return;
+            }
+
+            int end = i + 1;
+            if (message.getType() == AdminOutboxMessage.Type.ORDER_STATUS_CHANGED) {
+                while (end < messages.size()
+                        && messages.get(end).getType() == AdminOutboxMessage.Type.ORDER_STATUS_CHANGED) {
+                    end++;
+                }
+            }
+            List<AdminOutboxMessage> run = messages.subList(i, end);
+
+            String error;
+            try {
+                error = send(message.getType(), delivery);
+            } catch (Exception e) {
+                error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            }
+
+            AdminOutboxMessage recorded = record(run, error);
+            if (error == null) {
+                i = end;
+            } else if (recorded.getStatus() == AdminOutboxMessage.Status.FAILED) {
+                // Out of attempts; later messages of the order may still be useful
+                log.error("Giving up on {} for order {} after {} attempts: {}",
+                        message.getType(), orderId, recorded.getAttempts(), error);
+                i++;
+            } else {
+                log.warn("Admin sync {} for order {} failed (attempt {}), retrying at {}: {}",
+                        message.getType(), orderId, recorded.getAttempts(), recorded.getNextAttemptAt(), error);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Null when the Admin backend accepted the change, otherwise why it did not.
+     */
+    private String send(AdminOutboxMessage.Type type, Delivery delivery) {
+        Order order = delivery.order();
+        switch (type) {
+            case ORDER_CREATED -> {
+                if (order.getExternalId() != null) {
+                    return null;
+                }
+                ensureProductsSynced(delivery.orderItems());
+                Optional<Long> externalId = adminIntegrationService.syncOrderToAdmin(order, delivery.orderItems());
+                if (externalId.isEmpty()) {
+                    return "Admin backend did not accept the order";
+                }
+                order.setExternalId(externalId.get());
+                order.setSyncedAt(LocalDateTime.now());
+                // Only the sync columns, so a status change made meanwhile is not overwritten
+                transactionTemplate.executeWithoutResult(status -> orderRepository.findById(order.getId())
+                        .ifPresent(stored -> {
+                            stored.setExternalId(order.getExternalId());
+                            stored.setSyncedAt(order.getSyncedAt());
+                        }));
+                return null;
+            }
+            case ORDER_STATUS_CHANGED -> {
+                if (!adminIntegrationService.updateOrderStatus(order)) {
+                    return "Admin backend did not accept the status change";
+                }
+                return null;
+            }
+            default -> {
+                return "Unknown message type " + type;
+            }
+        }
+    }
+
+    private void ensureProductsSynced(List<OrderItem> orderItems) {
+        for (OrderItem orderItem : orderItems) {
+            Product product = orderItem.getProduct();
+            if (product == null) {
+                continue;
+            }
+
+            Category category = product.getCategory();
+            if (category != null && category.getExternalId() == null) {
+                adminIntegrationService.pushCategory(category).ifPresent(externalId -> {
+                    category.setExternalId(externalId);
+                    category.setSyncedAt(LocalDateTime.now());
+                    transactionTemplate.executeWithoutResult(status -> categoryRepository.findById(category.getId())
+                            .ifPresent(stored -> {
+                                stored.setExternalId(externalId);
+                                stored.setSyncedAt(category.getSyncedAt());
+                            }));
+                });
+            }
+
+            if (product.getExternalId() == null) {
+                adminIntegrationService.pushProduct(product).ifPresent(externalId -> {
+                    product.setExternalId(externalId);
+                    product.setSyncedAt(LocalDateTime.now());
+                    transactionTemplate.executeWithoutResult(status -> productRepository.findById(product.getId())
+                            .ifPresent(stored -> {
+                                stored.setExternalId(externalId);
+                                stored.setSyncedAt(product.getSyncedAt());
+                            }));
+                });
+            }
+        }
+    }
+
+    /**
+     * Stores the outcome of sending a run: all of it SENT on success, otherwise the next
+     * attempt of its first message. Returns that first message as stored.
+     */
+    private AdminOutboxMessage record(List<AdminOutboxMessage> run, String error) {
+        return transactionTemplate.execute(status -> {
+            List<AdminOutboxMessage> stored = new ArrayList<>(outboxRepository.findAllById(
+                    run.stream().map(AdminOutboxMessage::getId).toList()));
+            stored.sort(Comparator.comparing(AdminOutboxMessage::getId));
+            if (error == null) {
+                LocalDateTime sentAt = LocalDateTime.now();
+                stored.forEach(sent -> {
+                    sent.setStatus(AdminOutboxMessage.Status.SENT);
+                    sent.setSentAt(sentAt);
+                    sent.setLastError(null);
+                });
+            } else {
+                retryLater(stored.get(0), error);
+            }
+            return stored.get(0);
+        });
+    }
+
+    /**
+     * Schedules the next attempt, or marks the message failed once it is out of attempts.
+     */
+    private void retryLater(AdminOutboxMessage message, String error) {
+        message.setAttempts(message.getAttempts() + 1);
+        message.setLastError(truncate(error));
+        if (message.getAttempts() >= MAX_ATTEMPTS) {
+            message.setStatus(AdminOutboxMessage.Status.FAILED);
+            return;
+        }
+        Duration backoff = INITIAL_BACKOFF.multipliedBy(1L << Math.min(message.getAttempts() - 1, 20));
+        message.setNextAttemptAt(LocalDateTime.now().plus(backoff.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff));
+    }
+
+    private void giveUp(AdminOutboxMessage message, String reason) {
+        message.setStatus(AdminOutboxMessage.Status.FAILED);
+        message.setLastError(reason);
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() > 500 ? error.substring(0, 500) : error;
+    }
+
+    private record Delivery(Order order, List<OrderItem> orderItems, List<AdminOutboxMessage> messages) {
+    }
+}
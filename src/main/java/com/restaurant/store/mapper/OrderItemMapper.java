@@ -1,6 +1,7 @@
 package com.restaurant.store.mapper;
 
 import com.restaurant.store.dto.response.OrderItemResponse;
+import com.restaurant.store.dto.response.ProductResponse;
 import com.restaurant.store.entity.OrderItem;
 import org.springframework.stereotype.Component;
 
@@ -23,4 +24,25 @@ public class OrderItemMapper {
                 .specialInstructions(orderItem.getSpecialInstructions())
                 .build();
     }
+
+    /**
+     * For an item whose product is only a reference: the name and image are taken from
+     * {@code product} rather than loading the product row.
+     */
+    public OrderItemResponse toResponse(OrderItem orderItem, ProductResponse product) {
+        if (orderItem == null) {
+            return null;
+        }
+
+        return OrderItemResponse.builder()
+                .id(orderItem.getId())
+                .productId(product.getId())
+                .productName(product.getName())
+                .productImageUrl(product.getImageUrl())
+                .quantity(orderItem.getQuantity())
+                .unitPrice(orderItem.getPrice())
+                .totalPrice(orderItem.getPrice() != null ? orderItem.getPrice().multiply(java.math.BigDecimal.valueOf(orderItem.getQuantity())) : null)
+                .specialInstructions(orderItem.getSpecialInstructions())
+                .build();
+    }
 }
@@ -68,8 +68,9 @@ public class OrderMapper {
     private void applyLatestPayment(OrderResponse.OrderResponseBuilder builder,
                                     Order order,
                                     List<Payment> suppliedPayments) {
+        // An empty list means the caller already looked the payments up and found none
         List<Payment> payments = suppliedPayments;
-        if ((payments == null || payments.isEmpty()) && order != null) {
+        if (payments == null && order != null) {
             payments = order.getPayments();
         }
 
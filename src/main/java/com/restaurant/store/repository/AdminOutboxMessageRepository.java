@@ -0,0 +1,72 @@
+package com.restaurant.store.repository;
+
+import com.restaurant.store.entity.AdminOutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AdminOutboxMessageRepository extends JpaRepository<AdminOutboxMessage, Long> {
+
+    /**
+     * Orders whose oldest pending message is due, oldest first. Messages queued behind one
+     * that is backing off are not due before it, so such orders are left out rather than
+     * taking up the batch.
+     */
+    @Query("SELECT m.orderId FROM AdminOutboxMessage m WHERE m.status = :status AND m.nextAttemptAt <= :now " +
+           "AND m.id = (SELECT MIN(p.id) FROM AdminOutboxMessage p WHERE p.orderId = m.orderId AND p.status = :status) " +
+           "ORDER BY m.id ASC")
+    List<Long> findDueOrderIds(@Param("status") AdminOutboxMessage.Status status,
+                               @Param("now") LocalDateTime now,
+                               Pageable pageable);
+
+    List<AdminOutboxMessage> findByOrderIdAndStatusAndClaimedByOrderByIdAsc(
+            Long orderId, AdminOutboxMessage.Status status, String claimedBy);
+
+    boolean existsByOrderIdAndStatusAndClaimedByNotAndClaimedUntilGreaterThanEqual(
+            Long orderId, AdminOutboxMessage.Status status, String claimedBy, LocalDateTime now);
+
+    /**
+     * Leases the pending messages of an order that no other instance holds a live lease on.
+     * The condition is on the row itself, so concurrent claims of the same row serialize on
+     * its row lock and only one of them matches.
+     */
+    @Modifying
+    @Query("UPDATE AdminOutboxMessage m SET m.claimedBy = :owner, m.claimedUntil = :until " +
+           "WHERE m.orderId = :orderId AND m.status = :status " +
+           "AND (m.claimedUntil IS NULL OR m.claimedUntil < :now OR m.claimedBy = :owner)")
+    int claim(@Param("orderId") Long orderId,
+              @Param("status") AdminOutboxMessage.Status status,
+              @Param("owner") String owner,
+              @Param("now") LocalDateTime now,
+              @Param("until") LocalDateTime until);
+
+    @Modifying
+    @Query("UPDATE AdminOutboxMessage m SET m.claimedBy = NULL, m.claimedUntil = NULL " +
+           "WHERE m.orderId = :orderId AND m.claimedBy = :owner")
+    int release(@Param("orderId") Long orderId, @Param("owner") String owner);
+
+    @Modifying
+    @Query("DELETE FROM AdminOutboxMessage m WHERE m.orderId IN :orderIds AND m.status <> :pending")
+    int deleteFinishedByOrderIdIn(@Param("orderIds") Collection<Long> orderIds,
+                                  @Param("pending") AdminOutboxMessage.Status pending);
+
+    /**
+     * Deletes messages that were sent, or given up on, before {@code cutoff}. A message given
+     * up on counts from its last scheduled attempt.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM AdminOutboxMessage m WHERE m.status <> :pending " +
+           "AND COALESCE(m.sentAt, m.nextAttemptAt) < :cutoff")
+    int deleteFinishedBefore(@Param("pending") AdminOutboxMessage.Status pending,
+                             @Param("cutoff") LocalDateTime cutoff);
+}
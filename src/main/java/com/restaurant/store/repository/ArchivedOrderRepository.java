@@ -0,0 +1,33 @@
+package com.restaurant.store.repository;
+
+import com.restaurant.store.dto.response.OrderSummaryResponse;
+import com.restaurant.store.entity.ArchivedOrder;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    Optional<ArchivedOrder> findByIdAndCustomerId(Long id, Long customerId);
+
+    @Query("SELECT a FROM ArchivedOrder a WHERE a.id = :id "
+            + "AND a.customerId = (SELECT c.id FROM Customer c WHERE c.email = :email)")
+    Optional<ArchivedOrder> findByIdAndCustomerEmail(Long id, String email);
+
+    List<ArchivedOrder> findByCustomerIdAndIdLessThanOrderByIdDesc(Long customerId, Long beforeId, Pageable pageable);
+
+    /**
+     * Archive counterpart of {@link OrderRepository#findHistoryPage}.
+     */
+    @Query("SELECT new com.restaurant.store.dto.response.OrderSummaryResponse("
+            + "a.id, a.status, a.totalPrice, a.orderType, a.createdAt, a.itemCount) "
+            + "FROM ArchivedOrder a "
+            + "WHERE a.customerId = :customerId AND a.id < :beforeId "
+            + "ORDER BY a.id DESC")
+    List<OrderSummaryResponse> findHistoryPage(Long customerId, Long beforeId, Pageable pageable);
+}
@@ -2,14 +2,39 @@ package com.restaurant.store.repository;
 
 import com.restaurant.store.entity.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CartItemRepository extends JpaRepository<CartItem, Long> {
+public interface CartItemRepository extends JpaRepository<CartItem, Long>, CartItemWriteRepository {
     List<CartItem> findByCartId(Long cartId);
     Optional<CartItem> findByCartIdAndProductId(Long cartId, Long productId);
     void deleteByCartId(Long cartId);
+
+    /**
+     * Product and quantity of every line in the customer's cart, read without loading the
+     * customer, the cart or the products.
+     */
+    @Query("SELECT ci.product.id AS productId, ci.quantity AS quantity FROM CartItem ci "
+            + "WHERE ci.cart.customer.id = :customerId ORDER BY ci.id")
+    List<CartLine> findLinesByCustomerId(Long customerId);
+
+    /**
+     * Empties the customer's cart with a single statement.
+     *
+     * @return number of lines removed
+     */
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id IN (SELECT c.id FROM Cart c WHERE c.customer.id = :customerId)")
+    int deleteByCustomerId(Long customerId);
+
+    interface CartLine {
+        Long getProductId();
+
+        Integer getQuantity();
+    }
 }
@@ -0,0 +1,51 @@
+package com.restaurant.store.repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cart line writes that stay correct when two requests change the same cart at once,
+ * without taking row locks: adds are a single upsert-increment, and quantity changes only
+ * apply to the version of the row they were based on.
+ */
+public interface CartItemWriteRepository {
+
+    /**
+     * Inserts a line for the product, or adds {@code quantity} to the existing one, in one
+     * statement (so concurrent adds neither duplicate the line nor lose an increment).
+     *
+     * @return the line as it is after the statement
+     */
+    LineVersion upsertIncrement(Long cartId, Long productId, int quantity, BigDecimal price);
+
+    /**
+     * Sets each line's quantity, as one JDBC batch, where the line is still at the given
+     * version, and bumps the version.
+     *
+     * @return ids of the lines that were not written because their version had moved on
+     *         (or they were deleted)
+     */
+    Set<Long> updateQuantitiesIfVersion(List<QuantityWrite> writes);
+
+    /**
+     * Deletes each line, as one JDBC batch, where it is still at the given version.
+     *
+     * @return ids of the lines that were not deleted because their version had moved on
+     *         (or they were already gone)
+     */
+    Set<Long> deleteIfVersion(List<LineVersion> lines);
+
+    /**
+     * Current quantity and version of the lines that still exist, by id.
+     */
+    Map<Long, LineVersion> findVersionsByIdIn(Collection<Long> ids);
+
+    record QuantityWrite(Long id, int quantity, long version) {
+    }
+
+    record LineVersion(Long id, int quantity, long version) {
+    }
+}
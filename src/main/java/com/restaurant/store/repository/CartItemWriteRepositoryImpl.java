@@ -0,0 +1,136 @@
+package com.restaurant.store.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RequiredArgsConstructor
+class CartItemWriteRepositoryImpl implements CartItemWriteRepository {
+
+    /** PostgreSQL and SQLite (3.24+). */
+    private static final String UPSERT_ON_CONFLICT = """
+            INSERT INTO cart_items (cart_id, product_id, quantity, price, version)
+            VALUES (?, ?, ?, ?, 0)
+            ON CONFLICT (cart_id, product_id)
+            DO UPDATE SET quantity = cart_items.quantity + excluded.quantity, version = cart_items.version + 1""";
+
+    /**
+     * H2, which has no ON CONFLICT; when two of these race to insert the same line the unique
+     * key rejects one of them, which is then retried and matches the row the other inserted.
+     */
+    private static final String UPSERT_MERGE = """
+            MERGE INTO cart_items t
+            USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT), CAST(? AS INTEGER), CAST(? AS NUMERIC(38, 2))))
+                AS s (cart_id, product_id, quantity, price)
+            ON t.cart_id = s.cart_id AND t.product_id = s.product_id
+            WHEN MATCHED THEN UPDATE SET quantity = t.quantity + s.quantity, version = t.version + 1
+            WHEN NOT MATCHED THEN INSERT (cart_id, product_id, quantity, price, version)
+                VALUES (s.cart_id, s.product_id, s.quantity, s.price, 0)""";
+
+    static final int UPSERT_ATTEMPTS = 3;
+
+    private static final String UPDATE_IF_VERSION =
+            "UPDATE cart_items SET quantity = ?, version = version + 1 WHERE id = ? AND version = ?";
+
+    private static final String DELETE_IF_VERSION = "DELETE FROM cart_items WHERE id = ? AND version = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile String upsertSql;
+
+    @Override
+    public LineVersion upsertIncrement(Long cartId, Long productId, int quantity, BigDecimal price) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                jdbcTemplate.update(upsertSql(), cartId, productId, quantity, price);
+                break;
+            } catch (DuplicateKeyException e) {
+                if (attempt >= UPSERT_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+        return jdbcTemplate.queryForObject(
+                "SELECT id, quantity, version FROM cart_items WHERE cart_id = ? AND product_id = ?",
+                (rs, rowNum) -> new LineVersion(rs.getLong(1), rs.getInt(2), rs.getLong(3)),
+                cartId, productId);
+    }
+
+    @Override
+    public Set<Long> updateQuantitiesIfVersion(List<QuantityWrite> writes) {
+        if (writes.isEmpty()) {
+            return Set.of();
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(UPDATE_IF_VERSION, writes, writes.size(), (ps, write) -> {
+            ps.setInt(1, write.quantity());
+            ps.setLong(2, write.id());
+            ps.setLong(3, write.version());
+        });
+        return unchanged(counts, writes.stream().map(QuantityWrite::id).toList());
+    }
+
+    @Override
+    public Set<Long> deleteIfVersion(List<LineVersion> lines) {
+        if (lines.isEmpty()) {
+            return Set.of();
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(DELETE_IF_VERSION, lines, lines.size(), (ps, line) -> {
+            ps.setLong(1, line.id());
+            ps.setLong(2, line.version());
+        });
+        return unchanged(counts, lines.stream().map(LineVersion::id).toList());
+    }
+
+    @Override
+    public Map<Long, LineVersion> findVersionsByIdIn(Collection<Long> ids) {
+        Map<Long, LineVersion> lines = new HashMap<>();
+        if (ids.isEmpty()) {
+            return lines;
+        }
+        new NamedParameterJdbcTemplate(jdbcTemplate).query(
+                "SELECT id, quantity, version FROM cart_items WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", ids),
+                rs -> {
+                    LineVersion line = new LineVersion(rs.getLong(1), rs.getInt(2), rs.getLong(3));
+                    lines.put(line.id(), line);
+                });
+        return lines;
+    }
+
+    private String upsertSql() {
+        String sql = upsertSql;
+        if (sql == null) {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            sql = "H2".equalsIgnoreCase(product) ? UPSERT_MERGE : UPSERT_ON_CONFLICT;
+            upsertSql = sql;
+        }
+        return sql;
+    }
+
+    /**
+     * Ids of the batched statements that matched no row.
+     */
+    private static Set<Long> unchanged(int[][] counts, List<Long> ids) {
+        Set<Long> unchanged = new HashSet<>();
+        int[] rowCounts = counts.length > 0 ? counts[0] : new int[0];
+        for (int i = 0; i < ids.size(); i++) {
+            // SUCCESS_NO_INFO (-2) means the driver applied the statement without a count
+            if (i < rowCounts.length && rowCounts[i] == 0) {
+                unchanged.add(ids.get(i));
+            }
+        }
+        return unchanged;
+    }
+}
@@ -0,0 +1,22 @@
+package com.restaurant.store.repository;
+
+import com.restaurant.store.entity.CatalogTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface CatalogTombstoneRepository extends JpaRepository<CatalogTombstone, Long> {
+
+    List<CatalogTombstone> findByDeletedAtAfter(LocalDateTime deletedAt);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CatalogTombstone t WHERE t.deletedAt < :cutoff")
+    int deleteDeletedBefore(LocalDateTime cutoff);
+}
@@ -3,8 +3,11 @@ package com.restaurant.store.repository;
 import com.restaurant.store.entity.Delivery;
 import com.restaurant.store.entity.DeliveryStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,8 +15,20 @@ import java.util.Optional;
 public interface DeliveryRepository extends JpaRepository<Delivery, Long> {
     
     Optional<Delivery> findByOrderId(Long orderId);
+
+    List<Delivery> findByOrderIdIn(Collection<Long> orderIds);
+
+    /**
+     * The order's delivery if the order belongs to the customer with {@code email}, in one query.
+     */
+    @Query("SELECT d FROM Delivery d JOIN FETCH d.order o WHERE o.id = :orderId AND o.customer.email = :email")
+    Optional<Delivery> findByOrderIdAndCustomerEmail(Long orderId, String email);
     
     List<Delivery> findByStatus(DeliveryStatus status);
     
     List<Delivery> findByDriverName(String driverName);
-}
\ No newline at end of file
+
+    @Modifying
+    @Query("DELETE FROM Delivery d WHERE d.order.id IN :orderIds")
+    int deleteByOrderIdIn(Collection<Long> orderIds);
+}
@@ -0,0 +1,65 @@
+package com.restaurant.store.repository;
+
+import com.restaurant.store.entity.OrderIntakeTicket;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OrderIntakeTicketRepository extends JpaRepository<OrderIntakeTicket, Long> {
+
+    long countByStatus(OrderIntakeTicket.Status status);
+
+    /**
+     * Number of tickets with {@code status} ahead of {@code id}.
+     */
+    long countByStatusAndIdLessThan(OrderIntakeTicket.Status status, Long id);
+
+    /**
+     * Ids of tickets with {@code status} that are not waiting for a retry, oldest first.
+     */
+    @Query("SELECT t.id FROM OrderIntakeTicket t WHERE t.status = :status "
+            + "AND (t.nextAttemptAt IS NULL OR t.nextAttemptAt <= :now) ORDER BY t.id ASC")
+    List<Long> findDueIds(OrderIntakeTicket.Status status, LocalDateTime now, Pageable pageable);
+
+    Optional<OrderIntakeTicket> findByIdAndCustomerId(Long id, Long customerId);
+
+    /**
+     * Reads the ticket and locks its row until the transaction ends, so two workers never
+     * process the same ticket.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM OrderIntakeTicket t WHERE t.id = :id")
+    Optional<OrderIntakeTicket> findForUpdate(Long id);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE OrderIntakeTicket t SET t.status = :status, t.orderId = :orderId, t.error = :error, "
+            + "t.processedAt = :processedAt WHERE t.id = :id AND t.status = :from")
+    int updateStatusIf(Long id, OrderIntakeTicket.Status from, OrderIntakeTicket.Status status,
+                       Long orderId, String error, LocalDateTime processedAt);
+
+    /**
+     * Deletes tickets that left the queue before {@code cutoff}.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM OrderIntakeTicket t WHERE t.status <> :queued AND t.processedAt < :cutoff")
+    int deleteProcessedBefore(OrderIntakeTicket.Status queued, LocalDateTime cutoff);
+
+    /**
+     * Records the outcome of a ticket that is still queued; returns 0 if it was already
+     * processed.
+     */
+    default int finishQueued(Long id, OrderIntakeTicket.Status status, Long orderId, String error, LocalDateTime processedAt) {
+        return updateStatusIf(id, OrderIntakeTicket.Status.QUEUED, status, orderId, error, processedAt);
+    }
+}
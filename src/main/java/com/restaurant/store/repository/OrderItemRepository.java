@@ -2,14 +2,24 @@ package com.restaurant.store.repository;
 
 import com.restaurant.store.entity.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     
     List<OrderItem> findByOrderId(Long orderId);
+
+    @Query("SELECT oi FROM OrderItem oi JOIN FETCH oi.product WHERE oi.order.id IN :orderIds ORDER BY oi.id")
+    List<OrderItem> findWithProductByOrderIdIn(Collection<Long> orderIds);
     
     List<OrderItem> findByProductId(Long productId);
-}
\ No newline at end of file
+
+    @Modifying
+    @Query("DELETE FROM OrderItem oi WHERE oi.order.id IN :orderIds")
+    int deleteByOrderIdIn(Collection<Long> orderIds);
+}
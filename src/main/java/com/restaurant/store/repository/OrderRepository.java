@@ -1,22 +1,28 @@
 package com.restaurant.store.repository;
 
+import com.restaurant.store.dto.response.OrderSummaryResponse;
+import com.restaurant.store.entity.AdminOutboxMessage;
 import com.restaurant.store.entity.Order;
 import com.restaurant.store.entity.OrderStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderSearchRepository, OrderStatusWriteRepository {
     
     List<Order> findByCustomerId(Long customerId);
     
     List<Order> findByCustomerIdOrderByCreatedAtDesc(Long customerId);
-    
-    List<Order> findByStatus(OrderStatus status);
+
+    List<Order> findByCustomerIdAndIdLessThanOrderByIdDesc(Long customerId, Long beforeId, Pageable pageable);
     
     @Query("SELECT o FROM Order o WHERE o.customer.id = :customerId AND o.status = :status")
     List<Order> findByCustomerIdAndStatus(Long customerId, OrderStatus status);
@@ -25,4 +31,78 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     Long countByCustomerId(Long customerId);
 
     Optional<Order> findByExternalId(Long externalId);
-}
\ No newline at end of file
+
+    boolean existsByIdAndCustomerId(Long id, Long customerId);
+
+    boolean existsByIdAndCustomerEmail(Long id, String email);
+
+    /**
+     * The order if it belongs to the customer with {@code email}, with the customer fetched,
+     * in one query. Empty both when the order does not exist and when it is someone else's.
+     */
+    @Query("SELECT o FROM Order o JOIN FETCH o.customer c WHERE o.id = :orderId AND c.email = :email")
+    Optional<Order> findByIdAndCustomerEmail(Long orderId, String email);
+
+    @Query("SELECT o FROM Order o JOIN FETCH o.customer c WHERE o.id = :orderId AND c.id = :customerId")
+    Optional<Order> findByIdAndCustomerIdWithCustomer(Long orderId, Long customerId);
+
+    @Query("SELECT o.status FROM Order o WHERE o.id = :orderId AND o.customer.email = :email")
+    Optional<OrderStatus> findStatusByIdAndCustomerEmail(Long orderId, String email);
+
+    /**
+     * One page of the customer's order history, newest first, starting below
+     * {@code beforeId}. Summaries are projected in the query, with the item count summed
+     * over the order lines, so no order entity or association is loaded. Only the first page
+     * of {@code pageable} is meaningful; the position comes from {@code beforeId}.
+     */
+    @Query("SELECT new com.restaurant.store.dto.response.OrderSummaryResponse("
+            + "o.id, o.status, o.totalPrice, o.orderType, o.createdAt, COALESCE(SUM(oi.quantity), 0L)) "
+            + "FROM Order o LEFT JOIN OrderItem oi ON oi.order = o "
+            + "WHERE o.customer.id = :customerId AND o.id < :beforeId "
+            + "GROUP BY o.id, o.status, o.totalPrice, o.orderType, o.createdAt "
+            + "ORDER BY o.id DESC")
+    List<OrderSummaryResponse> findHistoryPage(Long customerId, Long beforeId, Pageable pageable);
+
+    @Query("SELECT o.status FROM Order o WHERE o.id = :orderId")
+    Optional<OrderStatus> findStatusById(Long orderId);
+
+    /**
+     * Moves the order to {@code target} if {@link OrderStatus} allows it from the current
+     * status. Returns whether the transition happened; the order is not loaded.
+     */
+    default boolean transitionStatus(Long orderId, OrderStatus target) {
+        return updateStatusIfIn(orderId, target.previousStatuses(), target, LocalDateTime.now()) == 1;
+    }
+
+    /**
+     * Clears the order's {@code cartRestorable} flag; returns 1 only for the one caller that
+     * found it set, so its lines go back to the cart at most once.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Order o SET o.cartRestorable = false WHERE o.id = :orderId AND o.cartRestorable = true")
+    int claimCartRestore(Long orderId);
+
+    @Query("SELECT o.id AS id, o.status AS status FROM Order o WHERE o.id IN :orderIds")
+    List<StatusView> findStatusesByIdIn(Collection<Long> orderIds);
+
+    /**
+     * Oldest orders in {@code statuses} created before {@code cutoff}, skipping orders that
+     * still have Admin outbox messages waiting to be sent.
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.status IN :statuses AND o.createdAt < :cutoff "
+            + "AND NOT EXISTS (SELECT m.id FROM AdminOutboxMessage m WHERE m.orderId = o.id AND m.status = :pendingStatus) "
+            + "ORDER BY o.id ASC")
+    List<Long> findArchivableIds(Collection<OrderStatus> statuses,
+                                 LocalDateTime cutoff,
+                                 AdminOutboxMessage.Status pendingStatus,
+                                 Pageable pageable);
+
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Order o WHERE o.id IN :ids")
+    int deleteByIdIn(Collection<Long> ids);
+
+    interface StatusView {
+        Long getId();
+        OrderStatus getStatus();
+    }
+}
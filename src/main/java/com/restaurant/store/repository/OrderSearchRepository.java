@@ -0,0 +1,24 @@
+package com.restaurant.store.repository;
+
+import com.restaurant.store.dto.request.OrderSearchRequest;
+import com.restaurant.store.dto.response.OrderSearchItemResponse;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Order search with optional filters, kept out of {@link OrderRepository}'s derived queries
+ * so only the filters that are set end up in the SQL.
+ */
+public interface OrderSearchRepository {
+
+    /**
+     * Up to {@code limit} orders matching {@code filter}, newest first by
+     * {@code (created_at, id)}, starting after the keyset position
+     * {@code (beforeCreatedAt, beforeId)} when one is given.
+     */
+    List<OrderSearchItemResponse> search(OrderSearchRequest filter,
+                                         LocalDateTime beforeCreatedAt,
+                                         Long beforeId,
+                                         int limit);
+}
@@ -0,0 +1,76 @@
+package com.restaurant.store.repository;
+
+import com.restaurant.store.dto.request.OrderSearchRequest;
+import com.restaurant.store.dto.response.OrderSearchItemResponse;
+import com.restaurant.store.entity.Order;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+class OrderSearchRepositoryImpl implements OrderSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<OrderSearchItemResponse> search(OrderSearchRequest filter,
+                                                LocalDateTime beforeCreatedAt,
+                                                Long beforeId,
+                                                int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderSearchItemResponse> query = cb.createQuery(OrderSearchItemResponse.class);
+        Root<Order> order = query.from(Order.class);
+        Path<LocalDateTime> createdAt = order.get("createdAt");
+        Path<Long> id = order.get("id");
+        // Compares the foreign key column, without joining customers
+        Path<Long> customerId = order.get("customer").get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.getStatus() != null && !filter.getStatus().isEmpty()) {
+            predicates.add(order.get("status").in(filter.getStatus()));
+        }
+        if (filter.getOrderType() != null) {
+            predicates.add(cb.equal(order.get("orderType"), filter.getOrderType()));
+        }
+        if (filter.getCustomerId() != null) {
+            predicates.add(cb.equal(customerId, filter.getCustomerId()));
+        }
+        if (filter.getExternalId() != null) {
+            predicates.add(cb.equal(order.get("externalId"), filter.getExternalId()));
+        }
+        if (filter.getCreatedFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(createdAt, filter.getCreatedFrom()));
+        }
+        if (filter.getCreatedTo() != null) {
+            predicates.add(cb.lessThan(createdAt, filter.getCreatedTo()));
+        }
+        if (beforeCreatedAt != null && beforeId != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(createdAt, beforeCreatedAt),
+                    cb.and(cb.equal(createdAt, beforeCreatedAt), cb.lessThan(id, beforeId))));
+        }
+
+        query.select(cb.construct(OrderSearchItemResponse.class,
+                        id,
+                        order.get("externalId"),
+                        customerId,
+                        order.get("status"),
+                        order.get("orderType"),
+                        order.get("totalPrice"),
+                        createdAt))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.desc(createdAt), cb.desc(id));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -0,0 +1,36 @@
+package com.restaurant.store.repository;
+
+import com.restaurant.store.entity.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Single-statement order writes that cannot overwrite a concurrent change. They bypass the
+ * entity lifecycle, so each one refreshes the orders it changed if the caller already has
+ * them loaded, and publishes the {@link com.restaurant.store.event.OrderChangedEvent} the
+ * entity listener would have; the rest of the persistence context is left alone.
+ */
+public interface OrderStatusWriteRepository {
+
+    /**
+     * Moves the order to {@code target} if it is still in one of {@code from}, in a single
+     * statement, so concurrent writers cannot overwrite each other's transitions. Pending
+     * changes are flushed first. Returns the number of rows changed (0 or 1).
+     */
+    int updateStatusIfIn(Long orderId, Collection<OrderStatus> from, OrderStatus target, LocalDateTime now);
+
+    /**
+     * Set-based form of {@link #updateStatusIfIn}: moves every order in {@code orderIds}
+     * that is still in one of {@code from} to {@code target} in a single statement, after
+     * locking those rows. Returns the ids of the orders it changed.
+     */
+    List<Long> updateStatusesIfIn(Collection<Long> orderIds, Collection<OrderStatus> from, OrderStatus target, LocalDateTime now);
+
+    /**
+     * Sets the estimated delivery time unless the order already has it. Returns the number
+     * of rows changed (0 or 1).
+     */
+    int updateEstimatedDeliveryTime(Long orderId, LocalDateTime estimatedDeliveryTime, LocalDateTime now);
+}
@@ -0,0 +1,96 @@
+package com.restaurant.store.repository;
+
+import com.restaurant.store.entity.Order;
+import com.restaurant.store.entity.OrderStatus;
+import com.restaurant.store.event.OrderChangedEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+class OrderStatusWriteRepositoryImpl implements OrderStatusWriteRepository {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public int updateStatusIfIn(Long orderId, Collection<OrderStatus> from, OrderStatus target, LocalDateTime now) {
+        entityManager.flush();
+        int updated = entityManager.createQuery(
+                        "UPDATE Order o SET o.status = :target, o.updatedAt = :now "
+                                + "WHERE o.id = :orderId AND o.status IN :from")
+                .setParameter("target", target)
+                .setParameter("now", now)
+                .setParameter("orderId", orderId)
+                .setParameter("from", from)
+                .executeUpdate();
+        if (updated == 1) {
+            changed(orderId);
+        }
+        return updated;
+    }
+
+    @Override
+    @Transactional
+    public List<Long> updateStatusesIfIn(Collection<Long> orderIds, Collection<OrderStatus> from, OrderStatus target, LocalDateTime now) {
+        entityManager.flush();
+        // Locked until the transaction ends, so exactly these rows are still in from when updated
+        List<Long> changedIds = entityManager.createQuery(
+                        "SELECT o.id FROM Order o WHERE o.id IN :orderIds AND o.status IN :from ORDER BY o.id", Long.class)
+                .setParameter("orderIds", orderIds)
+                .setParameter("from", from)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+        if (changedIds.isEmpty()) {
+            return changedIds;
+        }
+        entityManager.createQuery("UPDATE Order o SET o.status = :target, o.updatedAt = :now WHERE o.id IN :orderIds")
+                .setParameter("target", target)
+                .setParameter("now", now)
+                .setParameter("orderIds", changedIds)
+                .executeUpdate();
+        changedIds.forEach(this::changed);
+        return changedIds;
+    }
+
+    @Override
+    @Transactional
+    public int updateEstimatedDeliveryTime(Long orderId, LocalDateTime estimatedDeliveryTime, LocalDateTime now) {
+        entityManager.flush();
+        int updated = entityManager.createQuery(
+                        "UPDATE Order o SET o.estimatedDeliveryTime = :estimatedDeliveryTime, o.updatedAt = :now "
+                                + "WHERE o.id = :orderId "
+                                + "AND (o.estimatedDeliveryTime IS NULL OR o.estimatedDeliveryTime <> :estimatedDeliveryTime)")
+                .setParameter("estimatedDeliveryTime", estimatedDeliveryTime)
+                .setParameter("now", now)
+                .setParameter("orderId", orderId)
+                .executeUpdate();
+        if (updated == 1) {
+            changed(orderId);
+        }
+        return updated;
+    }
+
+    /**
+     * Refreshes the order if it is already loaded, without loading it otherwise, and
+     * announces the change.
+     */
+    private void changed(Long orderId) {
+        Order order = entityManager.getReference(Order.class, orderId);
+        if (Hibernate.isInitialized(order)) {
+            entityManager.refresh(order);
+        }
+        eventPublisher.publishEvent(new OrderChangedEvent(orderId));
+    }
+}
@@ -4,6 +4,8 @@ import com.restaurant.store.entity.Payment;
 import com.restaurant.store.entity.PaymentMethod;
 import com.restaurant.store.entity.PaymentStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.Collection;
@@ -14,6 +16,8 @@ import java.util.Optional;
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     
     List<Payment> findByOrderId(Long orderId);
+
+    List<Payment> findByOrderIdIn(Collection<Long> orderIds);
     
     Optional<Payment> findByTransactionId(String transactionId);
 
@@ -32,4 +36,8 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
             PaymentMethod method,
             PaymentStatus status
     );
+
+    @Modifying
+    @Query("DELETE FROM Payment p WHERE p.order.id IN :orderIds")
+    int deleteByOrderIdIn(Collection<Long> orderIds);
 }
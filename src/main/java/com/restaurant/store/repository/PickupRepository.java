@@ -2,11 +2,27 @@ package com.restaurant.store.repository;
 
 import com.restaurant.store.entity.Pickup;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface PickupRepository extends JpaRepository<Pickup, Long> {
     Optional<Pickup> findByOrderId(Long orderId);
+
+    List<Pickup> findByOrderIdIn(Collection<Long> orderIds);
+
+    /**
+     * The order's pickup if the order belongs to the customer with {@code email}, in one query.
+     */
+    @Query("SELECT p FROM Pickup p JOIN FETCH p.order o WHERE o.id = :orderId AND o.customer.email = :email")
+    Optional<Pickup> findByOrderIdAndCustomerEmail(Long orderId, String email);
+
+    @Modifying
+    @Query("DELETE FROM Pickup p WHERE p.order.id IN :orderIds")
+    int deleteByOrderIdIn(Collection<Long> orderIds);
 }
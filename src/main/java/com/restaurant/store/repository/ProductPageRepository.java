@@ -0,0 +1,20 @@
+package com.restaurant.store.repository;
+
+import com.restaurant.store.dto.response.ProductResponse;
+
+import java.util.List;
+
+/**
+ * Keyset pages of products with optional filters, kept out of {@link ProductRepository}'s
+ * JPQL so only the filters that are set end up in the SQL and the planner can pick the
+ * index that fits them.
+ */
+public interface ProductPageRepository {
+
+    /**
+     * Up to {@code limit} products after {@code afterId} in id order, projected straight into
+     * {@link ProductResponse} so the category is joined in the same query. Only products of
+     * {@code categoryId} when it is given, and only available ones when {@code availableOnly}.
+     */
+    List<ProductResponse> findPageAfter(Long afterId, Long categoryId, boolean availableOnly, int limit);
+}
@@ -0,0 +1,57 @@
+package com.restaurant.store.repository;
+
+import com.restaurant.store.dto.response.ProductResponse;
+import com.restaurant.store.entity.Category;
+import com.restaurant.store.entity.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class ProductPageRepositoryImpl implements ProductPageRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ProductResponse> findPageAfter(Long afterId, Long categoryId, boolean availableOnly, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductResponse> query = cb.createQuery(ProductResponse.class);
+        Root<Product> product = query.from(Product.class);
+        Join<Product, Category> category = product.join("category");
+        Path<Long> id = product.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.greaterThan(id, afterId));
+        if (categoryId != null) {
+            // Matches idx_products_category_id_id, so the page is a range scan of that index
+            predicates.add(cb.equal(product.get("category").get("id"), categoryId));
+        }
+        if (availableOnly) {
+            predicates.add(cb.isTrue(product.get("isAvailable")));
+        }
+
+        query.select(cb.construct(ProductResponse.class,
+                        id,
+                        product.get("name"),
+                        product.get("description"),
+                        product.get("price"),
+                        product.get("imageUrl"),
+                        product.get("isAvailable"),
+                        category.get("id"),
+                        category.get("name")))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.asc(id));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
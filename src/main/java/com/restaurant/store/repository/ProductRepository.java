@@ -9,7 +9,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductPageRepository {
     
     List<Product> findByCategoryId(Long categoryId);
     
@@ -18,4 +18,7 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByIsAvailableTrueAndCategoryId(Long categoryId);
     
     Optional<Product> findByExternalId(Long externalId);
-}
\ No newline at end of file
+
+    @Query("SELECT p FROM Product p JOIN FETCH p.category ORDER BY p.id")
+    List<Product> findAllWithCategory();
+}
@@ -0,0 +1,77 @@
+package com.restaurant.store.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.store.dto.response.ErrorResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Authenticates calls from the Admin backend and other internal services to
+ * {@code /api/internal/**} and {@code /api/sync/**} by the shared key they send in the
+ * {@value #HEADER} header, which must match {@code internal.api.key}. A call without the
+ * right key is answered 401; with no key configured, every such call is.
+ */
+@Slf4j
+@Component
+public class InternalApiKeyFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Internal-Api-Key";
+    public static final String ROLE = "INTERNAL";
+
+    @Value("${internal.api.key:}")
+    private String apiKey;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.startsWith("/api/internal/") && !path.startsWith("/api/sync/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!hasValidKey(request.getHeader(HEADER))) {
+            log.warn("Rejected internal API call to {} without a valid {} header", request.getRequestURI(), HEADER);
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write(objectMapper.writeValueAsString(ErrorResponse.of(
+                    HttpStatus.UNAUTHORIZED.value(),
+                    HttpStatus.UNAUTHORIZED.getReasonPhrase(),
+                    "A valid " + HEADER + " header is required",
+                    request.getRequestURI())));
+            return;
+        }
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                "internal-api", null, List.of(new SimpleGrantedAuthority("ROLE_" + ROLE))));
+        filterChain.doFilter(request, response);
+    }
+
+    private boolean hasValidKey(String presented) {
+        if (apiKey == null || apiKey.isBlank() || presented == null) {
+            return false;
+        }
+        // Constant time, so the key cannot be guessed from response times
+        return MessageDigest.isEqual(apiKey.getBytes(StandardCharsets.UTF_8), presented.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -26,6 +26,9 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Autowired
+    private InternalApiKeyFilter internalApiKeyFilter;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
@@ -54,7 +57,7 @@ public class SecurityConfig {
                 // 2. Define Authorization Rules
                 .authorizeHttpRequests(auth -> auth
                         // ===== WEB/STATIC PATHS =====
-                        .requestMatchers("/", "/login", "/register", "/menu", "/products/**", "/product-details").permitAll()
+                        .requestMatchers("/", "/login", "/register", "/menu", "/menu/products-grid", "/products/**", "/product-details").permitAll()
                         .requestMatchers("/payment/success", "/payment/cancel").permitAll()
                         .requestMatchers("/css/**", "/js/**", "/images/**", "/*.html", "/static/**").permitAll()
                         
@@ -72,9 +75,9 @@ public class SecurityConfig {
                         .requestMatchers("/ws/**").permitAll()
                         
                         // ===== PRIVATE API ENDPOINTS (INTERNAL ONLY) =====
-                        // These endpoints should only be accessed by Admin Backend or internal services
-                        // In production, consider adding IP whitelisting or API key authentication
-                        .requestMatchers("/api/internal/**", "/api/sync/**").permitAll() // TODO: Secure with API key or IP whitelist
+                        // These endpoints should only be accessed by Admin Backend or internal services,
+                        // which authenticate with the shared key checked by InternalApiKeyFilter
+                        .requestMatchers("/api/internal/**", "/api/sync/**").hasRole(InternalApiKeyFilter.ROLE)
                         
                         // ===== AUTHENTICATED WEB PATHS =====
                         .requestMatchers("/orders", "/orders/**", "/cart", "/cart/**", "/profile", "/checkout").authenticated()
@@ -117,7 +120,8 @@ public class SecurityConfig {
 
                 // 5. JWT Filter Placement (Handles /api/* requests)
                 .authenticationProvider(authenticationProvider())
-                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class); // Still runs for all requests
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class) // Still runs for all requests
+                .addFilterBefore(internalApiKeyFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
@@ -0,0 +1,66 @@
+package com.restaurant.store.security;
+
+import com.restaurant.store.entity.Customer;
+import com.restaurant.store.repository.CustomerRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Authenticates STOMP connections that send a JWT in an {@code Authorization} header on
+ * CONNECT. The session's user is named by the customer id, so messages sent to
+ * {@code /user/queue/...} reach every tab of that customer. Connections without the header
+ * stay anonymous and can still subscribe to the public topics.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    private final JwtUtil jwtUtil;
+    private final CustomerRepository customerRepository;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) {
+            return message;
+        }
+
+        String authorizationHeader = accessor.getFirstNativeHeader("Authorization");
+        if (authorizationHeader == null || !authorizationHeader.startsWith("Bearer ")) {
+            return message;
+        }
+
+        Long customerId = customerIdFrom(authorizationHeader.substring(7));
+        accessor.setUser(new UsernamePasswordAuthenticationToken(String.valueOf(customerId), null, List.of()));
+        return message;
+    }
+
+    private Long customerIdFrom(String jwt) {
+        try {
+            Long customerId = jwtUtil.extractCustomerId(jwt);
+            if (customerId != null) {
+                return customerId;
+            }
+            return customerRepository.findByEmail(jwtUtil.extractUsername(jwt))
+                    .map(Customer::getId)
+                    .orElseThrow(() -> new BadCredentialsException("Customer not found"));
+        } catch (BadCredentialsException e) {
+            throw e;
+        } catch (Exception e) {
+            log.debug("Rejected STOMP connection with an invalid JWT: {}", e.getMessage());
+            throw new BadCredentialsException("Invalid JWT token");
+        }
+    }
+}
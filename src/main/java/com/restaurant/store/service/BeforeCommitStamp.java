@@ -0,0 +1,72 @@
+package com.restaurant.store.service;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Row ids collected over one transaction and stamped together, with one call of
+ * {@code stamp}, right before the transaction commits.
+ * <p>
+ * Ids are usually collected by entity callbacks while changes are flushed, and the commit
+ * itself may flush changes that were not flushed before, after Spring's before-commit
+ * callbacks have run. The stamp is therefore registered with the Hibernate session, which
+ * runs it after that final flush, still inside the transaction. Without a transaction the
+ * ids are stamped at once.
+ */
+final class BeforeCommitStamp {
+
+    private final Object resourceKey = new Object();
+    private final Consumer<Set<Long>> stamp;
+
+    BeforeCommitStamp(Consumer<Set<Long>> stamp) {
+        this.stamp = stamp;
+    }
+
+    @SuppressWarnings("unchecked")
+    void add(EntityManager entityManager, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive() || !entityManager.isJoinedToTransaction()) {
+            stamp.accept(new LinkedHashSet<>(ids));
+            return;
+        }
+
+        Set<Long> pending = (Set<Long>) TransactionSynchronizationManager.getResource(resourceKey);
+        if (pending == null) {
+            Set<Long> bound = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(resourceKey, bound);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(resourceKey);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(resourceKey, bound);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(resourceKey);
+                }
+            });
+            entityManager.unwrap(SessionImplementor.class).getActionQueue().registerProcess(session -> {
+                if (!bound.isEmpty()) {
+                    stamp.accept(new LinkedHashSet<>(bound));
+                    bound.clear();
+                }
+            });
+            pending = bound;
+        }
+        pending.addAll(ids);
+    }
+}
@@ -0,0 +1,91 @@
+package com.restaurant.store.service;
+
+import com.restaurant.store.dto.response.ProductResponse;
+import com.restaurant.store.entity.Order;
+import com.restaurant.store.entity.OrderItem;
+import com.restaurant.store.repository.OrderItemRepository;
+import com.restaurant.store.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gives an order placed from the cart back to the cart when it is given up before being
+ * paid. Placing the order empties the cart in the same transaction, so the cart cannot be
+ * ordered twice; a cancelled order or an expired checkout would otherwise lose it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CartCheckoutService {
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final CartStore cartStore;
+    private final MenuCatalogService menuCatalogService;
+
+    /**
+     * Makes the order final for its cart: once payment is confirmed its lines never go
+     * back, whatever happens to the order later.
+     */
+    @Transactional
+    public void paymentConfirmed(Order order) {
+        if (order != null && orderRepository.claimCartRestore(order.getId()) == 1) {
+            // Matches the row, so a later flush of this instance does not set it again
+            order.setCartRestorable(false);
+        }
+    }
+
+    /**
+     * Puts the order's lines back into the customer's cart, if the order came from the cart,
+     * is not paid and this has not been done for it yet. Products no longer on the menu or
+     * unavailable are left out. The cart is changed only once the transaction commits.
+     */
+    @Transactional
+    public void restoreCart(Order order) {
+        if (order == null || orderRepository.claimCartRestore(order.getId()) != 1) {
+            return;
+        }
+        order.setCartRestorable(false);
+
+        MenuSnapshot menu = menuCatalogService.snapshot();
+        ProductHotTable hotTable = menu.getHotTable();
+        List<CartStore.Change> lines = new ArrayList<>();
+        for (OrderItem item : orderItemRepository.findByOrderId(order.getId())) {
+            Long productId = item.getProduct() != null ? item.getProduct().getId() : null;
+            if (productId == null || !hotTable.contains(productId) || !hotTable.isAvailable(productId)) {
+                continue;
+            }
+            ProductResponse product = menu.findProduct(productId);
+            lines.add(new CartStore.Add(productId, item.getQuantity(), hotTable.priceMinor(productId),
+                    product != null ? product.getName() : null,
+                    product != null ? product.getImageUrl() : null));
+        }
+        if (lines.isEmpty()) {
+            return;
+        }
+
+        Long customerId = order.getCustomer().getId();
+        Long orderId = order.getId();
+        Runnable restore = () -> {
+            cartStore.apply(customerId, lines);
+            log.debug("Returned the lines of order {} to the cart", orderId);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    restore.run();
+                }
+            });
+        } else {
+            restore.run();
+        }
+    }
+}
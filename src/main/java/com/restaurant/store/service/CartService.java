@@ -1,24 +1,27 @@
 package com.restaurant.store.service;
 
+import com.restaurant.store.controller.api.CartWebSocketController;
 import com.restaurant.store.dto.request.AddToCartRequest;
+import com.restaurant.store.dto.request.CartBatchRequest;
 import com.restaurant.store.dto.request.UpdateCartItemRequest;
 import com.restaurant.store.dto.response.CartItemResponse;
 import com.restaurant.store.dto.response.CartResponse;
+import com.restaurant.store.dto.response.CartSummaryResponse;
+import com.restaurant.store.dto.response.ProductResponse;
 import com.restaurant.store.entity.*;
+import com.restaurant.store.event.CartChangedEvent;
 import com.restaurant.store.exception.BadRequestException;
 import com.restaurant.store.exception.ResourceNotFoundException;
-import com.restaurant.store.repository.CartItemRepository;
-import com.restaurant.store.repository.CartRepository;
 import com.restaurant.store.repository.CustomerRepository;
-import com.restaurant.store.repository.ProductRepository;
 import com.restaurant.store.security.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -27,223 +30,192 @@ import java.util.stream.Collectors;
 @Slf4j
 public class CartService {
     
-    private final CartRepository cartRepository;
-    private final CartItemRepository cartItemRepository;
-    private final ProductRepository productRepository;
+    private final CartStore cartStore;
     private final CustomerRepository customerRepository;
     private final JwtUtil jwtUtil;
-    
-    private static final BigDecimal DELIVERY_FEE = new BigDecimal("6000.00");
-    private static final BigDecimal VAT_RATE = new BigDecimal("0.10");
+    private final MenuCatalogService menuCatalogService;
+    private final CartWebSocketController cartWebSocketController;
     
     @Transactional
     public CartResponse addToCart(AddToCartRequest request, String token) {
-        Customer customer = getCustomerFromToken(token);
-        Product product = productRepository.findById(request.getProductId())
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found"));
-        
-        if (!product.getIsAvailable()) {
-            throw new BadRequestException("Product is not available");
-        }
-        
-        Cart cart = cartRepository.findByCustomerId(customer.getId())
-                .orElseGet(() -> createNewCart(customer));
-        
-        CartItem existingItem = cartItemRepository.findByCartIdAndProductId(cart.getId(), product.getId())
-                .orElse(null);
-        
-        if (existingItem != null) {
-            existingItem.setQuantity(existingItem.getQuantity() + request.getQuantity());
-            cartItemRepository.save(existingItem);
-        } else {
-            CartItem cartItem = new CartItem();
-            cartItem.setCart(cart);
-            cartItem.setProduct(product);
-            cartItem.setQuantity(request.getQuantity());
-            cartItem.setPrice(product.getPrice());
-            cartItemRepository.save(cartItem);
+        Long customerId = getCustomerIdFromToken(token);
+        CartStore.Add add = toAdd(menuCatalogService.snapshot(), request.getProductId(), request.getQuantity());
+        return toCartResponse(cartStore.add(customerId, add.productId(), add.quantity(), add.priceMinor(),
+                add.productName(), add.productImageUrl()));
+    }
+    
+    /**
+     * Applies the operations in order in one transaction, so a client can sync a cart it
+     * built locally in one call. If any operation fails, none is applied.
+     */
+    @Transactional
+    public CartResponse applyBatch(CartBatchRequest request, String token) {
+        Long customerId = getCustomerIdFromToken(token);
+        MenuSnapshot menu = menuCatalogService.snapshot();
+        List<CartStore.Change> changes = new ArrayList<>(request.getOperations().size());
+        for (CartBatchRequest.Operation operation : request.getOperations()) {
+            changes.add(toChange(menu, operation));
         }
-        
-        return getCartResponse(cart.getId());
+        return toCartResponse(cartStore.apply(customerId, changes));
     }
     
     @Transactional
     public CartResponse updateCartItem(Long cartItemId, UpdateCartItemRequest request, String token) {
-        Customer customer = getCustomerFromToken(token);
-        CartItem cartItem = cartItemRepository.findById(cartItemId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart item not found"));
-        
-        if (!cartItem.getCart().getCustomer().getId().equals(customer.getId())) {
-            throw new BadRequestException("Cart item does not belong to current customer");
-        }
-        
-        cartItem.setQuantity(request.getQuantity());
-        cartItemRepository.save(cartItem);
-        
-        return getCartResponse(cartItem.getCart().getId());
+        return toCartResponse(cartStore.setQuantity(getCustomerIdFromToken(token), cartItemId, request.getQuantity()));
     }
     
     @Transactional
     public CartResponse removeFromCart(Long cartItemId, String token) {
-        Customer customer = getCustomerFromToken(token);
-        CartItem cartItem = cartItemRepository.findById(cartItemId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart item not found"));
-        
-        if (!cartItem.getCart().getCustomer().getId().equals(customer.getId())) {
-            throw new BadRequestException("Cart item does not belong to current customer");
-        }
-        
-        Long cartId = cartItem.getCart().getId();
-        cartItemRepository.delete(cartItem);
-        
-        return getCartResponse(cartId);
+        return toCartResponse(cartStore.remove(getCustomerIdFromToken(token), cartItemId));
     }
     
+    @Transactional
     public CartResponse getCart(String token) {
-        Customer customer = getCustomerFromToken(token);
-        Cart cart = cartRepository.findByCustomerId(customer.getId())
-                .orElseGet(() -> createNewCart(customer));
-        
-        return getCartResponse(cart.getId());
+        return toCartResponse(cartStore.get(getCustomerIdFromToken(token)));
+    }
+    
+    /**
+     * Item count and total for the header badge, from the totals the cart store keeps, so
+     * no lines or product names are assembled.
+     */
+    @Transactional
+    public CartSummaryResponse getCartSummary(String token) {
+        return toCartSummaryResponse(cartStore.totals(getCustomerIdFromToken(token)));
+    }
+    
+    /**
+     * Sends the new summary to the customer's other tabs once the change is committed.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCartChanged(CartChangedEvent event) {
+        CartTotals totals = CartTotals.of(event.getSubtotalMinor(), event.getItemCount());
+        cartWebSocketController.sendCartSummary(event.getCustomerId(), toCartSummaryResponse(totals));
     }
     
     /**
      * Get cart by customer ID (for internal use, e.g., web controllers).
      */
+    @Transactional
     public CartResponse getCartByCustomerId(Long customerId) {
-        Customer customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new ResourceNotFoundException("Customer not found"));
-        Cart cart = cartRepository.findByCustomerId(customer.getId())
-                .orElseGet(() -> createNewCart(customer));
-
-        return getCartResponse(cart.getId());
+        return toCartResponse(cartStore.get(customerId));
     }
 
     @Transactional
     public CartResponse incrementCartItemForCustomer(Long cartItemId, Long customerId) {
-        return updateCartItemQuantityForCustomer(cartItemId, customerId, 1);
+        return toCartResponse(cartStore.changeQuantity(customerId, cartItemId, 1));
     }
 
     @Transactional
     public CartResponse decrementCartItemForCustomer(Long cartItemId, Long customerId) {
-        return updateCartItemQuantityForCustomer(cartItemId, customerId, -1);
+        return toCartResponse(cartStore.changeQuantity(customerId, cartItemId, -1));
     }
 
     @Transactional
     public CartResponse removeCartItemForCustomer(Long cartItemId, Long customerId) {
-        CartItem cartItem = getCartItemForCustomer(cartItemId, customerId);
-        Long cartId = cartItem.getCart().getId();
-        cartItemRepository.delete(cartItem);
-        return getCartResponse(cartId);
-    }
-
-    private CartResponse updateCartItemQuantityForCustomer(Long cartItemId, Long customerId, int delta) {
-        CartItem cartItem = getCartItemForCustomer(cartItemId, customerId);
-
-        int newQuantity = cartItem.getQuantity() + delta;
-        if (newQuantity < 1) {
-            throw new BadRequestException("Quantity must be at least 1");
-        }
-
-        cartItem.setQuantity(newQuantity);
-        cartItemRepository.save(cartItem);
-
-        return getCartResponse(cartItem.getCart().getId());
-    }
-
-    private CartItem getCartItemForCustomer(Long cartItemId, Long customerId) {
-        Customer customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new ResourceNotFoundException("Customer not found"));
-
-        CartItem cartItem = cartItemRepository.findById(cartItemId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart item not found"));
-
-        if (!cartItem.getCart().getCustomer().getId().equals(customer.getId())) {
-            throw new BadRequestException("Cart item does not belong to current customer");
-        }
-
-        return cartItem;
+        return toCartResponse(cartStore.remove(customerId, cartItemId));
     }
     
     @Transactional
     public void clearCart(String token) {
-        Customer customer = getCustomerFromToken(token);
-        Cart cart = cartRepository.findByCustomerId(customer.getId())
-                .orElse(null);
-        
-        if (cart != null) {
-            cartItemRepository.deleteByCartId(cart.getId());
-        }
+        cartStore.clear(getCustomerIdFromToken(token));
     }
     
     @Transactional
     public void clearCartForCustomer(Long customerId) {
-        Cart cart = cartRepository.findByCustomerId(customerId)
-                .orElse(null);
+        cartStore.clear(customerId);
+    }
+    
+    private CartStore.Change toChange(MenuSnapshot menu, CartBatchRequest.Operation operation) {
+        if (operation.getType() == CartBatchRequest.Type.ADD) {
+            if (operation.getProductId() == null || operation.getQuantity() == null) {
+                throw new BadRequestException("ADD requires productId and quantity");
+            }
+            return toAdd(menu, operation.getProductId(), operation.getQuantity());
+        }
+        if (operation.getCartItemId() == null && operation.getProductId() == null) {
+            throw new BadRequestException(operation.getType() + " requires cartItemId or productId");
+        }
+        if (operation.getType() == CartBatchRequest.Type.SET_QUANTITY) {
+            if (operation.getQuantity() == null) {
+                throw new BadRequestException("SET_QUANTITY requires quantity");
+            }
+            return new CartStore.SetQuantity(operation.getCartItemId(), operation.getProductId(), operation.getQuantity());
+        }
+        return new CartStore.Remove(operation.getCartItemId(), operation.getProductId());
+    }
+    
+    private CartStore.Add toAdd(MenuSnapshot menu, Long productId, int quantity) {
+        ProductHotTable hotTable = menu.getHotTable();
+        if (!hotTable.contains(productId)) {
+            throw new ResourceNotFoundException("Product not found");
+        }
         
-        if (cart != null) {
-            cartItemRepository.deleteByCartId(cart.getId());
+        if (!hotTable.isAvailable(productId)) {
+            throw new BadRequestException("Product is not available");
         }
+        
+        ProductResponse product = menu.findProduct(productId);
+        return new CartStore.Add(productId, quantity, hotTable.priceMinor(productId),
+                product != null ? product.getName() : null,
+                product != null ? product.getImageUrl() : null);
     }
     
-    private Customer getCustomerFromToken(String token) {
-        String email = jwtUtil.extractUsername(token.substring(7));
+    /**
+     * The customer id carried in the token, so a cart click does not look the customer up;
+     * tokens issued without the claim fall back to a lookup by email.
+     */
+    private Long getCustomerIdFromToken(String token) {
+        String jwt = token.substring(7);
+        Long customerId = jwtUtil.extractCustomerId(jwt);
+        if (customerId != null) {
+            return customerId;
+        }
+        String email = jwtUtil.extractUsername(jwt);
         return customerRepository.findByEmail(email)
+                .map(Customer::getId)
                 .orElseThrow(() -> new ResourceNotFoundException("Customer not found"));
     }
     
-    private Cart createNewCart(Customer customer) {
-        Cart cart = new Cart();
-        cart.setCustomer(customer);
-        return cartRepository.save(cart);
-    }
-    
-    private CartResponse getCartResponse(Long cartId) {
-        Cart cart = cartRepository.findById(cartId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart not found"));
-        
-        List<CartItem> items = cartItemRepository.findByCartId(cartId);
-        
-        List<CartItemResponse> itemResponses = items.stream()
-                .map(this::toCartItemResponse)
+    private CartResponse toCartResponse(CartStore.Snapshot cart) {
+        MenuSnapshot menu = menuCatalogService.snapshot();
+        List<CartItemResponse> itemResponses = cart.lines().stream()
+                .map(line -> toCartItemResponse(line, menu))
                 .collect(Collectors.toList());
-        
-        BigDecimal subtotal = items.stream()
-                .map(item -> item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        subtotal = subtotal.setScale(2, RoundingMode.HALF_UP);
-
-        int itemCount = items.stream()
-                .mapToInt(CartItem::getQuantity)
-                .sum();
-
-        BigDecimal vat = subtotal.multiply(VAT_RATE).setScale(2, RoundingMode.HALF_UP);
-        BigDecimal deliveryFee = itemCount > 0 ? DELIVERY_FEE : BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP);
-        BigDecimal total = subtotal.add(vat).add(deliveryFee).setScale(2, RoundingMode.HALF_UP);
+        CartTotals totals = CartTotals.of(cart);
 
         return CartResponse.builder()
-                .id(cart.getId())
+                .id(cart.cartId())
                 .items(itemResponses)
-                .subtotal(subtotal)
-                .vat(vat)
-                .deliveryFee(deliveryFee)
-                .total(total)
-                .itemCount(itemCount)
+                .subtotal(totals.subtotal())
+                .vat(totals.vat())
+                .deliveryFee(totals.deliveryFee())
+                .total(totals.total())
+                .itemCount(totals.itemCount())
                 .build();
     }
     
-    private CartItemResponse toCartItemResponse(CartItem cartItem) {
-        Product product = cartItem.getProduct();
-        BigDecimal subtotal = cartItem.getPrice().multiply(BigDecimal.valueOf(cartItem.getQuantity()));
+    private CartSummaryResponse toCartSummaryResponse(CartTotals totals) {
+        return CartSummaryResponse.builder()
+                .itemCount(totals.itemCount())
+                .total(totals.total())
+                .build();
+    }
+    
+    /**
+     * Name and image follow the current catalog; the ones stored with the line are used for
+     * products that have left it.
+     */
+    private CartItemResponse toCartItemResponse(CartStore.LineSnapshot line, MenuSnapshot menu) {
+        ProductResponse product = menu.findProduct(line.productId());
         
         return CartItemResponse.builder()
-                .id(cartItem.getId())
-                .productId(product.getId())
-                .productName(product.getName())
-                .productImageUrl(product.getImageUrl())
-                .price(cartItem.getPrice())
-                .quantity(cartItem.getQuantity())
-                .subtotal(subtotal)
+                .id(line.cartItemId())
+                .productId(line.productId())
+                .productName(product != null ? product.getName() : line.productName())
+                .productImageUrl(product != null ? product.getImageUrl() : line.productImageUrl())
+                .price(line.price())
+                .quantity(line.quantity())
+                .subtotal(line.subtotal())
                 .build();
     }
 }
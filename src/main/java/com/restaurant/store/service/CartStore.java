@@ -0,0 +1,822 @@
+package com.restaurant.store.service;
+
+import com.restaurant.store.entity.Cart;
+import com.restaurant.store.entity.CartItem;
+import com.restaurant.store.entity.Product;
+import com.restaurant.store.event.CartChangedEvent;
+import com.restaurant.store.exception.BadRequestException;
+import com.restaurant.store.exception.ConflictException;
+import com.restaurant.store.exception.ResourceNotFoundException;
+import com.restaurant.store.repository.CartItemRepository;
+import com.restaurant.store.repository.CartRepository;
+import com.restaurant.store.repository.CartItemWriteRepository.LineVersion;
+import com.restaurant.store.repository.CartItemWriteRepository.QuantityWrite;
+import com.restaurant.store.repository.CustomerRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Customers' carts held in memory, so a cart click is applied and answered without reading
+ * the cart back from the database.
+ * <p>
+ * A cart is loaded on first use. New carts and new lines are inserted right away, as
+ * clients address lines by their id; quantity changes and removals are only recorded, and
+ * written later coalesced, so five taps on "+" become one {@code UPDATE}. With
+ * {@code cart.store.write-behind=false} (the default) they are written in the transaction of
+ * the request that made them, so nothing is lost if the instance dies. With write-behind
+ * enabled they are written in one batch every {@code cart.store.flush-interval-ms}, before a
+ * checkout reads the cart, and at shutdown; a crash loses at most one interval of edits.
+ * <p>
+ * Each cart keeps its subtotal and item count as running totals in minor units, adjusted by
+ * every change, so a click costs the same however many lines the cart has.
+ * <p>
+ * Changes for one customer are serialized on a lock of their own, so loading or writing one
+ * cart never holds up another customer's requests; the write-behind flush takes each lock
+ * only to drain and later settle that cart, and writes the batch outside all of them. Carts
+ * are held per instance, so a customer's cart requests are expected to reach the same
+ * instance; when they do not, the writes still hold up without row locks. A new line is an
+ * upsert-increment on {@code (cart_id, product_id)}, and quantity writes and deletes are
+ * compare-and-set on the line's version, re-applied as a difference over the other writer's
+ * change when they lose (so a line someone else added to meanwhile is kept with their part,
+ * including a product added again while its delete is being flushed). A cart touched by a
+ * transaction that rolls back is dropped and read again on next use.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CartStore {
+
+    static final int MAX_WRITE_ATTEMPTS = 3;
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final CustomerRepository customerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<Long, CartSlot> carts = new ConcurrentHashMap<>();
+    private final Set<Long> pendingCustomers = ConcurrentHashMap.newKeySet();
+
+    @Value("${cart.store.write-behind:false}")
+    private boolean writeBehind;
+
+    @Value("${cart.store.max-carts:10000}")
+    private int maxCarts;
+
+    @Value("${cart.store.idle-minutes:30}")
+    private long idleMinutes;
+
+    /**
+     * The customer's cart; an empty one is created if they have none.
+     */
+    public Snapshot get(Long customerId) {
+        return withCart(customerId, CartState::snapshot);
+    }
+
+    /**
+     * The totals of the customer's cart, without building its lines.
+     */
+    public CartTotals totals(Long customerId) {
+        return withCart(customerId, cart -> CartTotals.of(cart.subtotalMinor, cart.itemCount));
+    }
+
+    /**
+     * Adds {@code quantity} of the product, to the existing line for it if there is one.
+     */
+    public Snapshot add(Long customerId, Long productId, int quantity, long priceMinor,
+                        String productName, String productImageUrl) {
+        return mutate(customerId, cart ->
+                addLine(customerId, cart, new Add(productId, quantity, priceMinor, productName, productImageUrl)));
+    }
+
+    public Snapshot setQuantity(Long customerId, Long cartItemId, int quantity) {
+        return mutate(customerId, cart -> setLineQuantity(customerId, cart, ownedLine(cart, cartItemId), quantity));
+    }
+
+    /**
+     * Changes the line's quantity by {@code delta}, which may not take it below one.
+     */
+    public Snapshot changeQuantity(Long customerId, Long cartItemId, int delta) {
+        return mutate(customerId, cart -> {
+            Line line = ownedLine(cart, cartItemId);
+            int newQuantity = line.quantity + delta;
+            if (newQuantity < 1) {
+                throw new BadRequestException("Quantity must be at least 1");
+            }
+            cart.changeQuantity(line, newQuantity);
+            markPending(customerId, cart, line);
+        });
+    }
+
+    public Snapshot remove(Long customerId, Long cartItemId) {
+        return mutate(customerId, cart -> removeLine(customerId, cart, ownedLine(cart, cartItemId)));
+    }
+
+    /**
+     * Applies the changes in order, all or none: they are made on a copy of the cart that
+     * replaces it only once every change has succeeded, and its writes go out together.
+     */
+    public Snapshot apply(Long customerId, List<Change> changes) {
+        return mutate(customerId, cart -> {
+            CartState working = cart.copy();
+            for (Change change : changes) {
+                if (change instanceof Add add) {
+                    addLine(customerId, working, add);
+                } else if (change instanceof SetQuantity setQuantity) {
+                    setLineQuantity(customerId, working, changedLine(working, setQuantity.cartItemId(),
+                            setQuantity.productId()), setQuantity.quantity());
+                } else if (change instanceof Remove remove) {
+                    removeLine(customerId, working, changedLine(working, remove.cartItemId(), remove.productId()));
+                }
+            }
+            cart.adopt(working);
+        });
+    }
+
+    public void clear(Long customerId) {
+        mutate(customerId, cart -> {
+            List.copyOf(cart.lines.values()).forEach(line -> {
+                cart.removeLine(line);
+                cart.removed.put(line.itemId, line);
+            });
+            cart.updated.clear();
+            markPending(customerId, cart, null);
+        });
+    }
+
+    /**
+     * Writes the customer's pending changes now, e.g. before the cart rows are read for a
+     * checkout.
+     */
+    public void flush(Long customerId) {
+        CartSlot slot = carts.get(customerId);
+        if (slot == null) {
+            return;
+        }
+        synchronized (slot) {
+            if (slot.cart != null && slot.cart.hasPending()) {
+                writeAll(Map.of(customerId, slot.cart.drain()));
+            }
+        }
+    }
+
+    /**
+     * Forgets the customer's cart, now and again once the current transaction completes,
+     * after its rows were deleted directly by a checkout.
+     */
+    public void evict(Long customerId) {
+        forget(customerId);
+        eventPublisher.publishEvent(new CartChangedEvent(customerId, 0, 0L));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    forget(customerId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Writes every cart with pending changes in one transaction, and drops carts that have
+     * been idle for {@code cart.store.idle-minutes} or exceed {@code cart.store.max-carts}.
+     */
+    @Scheduled(fixedDelayString = "${cart.store.flush-interval-ms:500}",
+            initialDelayString = "${cart.store.flush-interval-ms:500}")
+    public void flushPending() {
+        if (!pendingCustomers.isEmpty()) {
+            Map<Long, Pending> batch = new HashMap<>();
+            for (Long customerId : List.copyOf(pendingCustomers)) {
+                CartSlot slot = carts.get(customerId);
+                if (slot == null) {
+                    pendingCustomers.remove(customerId);
+                    continue;
+                }
+                synchronized (slot) {
+                    pendingCustomers.remove(customerId);
+                    if (slot.cart != null && slot.cart.hasPending()) {
+                        batch.put(customerId, slot.cart.drain());
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                try {
+                    writeAll(batch);
+                } catch (RuntimeException e) {
+                    log.error("Failed to write {} carts, will retry", batch.size(), e);
+                }
+            }
+        }
+        evictIdle();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushPending();
+    }
+
+    /**
+     * Runs the action on the customer's cart under their lock, loading the cart first if it
+     * is not held yet.
+     */
+    private <T> T withCart(Long customerId, Function<CartState, T> action) {
+        while (true) {
+            CartSlot slot = carts.computeIfAbsent(customerId, id -> new CartSlot());
+            synchronized (slot) {
+                if (carts.get(customerId) != slot) {
+                    // Evicted while waiting for the lock
+                    continue;
+                }
+                if (slot.cart == null) {
+                    slot.cart = load(customerId);
+                }
+                forgetOnRollback(customerId);
+                slot.lastUsed = Instant.now();
+                return action.apply(slot.cart);
+            }
+        }
+    }
+
+    private CartState load(Long customerId) {
+        Cart cart = cartRepository.findByCustomerId(customerId).orElseGet(() -> {
+            Cart created = new Cart();
+            created.setCustomer(customerRepository.getReferenceById(customerId));
+            return cartRepository.save(created);
+        });
+
+        CartState state = new CartState(cart.getId());
+        cartItemRepository.findByCartId(cart.getId()).stream()
+                .sorted(Comparator.comparing(CartItem::getId))
+                .forEach(item -> {
+                    Product product = item.getProduct();
+                    state.putLine(new Line(item.getId(), product.getId(), product.getName(),
+                            product.getImageUrl(), ProductHotTable.toMinor(item.getPrice()), item.getQuantity(),
+                            item.getVersion() != null ? item.getVersion() : 0L));
+                });
+        return state;
+    }
+
+    /**
+     * Makes the change, writes it unless writes are behind, announces it and returns the
+     * cart as it is then.
+     */
+    private Snapshot mutate(Long customerId, Consumer<CartState> change) {
+        return withCart(customerId, cart -> {
+            change.accept(cart);
+            if (!writeBehind && cart.hasPending()) {
+                writeAll(Map.of(customerId, cart.drain()));
+            }
+            eventPublisher.publishEvent(new CartChangedEvent(customerId, cart.itemCount, cart.subtotalMinor));
+            return cart.snapshot();
+        });
+    }
+
+    private void addLine(Long customerId, CartState cart, Add add) {
+        Line line = cart.lines.get(add.productId());
+        if (line != null) {
+            cart.changeQuantity(line, line.quantity + add.quantity());
+            markPending(customerId, cart, line);
+        } else if ((line = cart.removedLine(add.productId())) != null) {
+            // Revive the row that is waiting to be deleted instead of inserting another
+            cart.removed.remove(line.itemId);
+            line.quantity = add.quantity();
+            cart.putLine(line);
+            markPending(customerId, cart, line);
+        } else {
+            // Another instance or tab may have added the product meanwhile; the upsert then
+            // adds to its line, and the line is taken as it is after both adds
+            LineVersion row = cartItemRepository.upsertIncrement(cart.cartId, add.productId(), add.quantity(),
+                    BigDecimal.valueOf(add.priceMinor(), ProductHotTable.PRICE_SCALE));
+            line = new Line(row.id(), add.productId(), add.productName(), add.productImageUrl(),
+                    add.priceMinor(), row.quantity(), row.version());
+            Line deleting = cart.deleting.get(row.id());
+            if (deleting != null) {
+                // The row is only still there because the flush deleting it has not got to
+                // it; that delete now loses and leaves what was added since, so show just that
+                line.quantity = Math.max(1, row.quantity() - deleting.storedQuantity);
+            }
+            cart.putLine(line);
+        }
+    }
+
+    private void setLineQuantity(Long customerId, CartState cart, Line line, int quantity) {
+        cart.changeQuantity(line, quantity);
+        markPending(customerId, cart, line);
+    }
+
+    private void removeLine(Long customerId, CartState cart, Line line) {
+        cart.removeLine(line);
+        cart.updated.remove(line.itemId);
+        cart.removed.put(line.itemId, line);
+        markPending(customerId, cart, null);
+    }
+
+    /**
+     * The line a batched change is for, by cart item id or, failing that, by product id.
+     */
+    private Line changedLine(CartState cart, Long cartItemId, Long productId) {
+        if (cartItemId != null) {
+            return ownedLine(cart, cartItemId);
+        }
+        Line line = productId != null ? cart.lines.get(productId) : null;
+        if (line == null) {
+            throw new ResourceNotFoundException("Cart item not found");
+        }
+        return line;
+    }
+
+    private Line ownedLine(CartState cart, Long cartItemId) {
+        for (Line line : cart.lines.values()) {
+            if (line.itemId.equals(cartItemId)) {
+                return line;
+            }
+        }
+        if (!cart.removed.containsKey(cartItemId) && cartItemRepository.existsById(cartItemId)) {
+            throw new BadRequestException("Cart item does not belong to current customer");
+        }
+        throw new ResourceNotFoundException("Cart item not found");
+    }
+
+    private void markPending(Long customerId, CartState cart, Line line) {
+        if (line != null) {
+            cart.updated.add(line.itemId);
+        }
+        if (writeBehind) {
+            pendingCustomers.add(customerId);
+        }
+    }
+
+    /**
+     * Writes the drained changes, retrying them later if that fails: they are put back on
+     * carts that are still held and have not changed the same lines since.
+     */
+    private void writeAll(Map<Long, Pending> batch) {
+        Map<Long, LineVersion> written;
+        try {
+            written = transactionTemplate.execute(status -> {
+                List<Write> writes = new ArrayList<>();
+                batch.values().forEach(pending -> writes.addAll(pending.writes()));
+                return writeQuantities(writes);
+            });
+        } catch (RuntimeException e) {
+            batch.forEach((customerId, pending) -> withDrainedCart(customerId, pending, cart -> {
+                cart.restore(pending);
+                if (writeBehind) {
+                    pendingCustomers.add(customerId);
+                }
+            }));
+            throw e;
+        }
+
+        batch.forEach((customerId, pending) -> withDrainedCart(customerId, pending, cart -> {
+            cart.settle(pending, written);
+            if (writeBehind && cart.hasPending()) {
+                pendingCustomers.add(customerId);
+            }
+        }));
+    }
+
+    /**
+     * Runs the action under the customer's lock if the cart the changes were drained from is
+     * still held; one that was dropped meanwhile is read again on next use anyway.
+     */
+    private void withDrainedCart(Long customerId, Pending pending, Consumer<CartState> action) {
+        CartSlot slot = carts.get(customerId);
+        if (slot == null) {
+            return;
+        }
+        synchronized (slot) {
+            if (carts.get(customerId) == slot && slot.cart == pending.cart()) {
+                action.accept(slot.cart);
+            }
+        }
+    }
+
+    /**
+     * Writes the quantities as one batch of compare-and-set updates on each line's version,
+     * and the deletes (quantity zero) as one batch of compare-and-set deletes, so no row lock
+     * is taken. A line another instance or tab changed meanwhile is read again and this
+     * change is applied on top of it as a difference, so neither side's increments are lost:
+     * a delete over someone else's add becomes an update to what they added. After
+     * {@link #MAX_WRITE_ATTEMPTS} rounds the write gives up.
+     *
+     * @return each line as written, by id, or null for a line that is deleted
+     * @throws ConflictException if lines kept changing under the write
+     */
+    private Map<Long, LineVersion> writeQuantities(List<Write> writes) {
+        Map<Long, LineVersion> written = new HashMap<>();
+        Map<Long, Write> remaining = new LinkedHashMap<>();
+        writes.forEach(write -> remaining.put(write.itemId(), write));
+
+        for (int attempt = 1; attempt <= MAX_WRITE_ATTEMPTS && !remaining.isEmpty(); attempt++) {
+            List<QuantityWrite> updates = new ArrayList<>();
+            List<LineVersion> deletes = new ArrayList<>();
+            remaining.values().forEach(write -> {
+                if (write.quantity() > 0) {
+                    updates.add(new QuantityWrite(write.itemId(), write.quantity(), write.version()));
+                } else {
+                    deletes.add(new LineVersion(write.itemId(), 0, write.version()));
+                }
+            });
+            Set<Long> stale = new HashSet<>(cartItemRepository.deleteIfVersion(deletes));
+            stale.addAll(cartItemRepository.updateQuantitiesIfVersion(updates));
+            remaining.values().stream()
+                    .filter(write -> !stale.contains(write.itemId()))
+                    .forEach(write -> written.put(write.itemId(), write.quantity() > 0
+                            ? new LineVersion(write.itemId(), write.quantity(), write.version() + 1)
+                            : null));
+            if (stale.isEmpty()) {
+                return written;
+            }
+
+            Map<Long, LineVersion> current = cartItemRepository.findVersionsByIdIn(stale);
+            Map<Long, Write> rebased = new LinkedHashMap<>();
+            for (Long itemId : stale) {
+                Write write = remaining.get(itemId);
+                LineVersion row = current.get(itemId);
+                if (row == null) {
+                    written.put(itemId, null);
+                } else {
+                    // Only a delete may take the line to zero
+                    int floor = write.quantity() > 0 ? 1 : 0;
+                    int quantity = Math.max(floor, row.quantity() + write.quantity() - write.storedQuantity());
+                    rebased.put(itemId, new Write(itemId, quantity, row.quantity(), row.version()));
+                }
+            }
+            remaining.clear();
+            remaining.putAll(rebased);
+        }
+        if (!remaining.isEmpty()) {
+            log.warn("Gave up writing cart lines {} after {} conflicting attempts", remaining.keySet(),
+                    MAX_WRITE_ATTEMPTS);
+            throw new ConflictException("The cart was changed by another request at the same time; please try again");
+        }
+        return written;
+    }
+
+    private void evictIdle() {
+        Instant idleBefore = Instant.now().minus(Duration.ofMinutes(idleMinutes));
+        // Last use is read once per cart, as requests keep moving it while the list is sorted
+        List<IdleCandidate> candidates = new ArrayList<>(carts.size());
+        carts.forEach((customerId, slot) -> candidates.add(new IdleCandidate(customerId, slot, slot.lastUsed)));
+        candidates.sort(Comparator.comparing(IdleCandidate::lastUsed));
+
+        int excess = carts.size() - maxCarts;
+        for (IdleCandidate candidate : candidates) {
+            if (excess <= 0 && !candidate.lastUsed().isBefore(idleBefore)) {
+                break;
+            }
+            CartSlot slot = candidate.slot();
+            synchronized (slot) {
+                if ((slot.cart == null || slot.cart.isSettled()) && carts.remove(candidate.customerId(), slot)) {
+                    excess--;
+                }
+            }
+        }
+    }
+
+    private void forget(Long customerId) {
+        CartSlot slot = carts.get(customerId);
+        if (slot != null) {
+            synchronized (slot) {
+                carts.remove(customerId, slot);
+            }
+        }
+        pendingCustomers.remove(customerId);
+    }
+
+    private void forgetOnRollback(Long customerId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    forget(customerId);
+                }
+            }
+        });
+    }
+
+    /**
+     * Immutable view of a cart; lines are in the order they were added. The subtotal is in
+     * minor units of the {@code price} column.
+     */
+    public record Snapshot(Long cartId, List<LineSnapshot> lines, long subtotalMinor, int itemCount) {
+    }
+
+    public record LineSnapshot(Long cartItemId, Long productId, String productName, String productImageUrl,
+                               long priceMinor, int quantity) {
+
+        public BigDecimal price() {
+            return BigDecimal.valueOf(priceMinor, ProductHotTable.PRICE_SCALE);
+        }
+
+        public BigDecimal subtotal() {
+            return BigDecimal.valueOf(Math.multiplyExact(priceMinor, (long) quantity), ProductHotTable.PRICE_SCALE);
+        }
+    }
+
+    /**
+     * A change to a cart, for {@link #apply}.
+     */
+    public sealed interface Change permits Add, SetQuantity, Remove {
+    }
+
+    public record Add(Long productId, int quantity, long priceMinor, String productName, String productImageUrl)
+            implements Change {
+    }
+
+    /**
+     * Sets the quantity of the line with {@code cartItemId}, or if that is null, of the line
+     * for {@code productId}.
+     */
+    public record SetQuantity(Long cartItemId, Long productId, int quantity) implements Change {
+    }
+
+    public record Remove(Long cartItemId, Long productId) implements Change {
+    }
+
+    /**
+     * Drained changes: quantity writes and deletes, and the removed lines the deletes are for,
+     * taken from {@code cart}.
+     */
+    private record Pending(CartState cart, List<Write> writes, Map<Long, Line> deletedLines) {
+    }
+
+    /**
+     * A quantity to write over {@code storedQuantity}, the quantity the line had at
+     * {@code version}; zero deletes the line.
+     */
+    private record Write(Long itemId, int quantity, int storedQuantity, long version) {
+    }
+
+    private record IdleCandidate(Long customerId, CartSlot slot, Instant lastUsed) {
+    }
+
+    /**
+     * A customer's entry in {@link #carts}, and the lock their cart is changed under. It is
+     * put in place before the cart is loaded, so the load holds up only that customer.
+     */
+    private static final class CartSlot {
+        /** Null until loaded. */
+        private CartState cart;
+        private volatile Instant lastUsed = Instant.now();
+    }
+
+    private static final class CartState {
+        private final Long cartId;
+        /** Lines by product id. */
+        private final Map<Long, Line> lines = new LinkedHashMap<>();
+        /** Lines removed from the cart whose rows are not deleted yet, by cart item id. */
+        private final Map<Long, Line> removed = new LinkedHashMap<>();
+        /** Lines whose quantity has not been written yet. */
+        private final Set<Long> updated = new HashSet<>();
+        /** Removed lines drained for a delete that has not been settled yet, by cart item id. */
+        private final Map<Long, Line> deleting = new HashMap<>();
+        /** Running totals of {@link #lines}, kept in step by every change to them. */
+        private long subtotalMinor;
+        private int itemCount;
+
+        private CartState(Long cartId) {
+            this.cartId = cartId;
+        }
+
+        private void putLine(Line line) {
+            lines.put(line.productId, line);
+            adjustTotals(line, line.quantity);
+        }
+
+        private void removeLine(Line line) {
+            lines.remove(line.productId);
+            adjustTotals(line, -line.quantity);
+        }
+
+        private void changeQuantity(Line line, int quantity) {
+            adjustTotals(line, quantity - line.quantity);
+            line.quantity = quantity;
+        }
+
+        private void adjustTotals(Line line, int delta) {
+            subtotalMinor = Math.addExact(subtotalMinor, Math.multiplyExact(line.priceMinor, (long) delta));
+            itemCount = Math.addExact(itemCount, delta);
+        }
+
+        private CartState copy() {
+            CartState copy = new CartState(cartId);
+            lines.forEach((productId, line) -> copy.lines.put(productId, line.copy()));
+            removed.forEach((itemId, line) -> copy.removed.put(itemId, line.copy()));
+            copy.updated.addAll(updated);
+            copy.deleting.putAll(deleting);
+            copy.subtotalMinor = subtotalMinor;
+            copy.itemCount = itemCount;
+            return copy;
+        }
+
+        private void adopt(CartState other) {
+            lines.clear();
+            lines.putAll(other.lines);
+            removed.clear();
+            removed.putAll(other.removed);
+            updated.clear();
+            updated.addAll(other.updated);
+            subtotalMinor = other.subtotalMinor;
+            itemCount = other.itemCount;
+        }
+
+        private Line removedLine(Long productId) {
+            for (Line line : removed.values()) {
+                if (line.productId.equals(productId)) {
+                    return line;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Whether there are changes to drain; a line re-added while its delete is in flight
+         * waits for that delete to settle.
+         */
+        private boolean hasPending() {
+            return !removed.isEmpty() || updated.stream().anyMatch(itemId -> !deleting.containsKey(itemId));
+        }
+
+        private boolean isSettled() {
+            return updated.isEmpty() && removed.isEmpty() && deleting.isEmpty();
+        }
+
+        private Pending drain() {
+            List<Write> writes = new ArrayList<>();
+            Set<Long> held = new HashSet<>();
+            for (Line line : lines.values()) {
+                if (!updated.contains(line.itemId)) {
+                    continue;
+                }
+                if (deleting.containsKey(line.itemId)) {
+                    // Re-added while its delete is in flight; written once that is settled
+                    held.add(line.itemId);
+                } else {
+                    writes.add(new Write(line.itemId, line.quantity, line.storedQuantity, line.version));
+                }
+            }
+            Map<Long, Line> deletedLines = new LinkedHashMap<>(removed);
+            deletedLines.values().forEach(line ->
+                    writes.add(new Write(line.itemId, 0, line.storedQuantity, line.version)));
+            deleting.putAll(deletedLines);
+            updated.retainAll(held);
+            removed.clear();
+            return new Pending(this, writes, deletedLines);
+        }
+
+        /**
+         * Puts back changes that were not written. A removed line whose product was added
+         * again meanwhile is not deleted any more; its row is written with the added quantity
+         * instead.
+         */
+        private void restore(Pending pending) {
+            Set<Long> itemIds = new HashSet<>();
+            pending.writes().stream()
+                    .filter(write -> write.quantity() > 0)
+                    .forEach(write -> itemIds.add(write.itemId()));
+            itemIds.addAll(pending.deletedLines().keySet());
+            Set<Long> held = new HashSet<>();
+            for (Line line : lines.values()) {
+                if (itemIds.contains(line.itemId)) {
+                    updated.add(line.itemId);
+                    held.add(line.itemId);
+                }
+            }
+            pending.deletedLines().forEach((itemId, line) -> {
+                deleting.remove(itemId);
+                if (!held.contains(itemId)) {
+                    removed.put(itemId, line);
+                }
+            });
+        }
+
+        /**
+         * Takes in what was written: new versions, quantities rebased on another writer's
+         * change, lines that turned out to be deleted, and removed lines that were kept
+         * because someone else added to them.
+         */
+        private void settle(Pending pending, Map<Long, LineVersion> written) {
+            pending.deletedLines().keySet().forEach(deleting::remove);
+            Map<Long, Line> linesById = new HashMap<>();
+            lines.values().forEach(line -> linesById.put(line.itemId, line));
+            for (Write write : pending.writes()) {
+                Line deleted = pending.deletedLines().get(write.itemId());
+                if (deleted != null) {
+                    keepIfAddedTo(deleted, linesById.get(write.itemId()), written.get(write.itemId()));
+                    continue;
+                }
+                Line line = linesById.get(write.itemId());
+                if (line == null || !written.containsKey(write.itemId())) {
+                    continue;
+                }
+                LineVersion row = written.get(write.itemId());
+                if (row == null) {
+                    removeLine(line);
+                    updated.remove(line.itemId);
+                    continue;
+                }
+                line.storedQuantity = row.quantity();
+                line.version = row.version();
+                int offset = row.quantity() - write.quantity();
+                if (offset != 0) {
+                    changeQuantity(line, Math.max(1, line.quantity + offset));
+                }
+            }
+        }
+
+        /**
+         * A delete that lost to another writer's add left the row with what they added; the
+         * cart shows the line again with that quantity.
+         *
+         * @param current the line now held for the same row, if it was added to again here
+         */
+        private void keepIfAddedTo(Line deleted, Line current, LineVersion row) {
+            if (row == null) {
+                return;
+            }
+            if (current == null) {
+                if (lines.containsKey(deleted.productId)) {
+                    return;
+                }
+                deleted.quantity = row.quantity();
+                deleted.storedQuantity = row.quantity();
+                deleted.version = row.version();
+                putLine(deleted);
+                return;
+            }
+            current.storedQuantity = row.quantity();
+            current.version = row.version();
+            if (!updated.contains(current.itemId)) {
+                changeQuantity(current, row.quantity());
+            }
+        }
+
+        private Snapshot snapshot() {
+            List<LineSnapshot> snapshots = new ArrayList<>(lines.size());
+            for (Line line : lines.values()) {
+                snapshots.add(new LineSnapshot(line.itemId, line.productId, line.productName,
+                        line.productImageUrl, line.priceMinor, line.quantity));
+            }
+            return new Snapshot(cartId, snapshots, subtotalMinor, itemCount);
+        }
+    }
+
+    private static final class Line {
+        private final Long itemId;
+        private final Long productId;
+        private final String productName;
+        private final String productImageUrl;
+        /** Unit price in minor units of the {@code price} column. */
+        private final long priceMinor;
+        private int quantity;
+        /** Quantity and version of the row as last read or written. */
+        private int storedQuantity;
+        private long version;
+
+        private Line(Long itemId, Long productId, String productName, String productImageUrl,
+                     long priceMinor, int quantity, long version) {
+            this.itemId = itemId;
+            this.productId = productId;
+            this.productName = productName;
+            this.productImageUrl = productImageUrl;
+            this.priceMinor = priceMinor;
+            this.quantity = quantity;
+            this.storedQuantity = quantity;
+            this.version = version;
+        }
+
+        private Line copy() {
+            Line copy = new Line(itemId, productId, productName, productImageUrl, priceMinor, quantity, version);
+            copy.storedQuantity = storedQuantity;
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.restaurant.store.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Cart totals in minor units of the {@code price} column; amounts become {@link BigDecimal}
+ * only when a response is built.
+ * <p>
+ * VAT is 10% of the subtotal rounded half-up to the minor unit, and the delivery fee is only
+ * charged on a cart with items.
+ */
+public record CartTotals(long subtotalMinor, long vatMinor, long deliveryFeeMinor, int itemCount) {
+
+    static final long VAT_PERCENT = 10;
+    static final long DELIVERY_FEE_MINOR = 600_000L;
+
+    public static CartTotals of(long subtotalMinor, int itemCount) {
+        long vatMinor = Math.addExact(Math.multiplyExact(subtotalMinor, VAT_PERCENT), 50) / 100;
+        return new CartTotals(subtotalMinor, vatMinor, itemCount > 0 ? DELIVERY_FEE_MINOR : 0L, itemCount);
+    }
+
+    public static CartTotals of(CartStore.Snapshot cart) {
+        return of(cart.subtotalMinor(), cart.itemCount());
+    }
+
+    public long totalMinor() {
+        return Math.addExact(Math.addExact(subtotalMinor, vatMinor), deliveryFeeMinor);
+    }
+
+    public BigDecimal subtotal() {
+        return toAmount(subtotalMinor);
+    }
+
+    public BigDecimal vat() {
+        return toAmount(vatMinor);
+    }
+
+    public BigDecimal deliveryFee() {
+        return toAmount(deliveryFeeMinor);
+    }
+
+    public BigDecimal total() {
+        return toAmount(totalMinor());
+    }
+
+    private static BigDecimal toAmount(long minor) {
+        return BigDecimal.valueOf(minor, ProductHotTable.PRICE_SCALE);
+    }
+}
@@ -0,0 +1,35 @@
+package com.restaurant.store.service;
+
+import com.restaurant.store.repository.CatalogTombstoneRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Periodically deletes catalog tombstones older than {@code catalog.tombstones.retention-days}.
+ * The change feed answers versions older than that with a full resync, so these tombstones
+ * are no longer read.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogTombstonePruneJob {
+
+    private final CatalogTombstoneRepository catalogTombstoneRepository;
+
+    @Value("${catalog.tombstones.retention-days:30}")
+    private int retentionDays;
+
+    @Scheduled(fixedDelayString = "${catalog.tombstones.prune-interval:3600000}", initialDelayString = "${catalog.tombstones.prune-interval:3600000}")
+    public void pruneTombstones() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        int pruned = catalogTombstoneRepository.deleteDeletedBefore(cutoff);
+        if (pruned > 0) {
+            log.info("Pruned {} catalog tombstones older than {}", pruned, cutoff);
+        }
+    }
+}
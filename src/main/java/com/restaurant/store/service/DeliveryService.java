@@ -3,14 +3,11 @@ package com.restaurant.store.service;
 import com.restaurant.store.controller.api.DeliveryStatusWebSocketController;
 import com.restaurant.store.dto.response.DeliveryResponse;
 import com.restaurant.store.dto.response.OrderStatusMessage;
-import com.restaurant.store.entity.Customer;
 import com.restaurant.store.entity.Delivery;
 import com.restaurant.store.entity.DeliveryStatus;
-import com.restaurant.store.entity.Order;
 import com.restaurant.store.exception.BadRequestException;
 import com.restaurant.store.exception.ResourceNotFoundException;
 import com.restaurant.store.mapper.DeliveryMapper;
-import com.restaurant.store.repository.CustomerRepository;
 import com.restaurant.store.repository.DeliveryRepository;
 import com.restaurant.store.repository.OrderRepository;
 import com.restaurant.store.security.JwtUtil;
@@ -20,6 +17,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Optional;
 
 @Service
 @Slf4j
@@ -31,9 +29,6 @@ public class DeliveryService {
     @Autowired
     private OrderRepository orderRepository;
 
-    @Autowired
-    private CustomerRepository customerRepository;
-
     @Autowired
     private JwtUtil jwtUtil;
 
@@ -43,22 +38,23 @@ public class DeliveryService {
     @Autowired
     private DeliveryStatusWebSocketController deliveryStatusWebSocketController;
 
+    @Autowired
+    private OrderArchiver orderArchiver;
+
     public DeliveryResponse getDeliveryByOrderId(Long orderId, String token) {
         String email = jwtUtil.extractUsername(token.substring(7));
-        Customer customer = customerRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("Customer not found"));
-
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
 
-        if (!order.getCustomer().getId().equals(customer.getId())) {
+        Optional<Delivery> delivery = deliveryRepository.findByOrderIdAndCustomerEmail(orderId, email);
+        if (delivery.isPresent()) {
+            return deliveryMapper.toResponse(delivery.get());
+        }
+        if (!orderRepository.existsById(orderId)) {
+            return orderArchiver.toDeliveryResponse(orderArchiver.getForCustomer(orderId, email));
+        }
+        if (!orderRepository.existsByIdAndCustomerEmail(orderId, email)) {
             throw new BadRequestException("Order does not belong to current customer");
         }
-
-        Delivery delivery = deliveryRepository.findByOrderId(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Delivery not found for order id: " + orderId));
-
-        return deliveryMapper.toResponse(delivery);
+        throw new ResourceNotFoundException("Delivery not found for order id: " + orderId);
     }
 
     public DeliveryResponse trackDelivery(Long orderId, String token) {
@@ -0,0 +1,208 @@
+package com.restaurant.store.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.store.exception.BadRequestException;
+import com.restaurant.store.exception.ConflictException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Replays the response of a request that is retried with the same {@code Idempotency-Key}.
+ * <p>
+ * Keys are scoped to the signed-in customer. The first request with a key runs; a retry of
+ * the same operation with the same body gets the stored response back from a hash lookup,
+ * and a retry that arrives while the first one is still running waits for it. Only
+ * successful responses are kept, so a request that failed can be retried with the same key.
+ * The store holds the most recent {@code idempotency.max-entries} keys for
+ * {@code idempotency.retention-minutes}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    @Value("${idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${idempotency.retention-minutes:1440}")
+    private long retentionMinutes;
+
+    @Value("${idempotency.wait-seconds:30}")
+    private long waitSeconds;
+
+    /**
+     * Runs {@code action} once per key. Without a key the action simply runs.
+     *
+     * @param idempotencyKey value of the {@code Idempotency-Key} header, may be null
+     * @param operation      what is being done, e.g. {@code "POST /api/orders/12/pay"}
+     * @param request        request body, part of the fingerprint a retry has to match
+     * @throws ConflictException if the key was used for a different request, or the first
+     *                           request is still running after the wait time
+     */
+    public <T> ResponseEntity<T> execute(String idempotencyKey,
+                                         String operation,
+                                         Object request,
+                                         Supplier<ResponseEntity<T>> action) {
+        if (!StringUtils.hasText(idempotencyKey)) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException(HEADER + " must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String storeKey = currentPrincipal() + ":" + idempotencyKey;
+        byte[] fingerprint = fingerprint(operation, request);
+        Instant now = Instant.now();
+
+        Entry entry = new Entry(fingerprint, now);
+        Entry existing = entries.putIfAbsent(storeKey, entry);
+        while (existing != null && existing.isExpired(now, retentionMinutes)) {
+            entries.remove(storeKey, existing);
+            existing = entries.putIfAbsent(storeKey, entry);
+        }
+
+        if (existing != null) {
+            if (!Arrays.equals(existing.fingerprint, fingerprint)) {
+                throw new ConflictException(HEADER + " was already used for a different request");
+            }
+            return replay(existing);
+        }
+
+        insertionOrder.add(storeKey);
+        trim();
+        return run(storeKey, entry, action);
+    }
+
+    private <T> ResponseEntity<T> run(String storeKey, Entry entry, Supplier<ResponseEntity<T>> action) {
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException | Error e) {
+            entries.remove(storeKey, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+
+        if (!response.getStatusCode().is2xxSuccessful()) {
+            entries.remove(storeKey, entry);
+        }
+        entry.result.complete(response);
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<T> replay(Entry existing) {
+        ResponseEntity<?> original;
+        try {
+            original = existing.result.get(waitSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw new ConflictException("A request with this " + HEADER + " is still being processed");
+        } catch (ExecutionException e) {
+            // The duplicate shares the outcome of the request it waited for
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("A request with this " + HEADER + " is still being processed");
+        }
+
+        return (ResponseEntity<T>) ResponseEntity.status(original.getStatusCode())
+                .headers(original.getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body(original.getBody());
+    }
+
+    /**
+     * Drops the oldest keys beyond {@code maxEntries}; a key whose request is still running
+     * is kept and looked at again on a later call.
+     */
+    private void trim() {
+        int attempts = insertionOrder.size();
+        while (entries.size() > maxEntries && attempts-- > 0) {
+            String oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            Entry entry = entries.get(oldest);
+            if (entry != null && !entry.result.isDone()) {
+                insertionOrder.add(oldest);
+                continue;
+            }
+            if (entry != null) {
+                entries.remove(oldest, entry);
+            }
+        }
+    }
+
+    private byte[] fingerprint(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            if (request != null) {
+                digest.update(objectMapper.writeValueAsBytes(request));
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Unable to fingerprint request for " + operation, e);
+        }
+    }
+
+    private static String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "anonymous";
+    }
+
+    private static final class Entry {
+        private final byte[] fingerprint;
+        private final Instant createdAt;
+        private final CompletableFuture<ResponseEntity<?>> result = new CompletableFuture<>();
+
+        private Entry(byte[] fingerprint, Instant createdAt) {
+            this.fingerprint = fingerprint;
+            this.createdAt = createdAt;
+        }
+
+        private boolean isExpired(Instant now, long retentionMinutes) {
+            return result.isDone() && createdAt.plus(Duration.ofMinutes(retentionMinutes)).isBefore(now);
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.restaurant.store.service;
+
+import com.restaurant.store.dto.response.CategoryResponse;
+import com.restaurant.store.dto.response.ProductResponse;
+import com.restaurant.store.entity.CatalogTombstone;
+import com.restaurant.store.entity.Category;
+import com.restaurant.store.entity.Product;
+import com.restaurant.store.event.CatalogChangedEvent;
+import com.restaurant.store.mapper.ProductMapper;
+import com.restaurant.store.repository.CatalogTombstoneRepository;
+import com.restaurant.store.repository.CategoryRepository;
+import com.restaurant.store.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Holds the current {@link MenuSnapshot} and swaps it atomically when the catalog changes.
+ * <p>
+ * Reads are lock-free: they return the published snapshot as long as no catalog change
+ * has been recorded since it was built. A change only bumps a counter; the next read
+ * rebuilds the snapshot with three queries (products fetch-joined with their category,
+ * categories and the tombstones within {@code catalog.tombstones.retention-days}) and
+ * publishes it in one reference swap.
+ * <p>
+ * Changes are detected through JPA entity callbacks, which fire when a write is flushed;
+ * a read inside the writing transaction sees the change once it has been flushed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MenuCatalogService {
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final CatalogTombstoneRepository catalogTombstoneRepository;
+    private final ProductMapper productMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final BeforeCommitStamp categoryStamps = new BeforeCommitStamp(this::restamp);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${catalog.tombstones.retention-days:30}")
+    private int tombstoneRetentionDays;
+
+    private final AtomicReference<Published> current = new AtomicReference<>();
+    private final AtomicLong changeCount = new AtomicLong();
+    private final Object rebuildLock = new Object();
+    private long nextVersion = 1;
+
+    public MenuSnapshot snapshot() {
+        Published published = current.get();
+        if (published != null && published.changeCount() == changeCount.get()) {
+            return published.snapshot();
+        }
+        return rebuild();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        MenuSnapshot snapshot = snapshot();
+        log.info("Menu snapshot v{} ready with {} categories and {} products",
+                snapshot.getVersion(), snapshot.getCategories().size(), snapshot.getProducts().size());
+    }
+
+    /**
+     * Marks the snapshot stale as soon as a catalog row is written, so a read later in the
+     * same transaction already sees the change.
+     */
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        log.debug("Catalog change recorded: {}", event);
+        changeCount.incrementAndGet();
+    }
+
+    /**
+     * Marks the snapshot stale again once the writing transaction finishes, so a snapshot
+     * rebuilt by another thread before the commit (or from data that was rolled back)
+     * is not kept.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void onCatalogChangeCompleted(CatalogChangedEvent event) {
+        changeCount.incrementAndGet();
+    }
+
+    /**
+     * Stamps the categories a product was added to or removed from, as their product counts
+     * changed. All categories a transaction touched are stamped together right before it
+     * commits, rather than once per product change.
+     */
+    @EventListener
+    public void restampCategories(CatalogChangedEvent event) {
+        categoryStamps.add(entityManager, event.getCategoryIds());
+    }
+
+    /**
+     * Runs while the changes are flushed or the transaction completes, where the persistence
+     * context must not be used, so it is a plain JDBC update in the same transaction.
+     */
+    private void restamp(Set<Long> categoryIds) {
+        String placeholders = String.join(", ", Collections.nCopies(categoryIds.size(), "?"));
+        List<Object> args = new ArrayList<>();
+        args.add(LocalDateTime.now());
+        args.addAll(categoryIds);
+        jdbcTemplate.update("UPDATE categories SET updated_at = ? WHERE id IN (" + placeholders + ")", args.toArray());
+    }
+
+    /**
+     * Leaves a tombstone for every deleted product or category, written in the deleting
+     * transaction so it commits (or rolls back) together with the delete.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void recordTombstone(CatalogChangedEvent event) {
+        if (event.getChangeType() == CatalogChangedEvent.ChangeType.DELETED && event.getEntityId() != null) {
+            catalogTombstoneRepository.save(new CatalogTombstone(event.getEntityType(), event.getEntityId()));
+        }
+    }
+
+    private MenuSnapshot rebuild() {
+        synchronized (rebuildLock) {
+            long observedChanges = changeCount.get();
+            Published existing = current.get();
+            if (existing != null && existing.changeCount() == observedChanges) {
+                return existing.snapshot();
+            }
+
+            List<Product> products = productRepository.findAllWithCategory();
+            List<Category> categories = categoryRepository.findAll(Sort.by("id"));
+            LocalDateTime deletionHorizon = LocalDateTime.now().minusDays(tombstoneRetentionDays);
+            List<CatalogTombstone> tombstones = catalogTombstoneRepository.findByDeletedAtAfter(deletionHorizon);
+
+            List<ProductResponse> productResponses = products.stream()
+                    .map(productMapper::toResponse)
+                    .collect(Collectors.toList());
+
+            Map<Long, Integer> productCounts = new HashMap<>();
+            productResponses.forEach(product -> productCounts.merge(product.getCategoryId(), 1, Integer::sum));
+
+            List<CategoryResponse> categoryResponses = categories.stream()
+                    .map(category -> CategoryResponse.builder()
+                            .id(category.getId())
+                            .name(category.getName())
+                            .description(category.getDescription())
+                            .productCount(productCounts.getOrDefault(category.getId(), 0))
+                            .build())
+                    .collect(Collectors.toList());
+
+            Map<Long, Long> categoryChangedAt = new HashMap<>();
+            categories.forEach(category -> putStamp(categoryChangedAt, category.getId(),
+                    latest(category.getUpdatedAt(), category.getSyncedAt())));
+
+            // Products embed their category name, so a category change counts as a change to its products
+            Map<Long, Long> productChangedAt = new HashMap<>();
+            products.forEach(product -> putStamp(productChangedAt, product.getId(),
+                    latest(product.getUpdatedAt(), product.getSyncedAt(), product.getCategory().getUpdatedAt())));
+
+            List<MenuSnapshot.Deletion> deletions = tombstones.stream()
+                    .map(tombstone -> new MenuSnapshot.Deletion(tombstone.getEntityType(), tombstone.getEntityId(),
+                            toEpochMilli(tombstone.getDeletedAt())))
+                    .collect(Collectors.toList());
+
+            MenuSnapshot snapshot = new MenuSnapshot(nextVersion++, categoryResponses, productResponses,
+                    categoryChangedAt, productChangedAt, deletions, toEpochMilli(deletionHorizon));
+            current.set(new Published(snapshot, observedChanges));
+            log.debug("Rebuilt menu snapshot v{} ({} products)", snapshot.getVersion(), productResponses.size());
+            return snapshot;
+        }
+    }
+
+    private static LocalDateTime latest(LocalDateTime... stamps) {
+        LocalDateTime latest = null;
+        for (LocalDateTime stamp : stamps) {
+            if (stamp != null && (latest == null || stamp.isAfter(latest))) {
+                latest = stamp;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Rows without any stamp are left out, which makes the change feed always include them.
+     */
+    private static void putStamp(Map<Long, Long> stamps, Long id, LocalDateTime stamp) {
+        if (stamp != null) {
+            stamps.put(id, toEpochMilli(stamp));
+        }
+    }
+
+    private static long toEpochMilli(LocalDateTime stamp) {
+        return stamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record Published(MenuSnapshot snapshot, long changeCount) {
+    }
+}
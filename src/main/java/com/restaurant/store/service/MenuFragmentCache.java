@@ -0,0 +1,138 @@
+package com.restaurant.store.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.store.dto.response.ProductResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Catalog-derived parts of the menu page, rendered once per category filter and menu
+ * snapshot and then served as-is until the catalog changes.
+ * <p>
+ * For each {@code categoryId} this holds the {@code fragments/products-grid} HTML, as the text
+ * the menu page inlines and as bytes (plain and gzip-compressed) written straight to the
+ * response by {@code /menu/products-grid}. Ids the snapshot does not know all share one
+ * empty-grid entry, so requests for arbitrary ids cannot grow the cache. Everything is
+ * dropped in one step when a newer snapshot is seen, so no entry can outlive the catalog
+ * version it was rendered from.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MenuFragmentCache {
+
+    private static final String GRID_TEMPLATE = "fragments/products-grid";
+    private static final CategoryKey UNKNOWN_CATEGORY = new CategoryKey(-1L);
+
+    private final MenuCatalogService menuCatalogService;
+    private final ITemplateEngine templateEngine;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicReference<Generation> current = new AtomicReference<>();
+
+    public RenderedMenu get(Long categoryId) {
+        MenuSnapshot snapshot = menuCatalogService.snapshot();
+        Generation generation = current.get();
+        if (generation == null || generation.version() != snapshot.getVersion()) {
+            Generation fresh = new Generation(snapshot.getVersion(), new ConcurrentHashMap<>());
+            // A slower thread holding an older snapshot must not replace a newer generation
+            generation = current.accumulateAndGet(fresh,
+                    (existing, candidate) -> existing != null && existing.version() >= candidate.version() ? existing : candidate);
+            if (generation.version() != snapshot.getVersion()) {
+                return render(snapshot, categoryId);
+            }
+        }
+        CategoryKey key = categoryId == null || snapshot.hasCategory(categoryId)
+                ? new CategoryKey(categoryId)
+                : UNKNOWN_CATEGORY;
+        return generation.entries().computeIfAbsent(key, k -> render(snapshot, k.categoryId()));
+    }
+
+    private RenderedMenu render(MenuSnapshot snapshot, Long categoryId) {
+        List<ProductResponse> products = snapshot.findProducts(categoryId, false);
+
+        Context context = new Context(Locale.ROOT);
+        context.setVariable("products", products);
+        String html = templateEngine.process(GRID_TEMPLATE, context);
+        byte[] gridHtml = html.getBytes(StandardCharsets.UTF_8);
+
+        log.debug("Rendered menu fragments for category {} from snapshot v{}", categoryId, snapshot.getVersion());
+        return new RenderedMenu(
+                gridHtml,
+                gzip(gridHtml),
+                etag(snapshot.getEtag(), categoryId, "identity"),
+                etag(snapshot.getEtag(), categoryId, "gzip"),
+                html,
+                toScriptJson(snapshot.getCategories()));
+    }
+
+    /**
+     * JSON that is safe to place inside an inline {@code <script>}: {@code <} only occurs
+     * inside JSON strings, so escaping it rules out a premature {@code </script>}.
+     */
+    private String toScriptJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value)
+                    .replace("<", "\\u003c")
+                    .replace("\u2028", "\\u2028")
+                    .replace("\u2029", "\\u2029");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize menu data", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] content) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static String etag(String catalogEtag, Long categoryId, String encoding) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(catalogEtag.getBytes(StandardCharsets.UTF_8));
+            digest.update(String.valueOf(categoryId).getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "-" + encoding + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Pre-rendered menu content for one category filter. The arrays are shared between
+     * requests and must not be modified. {@code etag} and {@code gzipEtag} identify the plain
+     * and the gzip-compressed grid, which are different representations; {@code gridMarkup}
+     * is the same grid as text, for inlining into the menu page.
+     */
+    public record RenderedMenu(byte[] gridHtml, byte[] gridGzip, String etag, String gzipEtag,
+                               String gridMarkup, String categoriesJson) {
+    }
+
+    private record CategoryKey(Long categoryId) {
+    }
+
+    private record Generation(long version, Map<CategoryKey, RenderedMenu> entries) {
+    }
+}
@@ -0,0 +1,255 @@
+package com.restaurant.store.service;
+
+import com.restaurant.store.dto.response.CatalogChangesResponse;
+import com.restaurant.store.dto.response.CategoryResponse;
+import com.restaurant.store.dto.response.ProductResponse;
+import com.restaurant.store.event.CatalogChangedEvent;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, versioned view of the whole menu.
+ * Built once per catalog change by {@link MenuCatalogService} and shared by every catalog read.
+ * The response objects it hands out are shared as well and must be treated as read-only.
+ */
+@Getter
+public final class MenuSnapshot {
+
+    /**
+     * How far before the requested version the change feed starts looking. A transaction
+     * stamps its rows when it flushes but only becomes visible when it commits, so a row
+     * can surface with a stamp older than a version already handed out; re-sending the
+     * last few seconds of changes makes sure it is not missed. Clients apply the feed as
+     * upserts, so the repeats are harmless.
+     */
+    static final long CHANGE_FEED_OVERLAP_MILLIS = 5_000;
+
+    private final long version;
+    /**
+     * Epoch-millisecond stamp of the most recent catalog change (insert, update, admin sync
+     * or delete). This is the version clients pass to the change feed.
+     */
+    private final long catalogVersion;
+    private final LocalDateTime builtAt;
+    /**
+     * Strong entity tag derived from the menu content, so it stays the same across
+     * rebuilds and restarts as long as nothing visible to clients changed.
+     */
+    private final String etag;
+    private final List<CategoryResponse> categories;
+    private final List<ProductResponse> products;
+    private final List<ProductResponse> availableProducts;
+
+    private final Map<Long, CategoryResponse> categoriesById;
+    private final Map<Long, ProductResponse> productsById;
+    private final Map<Long, String> productEtags;
+    private final Map<Long, List<ProductResponse>> productsByCategory;
+    private final Map<Long, List<ProductResponse>> availableProductsByCategory;
+    /**
+     * Price and availability by product id, for validating cart and order lines.
+     */
+    private final ProductHotTable hotTable;
+
+    private final Map<Long, Long> categoryChangedAt;
+    private final Map<Long, Long> productChangedAt;
+    private final List<Deletion> deletions;
+    /**
+     * Epoch-millisecond time before which tombstones were not loaded; the change feed
+     * cannot report deletions older than this.
+     */
+    private final long deletionHorizon;
+
+    MenuSnapshot(long version, List<CategoryResponse> categories, List<ProductResponse> products,
+                 Map<Long, Long> categoryChangedAt, Map<Long, Long> productChangedAt, List<Deletion> deletions,
+                 long deletionHorizon) {
+        this.version = version;
+        this.deletionHorizon = deletionHorizon;
+        this.categoryChangedAt = Map.copyOf(categoryChangedAt);
+        this.productChangedAt = Map.copyOf(productChangedAt);
+        this.deletions = List.copyOf(deletions);
+        this.catalogVersion = Math.max(
+                Math.max(maxStamp(categoryChangedAt.values()), maxStamp(productChangedAt.values())),
+                deletions.stream().mapToLong(Deletion::deletedAt).max().orElse(0L));
+        this.builtAt = LocalDateTime.now();
+        this.categories = List.copyOf(categories);
+        this.products = List.copyOf(products);
+
+        MessageDigest catalogDigest = newDigest();
+        Map<Long, CategoryResponse> categoryIndex = new LinkedHashMap<>();
+        categories.forEach(category -> {
+            categoryIndex.put(category.getId(), category);
+            update(catalogDigest, fingerprint(category));
+        });
+
+        Map<Long, ProductResponse> productIndex = new LinkedHashMap<>();
+        Map<Long, String> productTags = new LinkedHashMap<>();
+        Map<Long, List<ProductResponse>> byCategory = new LinkedHashMap<>();
+        Map<Long, List<ProductResponse>> availableByCategory = new LinkedHashMap<>();
+        List<ProductResponse> available = new ArrayList<>();
+
+        for (ProductResponse product : products) {
+            productIndex.put(product.getId(), product);
+            String productFingerprint = fingerprint(product);
+            update(catalogDigest, productFingerprint);
+            MessageDigest productDigest = newDigest();
+            update(productDigest, productFingerprint);
+            productTags.put(product.getId(), toEtag(productDigest));
+            byCategory.computeIfAbsent(product.getCategoryId(), id -> new ArrayList<>()).add(product);
+            if (Boolean.TRUE.equals(product.getIsAvailable())) {
+                available.add(product);
+                availableByCategory.computeIfAbsent(product.getCategoryId(), id -> new ArrayList<>()).add(product);
+            }
+        }
+
+        this.categoriesById = Collections.unmodifiableMap(categoryIndex);
+        this.productsById = Collections.unmodifiableMap(productIndex);
+        this.productEtags = Collections.unmodifiableMap(productTags);
+        this.etag = toEtag(catalogDigest);
+        this.productsByCategory = freeze(byCategory);
+        this.availableProductsByCategory = freeze(availableByCategory);
+        this.availableProducts = List.copyOf(available);
+        this.hotTable = new ProductHotTable(products);
+    }
+
+    public boolean hasCategory(Long categoryId) {
+        return categoriesById.containsKey(categoryId);
+    }
+
+    public ProductResponse findProduct(Long productId) {
+        return productsById.get(productId);
+    }
+
+    public String findProductEtag(Long productId) {
+        return productEtags.get(productId);
+    }
+
+    /**
+     * Same filter semantics as the repository finders it replaces:
+     * {@code categoryId} and {@code availableOnly} are both optional.
+     */
+    public List<ProductResponse> findProducts(Long categoryId, boolean availableOnly) {
+        if (categoryId != null) {
+            Map<Long, List<ProductResponse>> index = availableOnly ? availableProductsByCategory : productsByCategory;
+            return index.getOrDefault(categoryId, List.of());
+        }
+        return availableOnly ? availableProducts : products;
+    }
+
+    /**
+     * Products and categories changed, and ids deleted, after catalog version {@code since}.
+     * Without a {@code since}, or with one older than the retained tombstones, the whole
+     * menu is returned as a full resync.
+     */
+    public CatalogChangesResponse changesSince(Long since) {
+        if (needsFullResync(since)) {
+            return CatalogChangesResponse.builder()
+                    .version(catalogVersion)
+                    .fullResync(true)
+                    .categories(categories)
+                    .products(products)
+                    .deletedCategoryIds(List.of())
+                    .deletedProductIds(List.of())
+                    .build();
+        }
+
+        long threshold = since - CHANGE_FEED_OVERLAP_MILLIS;
+        return CatalogChangesResponse.builder()
+                .version(Math.max(catalogVersion, since))
+                .fullResync(false)
+                .categories(categories.stream()
+                        .filter(category -> categoryChangedAt.getOrDefault(category.getId(), Long.MAX_VALUE) > threshold)
+                        .toList())
+                .products(products.stream()
+                        .filter(product -> productChangedAt.getOrDefault(product.getId(), Long.MAX_VALUE) > threshold)
+                        .toList())
+                .deletedCategoryIds(deletedIds(CatalogChangedEvent.EntityType.CATEGORY, threshold))
+                .deletedProductIds(deletedIds(CatalogChangedEvent.EntityType.PRODUCT, threshold))
+                .build();
+    }
+
+    /**
+     * Entity tag for {@link #changesSince} with the same {@code since}: the response depends
+     * on the version asked for as well as on the menu.
+     */
+    public String changesEtag(Long since) {
+        MessageDigest digest = newDigest();
+        update(digest, etag);
+        update(digest, String.valueOf(catalogVersion));
+        update(digest, needsFullResync(since) ? "full" : String.valueOf(since));
+        return toEtag(digest);
+    }
+
+    private boolean needsFullResync(Long since) {
+        return since == null || since - CHANGE_FEED_OVERLAP_MILLIS <= deletionHorizon;
+    }
+
+    private List<Long> deletedIds(CatalogChangedEvent.EntityType entityType, long threshold) {
+        return deletions.stream()
+                .filter(deletion -> deletion.entityType() == entityType && deletion.deletedAt() > threshold)
+                .map(Deletion::entityId)
+                .filter(id -> entityType == CatalogChangedEvent.EntityType.PRODUCT
+                        ? !productsById.containsKey(id) : !categoriesById.containsKey(id))
+                .distinct()
+                .toList();
+    }
+
+    private static long maxStamp(Iterable<Long> stamps) {
+        long max = 0L;
+        for (Long stamp : stamps) {
+            max = Math.max(max, stamp);
+        }
+        return max;
+    }
+
+    private static Map<Long, List<ProductResponse>> freeze(Map<Long, List<ProductResponse>> source) {
+        Map<Long, List<ProductResponse>> frozen = new LinkedHashMap<>();
+        source.forEach((key, value) -> frozen.put(key, List.copyOf(value)));
+        return Collections.unmodifiableMap(frozen);
+    }
+
+    private static String fingerprint(CategoryResponse category) {
+        return String.join("\u001f", "C", String.valueOf(category.getId()), category.getName(),
+                String.valueOf(category.getDescription()), String.valueOf(category.getProductCount()));
+    }
+
+    private static String fingerprint(ProductResponse product) {
+        return String.join("\u001f", "P", String.valueOf(product.getId()), product.getName(),
+                String.valueOf(product.getDescription()),
+                product.getPrice() != null ? product.getPrice().toPlainString() : "null",
+                String.valueOf(product.getImageUrl()), String.valueOf(product.getIsAvailable()),
+                String.valueOf(product.getCategoryId()), String.valueOf(product.getCategoryName()));
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0x1e);
+    }
+
+    private static String toEtag(MessageDigest digest) {
+        return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+    }
+
+    /**
+     * A deleted product or category, taken from its tombstone.
+     */
+    record Deletion(CatalogChangedEvent.EntityType entityType, Long entityId, long deletedAt) {
+    }
+}
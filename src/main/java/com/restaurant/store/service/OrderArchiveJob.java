@@ -0,0 +1,61 @@
+package com.restaurant.store.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Periodically archives COMPLETED and CANCELLED orders older than
+ * {@code order.archive.after-days}, in batches of {@code order.archive.batch-size} with one
+ * transaction each, up to {@code order.archive.max-batches} batches per run. Runs only with
+ * {@code order.archive.enabled=true}, which is off by default.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderArchiveJob {
+
+    private final OrderArchiver orderArchiver;
+
+    @Value("${order.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${order.archive.after-days:90}")
+    private int afterDays;
+
+    @Value("${order.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${order.archive.max-batches:20}")
+    private int maxBatches;
+
+    @Scheduled(fixedDelayString = "${order.archive.interval:3600000}", initialDelayString = "${order.archive.initial-delay:60000}")
+    public void archiveFinishedOrders() {
+        if (!enabled) {
+            return;
+        }
+
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+        int total = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            int archived;
+            try {
+                archived = orderArchiver.archiveBatch(cutoff, batchSize);
+            } catch (Exception e) {
+                log.error("Order archival stopped after {} orders", total, e);
+                return;
+            }
+            total += archived;
+            if (archived < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("Archived {} orders finished before {}", total, cutoff);
+        }
+    }
+}
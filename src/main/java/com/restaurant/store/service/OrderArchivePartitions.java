@@ -0,0 +1,94 @@
+package com.restaurant.store.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Optional PostgreSQL range partitioning of {@code order_archive} by {@code created_at}.
+ * <p>
+ * With {@code order.archive.postgres-partitioning=true} the archive table is (re)created as
+ * a partitioned table at startup, as long as it holds no rows yet, and a partition per
+ * month is added before orders of that month are archived. On other databases, or with the
+ * setting off, the archive is a plain table.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderArchivePartitions {
+
+    private static final String TABLE = "order_archive";
+    private static final String SCRIPT = "db/postgres/order_archive_partitioned.sql";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${order.archive.postgres-partitioning:false}")
+    private boolean partitioningEnabled;
+
+    private volatile boolean partitioned;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepare() {
+        if (!partitioningEnabled) {
+            return;
+        }
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equalsIgnoreCase(product)) {
+            log.info("Order archive partitioning needs PostgreSQL, {} found; using a plain archive table", product);
+            return;
+        }
+
+        List<String> kinds = jdbcTemplate.queryForList(
+                "SELECT c.relkind::text FROM pg_class c WHERE c.relname = ? AND pg_table_is_visible(c.oid)",
+                String.class, TABLE);
+        if (!kinds.isEmpty() && "p".equals(kinds.get(0))) {
+            partitioned = true;
+            return;
+        }
+        if (!kinds.isEmpty()) {
+            Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + TABLE, Long.class);
+            if (rows != null && rows > 0) {
+                log.warn("{} already holds {} rows and is not partitioned; leaving it as it is", TABLE, rows);
+                return;
+            }
+            jdbcTemplate.execute("DROP TABLE " + TABLE);
+        }
+
+        new ResourceDatabasePopulator(new ClassPathResource(SCRIPT)).execute(jdbcTemplate.getDataSource());
+        partitioned = true;
+        log.info("Created {} partitioned by created_at", TABLE);
+    }
+
+    /**
+     * Makes sure a partition exists for the month of each of {@code createdAts}.
+     */
+    public void ensurePartitions(Collection<LocalDateTime> createdAts) {
+        if (!partitioned) {
+            return;
+        }
+        TreeSet<YearMonth> months = new TreeSet<>();
+        createdAts.forEach(createdAt -> months.add(YearMonth.from(createdAt)));
+        for (YearMonth month : months) {
+            LocalDate from = month.atDay(1);
+            LocalDate to = month.plusMonths(1).atDay(1);
+            jdbcTemplate.execute(String.format(
+                    "CREATE TABLE IF NOT EXISTS %s_p%04d%02d PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+                    TABLE, month.getYear(), month.getMonthValue(), TABLE, from, to));
+        }
+    }
+}
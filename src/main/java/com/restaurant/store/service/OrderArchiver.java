@@ -0,0 +1,209 @@
+package com.restaurant.store.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.store.dto.response.DeliveryResponse;
+import com.restaurant.store.dto.response.OrderItemResponse;
+import com.restaurant.store.dto.response.OrderResponse;
+import com.restaurant.store.dto.response.PickupResponse;
+import com.restaurant.store.entity.AdminOutboxMessage;
+import com.restaurant.store.entity.ArchivedOrder;
+import com.restaurant.store.entity.Order;
+import com.restaurant.store.entity.OrderStatus;
+import com.restaurant.store.entity.OrderType;
+import com.restaurant.store.event.OrderChangedEvent;
+import com.restaurant.store.exception.BadRequestException;
+import com.restaurant.store.exception.ResourceNotFoundException;
+import com.restaurant.store.repository.AdminOutboxMessageRepository;
+import com.restaurant.store.repository.ArchivedOrderRepository;
+import com.restaurant.store.repository.DeliveryRepository;
+import com.restaurant.store.repository.OrderItemRepository;
+import com.restaurant.store.repository.OrderRepository;
+import com.restaurant.store.repository.PaymentRepository;
+import com.restaurant.store.repository.PickupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Moves finished orders from the hot tables into {@code order_archive}.
+ * <p>
+ * A batch snapshots each order (with its items, payments, delivery and pickup) into one
+ * archive row and deletes it from {@code orders}, {@code order_items}, {@code payments},
+ * {@code deliveries} and {@code pickups}, all in one transaction, so an order is always in
+ * exactly one of the two places. Only COMPLETED and CANCELLED orders are archived, as
+ * nothing changes an order once it is in either; reads of a single order that miss the hot
+ * tables fall back to the archive through {@link #getForCustomer}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderArchiver {
+
+    static final Set<OrderStatus> ARCHIVABLE_STATUSES = EnumSet.of(OrderStatus.COMPLETED, OrderStatus.CANCELLED);
+
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final PaymentRepository paymentRepository;
+    private final DeliveryRepository deliveryRepository;
+    private final PickupRepository pickupRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final AdminOutboxMessageRepository adminOutboxMessageRepository;
+    private final OrderHistoryLoader orderHistoryLoader;
+    private final OrderArchivePartitions orderArchivePartitions;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Archives up to {@code batchSize} of the oldest finished orders created before
+     * {@code cutoff}. Returns how many were archived.
+     */
+    @Transactional
+    public int archiveBatch(LocalDateTime cutoff, int batchSize) {
+        List<Long> orderIds = orderRepository.findArchivableIds(
+                ARCHIVABLE_STATUSES, cutoff, AdminOutboxMessage.Status.PENDING, PageRequest.of(0, batchSize));
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+
+        List<Order> orders = orderRepository.findAllById(orderIds);
+        List<OrderResponse> responses = orderHistoryLoader.load(orders);
+        LocalDateTime now = LocalDateTime.now();
+
+        List<ArchivedOrder> archived = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            archived.add(toArchivedOrder(orders.get(i), responses.get(i), now));
+        }
+        orderArchivePartitions.ensurePartitions(archived.stream().map(ArchivedOrder::getCreatedAt).toList());
+        archivedOrderRepository.saveAll(archived);
+        archivedOrderRepository.flush();
+
+        orderItemRepository.deleteByOrderIdIn(orderIds);
+        paymentRepository.deleteByOrderIdIn(orderIds);
+        deliveryRepository.deleteByOrderIdIn(orderIds);
+        pickupRepository.deleteByOrderIdIn(orderIds);
+        // Only orders with nothing left to send are archived; what was sent is no longer needed
+        adminOutboxMessageRepository.deleteFinishedByOrderIdIn(orderIds, AdminOutboxMessage.Status.PENDING);
+        orderRepository.deleteByIdIn(orderIds);
+
+        // Bulk deletes bypass the entity listeners
+        orderIds.forEach(orderId -> eventPublisher.publishEvent(new OrderChangedEvent(orderId)));
+        log.debug("Archived {} orders", orderIds.size());
+        return orderIds.size();
+    }
+
+    /**
+     * The archived order, if it belongs to the customer.
+     *
+     * @throws ResourceNotFoundException if it is not archived either
+     * @throws BadRequestException if it belongs to another customer
+     */
+    @Transactional(readOnly = true)
+    public ArchivedOrder getForCustomer(Long orderId, Long customerId) {
+        ArchivedOrder archivedOrder = archivedOrderRepository.findById(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
+        if (!archivedOrder.getCustomerId().equals(customerId)) {
+            throw new BadRequestException("Order does not belong to current customer");
+        }
+        return archivedOrder;
+    }
+
+    /**
+     * The archived order, if it belongs to the customer with that email.
+     *
+     * @throws ResourceNotFoundException if it is not archived either
+     * @throws BadRequestException if it belongs to another customer
+     */
+    @Transactional(readOnly = true)
+    public ArchivedOrder getForCustomer(Long orderId, String email) {
+        return archivedOrderRepository.findByIdAndCustomerEmail(orderId, email)
+                .orElseThrow(() -> archivedOrderRepository.existsById(orderId)
+                        ? new BadRequestException("Order does not belong to current customer")
+                        : new ResourceNotFoundException("Order not found with id: " + orderId));
+    }
+
+    /**
+     * The order as it was when it was archived.
+     */
+    public OrderResponse toResponse(ArchivedOrder archivedOrder) {
+        try {
+            return objectMapper.readValue(archivedOrder.getSnapshot(), OrderResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable snapshot of archived order " + archivedOrder.getId(), e);
+        }
+    }
+
+    /**
+     * The delivery of an archived order, from the fields its snapshot keeps.
+     */
+    public DeliveryResponse toDeliveryResponse(ArchivedOrder archivedOrder) {
+        OrderResponse order = toResponse(archivedOrder);
+        if (order.getDeliveryStatus() == null) {
+            throw new ResourceNotFoundException("Delivery not found for order id: " + archivedOrder.getId());
+        }
+        return DeliveryResponse.builder()
+                .orderId(order.getId())
+                .driverName(order.getDeliveryDriverName())
+                .driverPhone(order.getDeliveryDriverPhone())
+                .status(order.getDeliveryStatus())
+                .estimatedArrivalTime(order.getDeliveryEstimatedArrivalTime())
+                .actualDeliveryTime(order.getDeliveryActualDeliveryTime())
+                .latitude(order.getDeliveryLatitude())
+                .longitude(order.getDeliveryLongitude())
+                .build();
+    }
+
+    /**
+     * The pickup details of an archived order, from the fields its snapshot keeps.
+     */
+    public PickupResponse toPickupResponse(ArchivedOrder archivedOrder) {
+        if (archivedOrder.getOrderType() != OrderType.PICKUP) {
+            throw new BadRequestException("Order is not a pickup order");
+        }
+        OrderResponse order = toResponse(archivedOrder);
+        if (order.getPickupStatus() == null) {
+            throw new ResourceNotFoundException("Pickup details not found for order id: " + archivedOrder.getId());
+        }
+        return PickupResponse.builder()
+                .orderId(order.getId())
+                .pickupCode(order.getPickupCode())
+                .status(order.getPickupStatus())
+                .readyAt(order.getPickupReadyAt())
+                .windowStart(order.getPickupWindowStart())
+                .windowEnd(order.getPickupWindowEnd())
+                .pickedUpAt(order.getPickupPickedUpAt())
+                .instructions(order.getPickupInstructions())
+                .build();
+    }
+
+    private ArchivedOrder toArchivedOrder(Order order, OrderResponse response, LocalDateTime archivedAt) {
+        ArchivedOrder archivedOrder = new ArchivedOrder();
+        archivedOrder.setId(order.getId());
+        archivedOrder.setCustomerId(order.getCustomer().getId());
+        archivedOrder.setStatus(order.getStatus());
+        archivedOrder.setOrderType(order.getOrderType());
+        archivedOrder.setTotalPrice(order.getTotalPrice());
+        archivedOrder.setItemCount(response.getOrderItems().stream()
+                .mapToLong(OrderItemResponse::getQuantity)
+                .sum());
+        archivedOrder.setExternalId(order.getExternalId());
+        archivedOrder.setCreatedAt(order.getCreatedAt());
+        archivedOrder.setUpdatedAt(order.getUpdatedAt());
+        archivedOrder.setArchivedAt(archivedAt);
+        try {
+            archivedOrder.setSnapshot(objectMapper.writeValueAsString(response));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to snapshot order " + order.getId(), e);
+        }
+        return archivedOrder;
+    }
+}
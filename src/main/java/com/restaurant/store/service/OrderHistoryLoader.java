@@ -0,0 +1,90 @@
+package com.restaurant.store.service;
+
+import com.restaurant.store.dto.response.OrderResponse;
+import com.restaurant.store.entity.*;
+import com.restaurant.store.mapper.OrderMapper;
+import com.restaurant.store.repository.DeliveryRepository;
+import com.restaurant.store.repository.OrderItemRepository;
+import com.restaurant.store.repository.PaymentRepository;
+import com.restaurant.store.repository.PickupRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the responses for a list of orders with a fixed number of queries.
+ * <p>
+ * Items (with their products), payments, deliveries and pickups are each read with one
+ * {@code IN} query per chunk of orders and grouped by order id in memory, instead of four
+ * lookups per order.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderHistoryLoader {
+
+    /**
+     * Upper bound on the ids bound into one {@code IN} list.
+     */
+    static final int CHUNK_SIZE = 500;
+
+    private final OrderItemRepository orderItemRepository;
+    private final PaymentRepository paymentRepository;
+    private final DeliveryRepository deliveryRepository;
+    private final PickupRepository pickupRepository;
+    private final OrderMapper orderMapper;
+
+    /**
+     * Responses for {@code orders}, in the same order.
+     */
+    @Transactional(readOnly = true)
+    public List<OrderResponse> load(List<Order> orders) {
+        List<OrderResponse> responses = new ArrayList<>(orders.size());
+        for (int from = 0; from < orders.size(); from += CHUNK_SIZE) {
+            responses.addAll(loadChunk(orders.subList(from, Math.min(from + CHUNK_SIZE, orders.size()))));
+        }
+        return responses;
+    }
+
+    private List<OrderResponse> loadChunk(List<Order> orders) {
+        List<Long> orderIds = orders.stream().map(Order::getId).toList();
+
+        Map<Long, List<OrderItem>> itemsByOrder = new HashMap<>();
+        for (OrderItem item : orderItemRepository.findWithProductByOrderIdIn(orderIds)) {
+            itemsByOrder.computeIfAbsent(item.getOrder().getId(), id -> new ArrayList<>()).add(item);
+        }
+
+        Map<Long, List<Payment>> paymentsByOrder = new HashMap<>();
+        for (Payment payment : paymentRepository.findByOrderIdIn(orderIds)) {
+            paymentsByOrder.computeIfAbsent(payment.getOrder().getId(), id -> new ArrayList<>()).add(payment);
+        }
+
+        Map<Long, Delivery> deliveryByOrder = new HashMap<>();
+        for (Delivery delivery : deliveryRepository.findByOrderIdIn(orderIds)) {
+            deliveryByOrder.put(delivery.getOrder().getId(), delivery);
+        }
+
+        Map<Long, Pickup> pickupByOrder = new HashMap<>();
+        List<Long> pickupOrderIds = orders.stream()
+                .filter(order -> order.getOrderType() == OrderType.PICKUP)
+                .map(Order::getId)
+                .toList();
+        if (!pickupOrderIds.isEmpty()) {
+            for (Pickup pickup : pickupRepository.findByOrderIdIn(pickupOrderIds)) {
+                pickupByOrder.put(pickup.getOrder().getId(), pickup);
+            }
+        }
+
+        return orders.stream()
+                .map(order -> orderMapper.toResponse(order,
+                        itemsByOrder.getOrDefault(order.getId(), List.of()),
+                        paymentsByOrder.getOrDefault(order.getId(), List.of()),
+                        deliveryByOrder.get(order.getId()),
+                        pickupByOrder.get(order.getId())))
+                .toList();
+    }
+}
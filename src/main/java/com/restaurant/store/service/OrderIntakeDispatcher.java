@@ -0,0 +1,114 @@
+package com.restaurant.store.service;
+
+import com.restaurant.store.controller.api.OrderStatusWebSocketController;
+import com.restaurant.store.dto.response.OrderIntakeResponse;
+import com.restaurant.store.entity.OrderIntakeTicket;
+import com.restaurant.store.repository.OrderIntakeTicketRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Drains the {@link OrderIntakeService} queue.
+ * <p>
+ * Each run takes at most {@code order.intake.batch-size} of the oldest tickets and spreads
+ * them over {@code order.intake.workers} threads, so order creation proceeds at a bounded
+ * rate however many requests arrive. The outcome of every ticket is pushed on
+ * {@code /topic/orders/intake/{ticketId}}. Processed tickets can be polled for
+ * {@code order.intake.retention-hours} and are deleted after that.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderIntakeDispatcher {
+
+    private final OrderIntakeService orderIntakeService;
+    private final OrderIntakeTicketRepository ticketRepository;
+    private final OrderStatusWebSocketController webSocketController;
+
+    @Value("${order.intake.workers:4}")
+    private int workerCount;
+
+    @Value("${order.intake.batch-size:20}")
+    private int batchSize;
+
+    @Value("${order.intake.retention-hours:24}")
+    private int retentionHours;
+
+    private ExecutorService workers;
+
+    @PostConstruct
+    void startWorkers() {
+        workers = Executors.newFixedThreadPool(workerCount, new CustomizableThreadFactory("order-intake-"));
+    }
+
+    @PreDestroy
+    void stopWorkers() {
+        workers.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${order.intake.interval:200}")
+    public void drain() {
+        if (!orderIntakeService.isEnabled()) {
+            return;
+        }
+
+        List<Long> ticketIds = ticketRepository.findDueIds(
+                OrderIntakeTicket.Status.QUEUED, LocalDateTime.now(), PageRequest.of(0, batchSize));
+        if (ticketIds.isEmpty()) {
+            return;
+        }
+
+        log.debug("Processing {} order intake tickets", ticketIds.size());
+        List<Callable<Void>> tasks = ticketIds.stream()
+                .map(ticketId -> (Callable<Void>) () -> {
+                    processTicket(ticketId);
+                    return null;
+                })
+                .toList();
+        try {
+            workers.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.intake.prune-interval:3600000}",
+            initialDelayString = "${order.intake.prune-interval:3600000}")
+    public void pruneProcessed() {
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(retentionHours);
+        int pruned = ticketRepository.deleteProcessedBefore(OrderIntakeTicket.Status.QUEUED, cutoff);
+        if (pruned > 0) {
+            log.info("Pruned {} order intake tickets processed before {}", pruned, cutoff);
+        }
+    }
+
+    private void processTicket(Long ticketId) {
+        Optional<OrderIntakeResponse> outcome;
+        try {
+            outcome = orderIntakeService.process(ticketId);
+        } catch (Exception e) {
+            try {
+                outcome = orderIntakeService.recordFailure(ticketId, e);
+            } catch (Exception failError) {
+                // Left queued; the next run picks it up again
+                log.error("Unable to record failure of order intake ticket {}", ticketId, failError);
+                return;
+            }
+        }
+        outcome.ifPresent(response -> webSocketController.sendOrderIntakeUpdate(ticketId, response));
+    }
+}
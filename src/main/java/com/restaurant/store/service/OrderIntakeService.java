@@ -0,0 +1,200 @@
+package com.restaurant.store.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.store.dto.request.CreateOrderRequest;
+import com.restaurant.store.dto.response.OrderIntakeResponse;
+import com.restaurant.store.dto.response.OrderResponse;
+import com.restaurant.store.entity.Customer;
+import com.restaurant.store.entity.OrderIntakeTicket;
+import com.restaurant.store.exception.BadRequestException;
+import com.restaurant.store.exception.ConflictException;
+import com.restaurant.store.exception.ResourceNotFoundException;
+import com.restaurant.store.exception.ServiceUnavailableException;
+import com.restaurant.store.repository.CustomerRepository;
+import com.restaurant.store.repository.OrderIntakeTicketRepository;
+import com.restaurant.store.security.JwtUtil;
+import jakarta.validation.ConstraintViolationException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Async intake mode for order creation.
+ * <p>
+ * When {@code order.intake.async.enabled} is set, a validated order request is stored as a
+ * ticket in the {@code order_intake} table and answered with 202 right away, instead of
+ * holding the request thread and a connection for the whole create pipeline.
+ * {@link OrderIntakeDispatcher} turns tickets into orders in the background. The queue is
+ * bounded by {@code order.intake.capacity}; beyond it new requests are refused with 503 and
+ * {@code Retry-After}, and every ticket response carries the current queue depth.
+ * <p>
+ * A ticket whose order is rejected (unknown or unavailable product, invalid request) fails
+ * right away. Any other error, such as the database being unreachable, leaves it queued and
+ * it is tried again after an exponential backoff, at most {@code order.intake.max-attempts}
+ * times.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderIntakeService {
+
+    private static final Duration INITIAL_BACKOFF = Duration.ofSeconds(1);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(1);
+
+    private final OrderIntakeTicketRepository ticketRepository;
+    private final OrderService orderService;
+    private final CustomerRepository customerRepository;
+    private final JwtUtil jwtUtil;
+    private final ObjectMapper objectMapper;
+
+    @Value("${order.intake.async.enabled:false}")
+    private boolean enabled;
+
+    @Value("${order.intake.capacity:1000}")
+    private int capacity;
+
+    @Value("${order.intake.retry-after-seconds:5}")
+    private long retryAfterSeconds;
+
+    @Value("${order.intake.max-attempts:5}")
+    private int maxAttempts;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Transactional
+    public OrderIntakeResponse submit(CreateOrderRequest request, String token) {
+        Customer customer = getCustomerFromToken(token);
+
+        long depth = ticketRepository.countByStatus(OrderIntakeTicket.Status.QUEUED);
+        if (depth >= capacity) {
+            throw new ServiceUnavailableException(
+                    "We're receiving a lot of orders right now. Please try again in a few seconds.",
+                    retryAfterSeconds);
+        }
+
+        OrderIntakeTicket ticket = ticketRepository.save(new OrderIntakeTicket(customer.getId(), toJson(request)));
+        log.debug("Queued order request of customer {} as intake ticket {}", customer.getId(), ticket.getId());
+        return toResponse(ticket, depth, depth + 1);
+    }
+
+    @Transactional(readOnly = true)
+    public OrderIntakeResponse getTicket(Long ticketId, String token) {
+        Customer customer = getCustomerFromToken(token);
+        OrderIntakeTicket ticket = ticketRepository.findByIdAndCustomerId(ticketId, customer.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("Order intake ticket not found with id: " + ticketId));
+        return toResponse(ticket);
+    }
+
+    /**
+     * Creates the order for a queued ticket, in one transaction with marking it completed.
+     * Empty if another worker already processed it. If order creation fails the transaction
+     * rolls back and the caller is expected to pass the error to {@link #recordFailure}.
+     */
+    @Transactional
+    public Optional<OrderIntakeResponse> process(Long ticketId) {
+        Optional<OrderIntakeTicket> found = ticketRepository.findForUpdate(ticketId);
+        if (found.isEmpty() || found.get().getStatus() != OrderIntakeTicket.Status.QUEUED) {
+            return Optional.empty();
+        }
+        OrderIntakeTicket ticket = found.get();
+
+        OrderResponse order = orderService.createOrderForCustomer(fromJson(ticket.getPayload()), ticket.getCustomerId());
+        ticketRepository.finishQueued(ticketId, OrderIntakeTicket.Status.COMPLETED, order.getId(), null, LocalDateTime.now());
+        return ticketRepository.findById(ticketId).map(this::toResponse);
+    }
+
+    /**
+     * Records a failed attempt at a queued ticket: a rejected order fails the ticket, any
+     * other error schedules another attempt until the attempts run out. Returns the ticket
+     * once it has failed for good, empty while it stays queued.
+     */
+    @Transactional
+    public Optional<OrderIntakeResponse> recordFailure(Long ticketId, Exception error) {
+        Optional<OrderIntakeTicket> found = ticketRepository.findForUpdate(ticketId);
+        if (found.isEmpty() || found.get().getStatus() != OrderIntakeTicket.Status.QUEUED) {
+            return Optional.empty();
+        }
+        OrderIntakeTicket ticket = found.get();
+
+        String reason = error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+        ticket.setAttempts(ticket.getAttempts() + 1);
+        ticket.setError(reason.length() > 500 ? reason.substring(0, 500) : reason);
+        LocalDateTime now = LocalDateTime.now();
+        if (isRejection(error) || ticket.getAttempts() >= maxAttempts) {
+            ticket.setStatus(OrderIntakeTicket.Status.FAILED);
+            ticket.setProcessedAt(now);
+            ticket.setNextAttemptAt(null);
+            log.warn("Order intake ticket {} failed after {} attempt(s): {}", ticketId, ticket.getAttempts(), reason);
+            return Optional.of(toResponse(ticket));
+        }
+
+        Duration backoff = INITIAL_BACKOFF.multipliedBy(1L << Math.min(ticket.getAttempts() - 1, 20));
+        ticket.setNextAttemptAt(now.plus(backoff.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff));
+        log.warn("Order intake ticket {} failed (attempt {}), retrying at {}: {}",
+                ticketId, ticket.getAttempts(), ticket.getNextAttemptAt(), reason);
+        return Optional.empty();
+    }
+
+    /**
+     * Errors that mean the order request itself cannot be fulfilled, so retrying is pointless.
+     */
+    private static boolean isRejection(Exception error) {
+        return error instanceof BadRequestException
+                || error instanceof ResourceNotFoundException
+                || error instanceof ConflictException
+                || error instanceof ConstraintViolationException;
+    }
+
+    private OrderIntakeResponse toResponse(OrderIntakeTicket ticket) {
+        long depth = ticketRepository.countByStatus(OrderIntakeTicket.Status.QUEUED);
+        Long position = ticket.getStatus() == OrderIntakeTicket.Status.QUEUED
+                ? ticketRepository.countByStatusAndIdLessThan(OrderIntakeTicket.Status.QUEUED, ticket.getId())
+                : null;
+        return toResponse(ticket, position, depth);
+    }
+
+    private OrderIntakeResponse toResponse(OrderIntakeTicket ticket, Long queuePosition, long queueDepth) {
+        return OrderIntakeResponse.builder()
+                .ticketId(ticket.getId())
+                .status(ticket.getStatus())
+                .orderId(ticket.getOrderId())
+                .error(ticket.getError())
+                .queuePosition(queuePosition)
+                .queueDepth(queueDepth)
+                .queueCapacity(capacity)
+                .createdAt(ticket.getCreatedAt())
+                .processedAt(ticket.getProcessedAt())
+                .build();
+    }
+
+    private String toJson(CreateOrderRequest request) {
+        try {
+            return objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to queue order request", e);
+        }
+    }
+
+    private CreateOrderRequest fromJson(String payload) {
+        try {
+            return objectMapper.readValue(payload, CreateOrderRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Unable to read queued order request");
+        }
+    }
+
+    private Customer getCustomerFromToken(String token) {
+        String email = jwtUtil.extractUsername(token.substring(7));
+        return customerRepository.findByEmail(email)
+                .orElseThrow(() -> new ResourceNotFoundException("Customer not found"));
+    }
+}
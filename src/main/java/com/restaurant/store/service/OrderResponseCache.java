@@ -0,0 +1,185 @@
+package com.restaurant.store.service;
+
+import com.restaurant.store.dto.response.OrderItemResponse;
+import com.restaurant.store.dto.response.OrderResponse;
+import com.restaurant.store.entity.Order;
+import com.restaurant.store.event.OrderChangedEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Assembled {@link OrderResponse}s, shared by the customer read endpoints, the order pages
+ * and the status broadcasts, so an order is put together once per change rather than once
+ * per request.
+ * <p>
+ * An entry is only used while the order's {@code updatedAt} still matches the one it was
+ * built from. Changes to payments, deliveries, pickups and items move it forward too, in
+ * their own transaction ({@link OrderUpdateStamper}), so that check alone keeps entries
+ * correct when orders are changed by another instance. Changes made through this instance
+ * also evict the order's entry, once when the change is flushed and again when its
+ * transaction completes, which frees the memory early. A response is only stored if its
+ * order was not evicted while it was being built; other orders are unaffected.
+ * <p>
+ * The cache keeps the {@value #MAX_ENTRIES} most recently used orders. Callers get their
+ * own copy of the response and may modify it.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderResponseCache {
+
+    static final int MAX_ENTRIES = 10_000;
+
+    private static final Object CHANGED_IN_TRANSACTION = new Object();
+
+    private final OrderHistoryLoader orderHistoryLoader;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final AtomicLong versions = new AtomicLong();
+    private final Map<Long, Entry> entries = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /**
+     * Response for an already loaded order. Inside a writing transaction, an order that
+     * transaction has changed is built fresh and not cached, as the response would include
+     * changes that are not committed.
+     */
+    public OrderResponse get(Order order) {
+        if (order == null) {
+            return null;
+        }
+        Long orderId = order.getId();
+        if (changedInCurrentTransaction(orderId)) {
+            return build(order);
+        }
+
+        long version;
+        synchronized (entries) {
+            Entry entry = entries.get(orderId);
+            if (entry != null && entry.response() != null && Objects.equals(entry.updatedAt(), order.getUpdatedAt())) {
+                return copy(entry.response());
+            }
+            // Reserve the slot; an eviction while building removes it and the result is not kept
+            version = versions.incrementAndGet();
+            entries.put(orderId, new Entry(version, order.getUpdatedAt(), null));
+        }
+
+        OrderResponse response = build(order);
+        synchronized (entries) {
+            Entry reserved = entries.get(orderId);
+            if (reserved != null && reserved.version() == version) {
+                entries.put(orderId, new Entry(version, order.getUpdatedAt(), response));
+            }
+        }
+        return copy(response);
+    }
+
+    @EventListener
+    public void onOrderChanged(OrderChangedEvent event) {
+        rememberChange(event.getOrderId());
+        evict(event.getOrderId());
+    }
+
+    /**
+     * Evicts again once the writing transaction finishes, so a response built by another
+     * thread before the commit (or from data that was rolled back) is not kept.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void onOrderChangeCompleted(OrderChangedEvent event) {
+        evict(event.getOrderId());
+    }
+
+    private void evict(Long orderId) {
+        synchronized (entries) {
+            entries.remove(orderId);
+        }
+    }
+
+    /**
+     * Whether the current writing transaction has changed the order. Pending changes are
+     * flushed first so the entity listener reports them.
+     */
+    private boolean changedInCurrentTransaction(Long orderId) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return false;
+        }
+        if (entityManager.isJoinedToTransaction()) {
+            entityManager.flush();
+        }
+        Object changed = TransactionSynchronizationManager.getResource(CHANGED_IN_TRANSACTION);
+        return changed instanceof Set<?> orderIds && orderIds.contains(orderId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void rememberChange(Long orderId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Set<Long> orderIds = (Set<Long>) TransactionSynchronizationManager.getResource(CHANGED_IN_TRANSACTION);
+        if (orderIds == null) {
+            Set<Long> bound = new HashSet<>();
+            TransactionSynchronizationManager.bindResource(CHANGED_IN_TRANSACTION, bound);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CHANGED_IN_TRANSACTION);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(CHANGED_IN_TRANSACTION, bound);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(CHANGED_IN_TRANSACTION);
+                }
+            });
+            orderIds = bound;
+        }
+        orderIds.add(orderId);
+    }
+
+    private OrderResponse build(Order order) {
+        return orderHistoryLoader.load(List.of(order)).get(0);
+    }
+
+    private static OrderResponse copy(OrderResponse response) {
+        List<OrderItemResponse> items = response.getOrderItems();
+        return response.toBuilder()
+                .orderItems(items == null ? null : items.stream()
+                        .map(item -> item.toBuilder().build())
+                        .collect(Collectors.toCollection(ArrayList::new)))
+                .build();
+    }
+
+    /**
+     * A cached response, or a reservation ({@code response == null}) while one is built.
+     */
+    private record Entry(long version, LocalDateTime updatedAt, OrderResponse response) {
+    }
+}
@@ -0,0 +1,90 @@
+package com.restaurant.store.service;
+
+import com.restaurant.store.dto.request.OrderSearchRequest;
+import com.restaurant.store.dto.response.OrderSearchItemResponse;
+import com.restaurant.store.dto.response.OrderSearchPageResponse;
+import com.restaurant.store.exception.BadRequestException;
+import com.restaurant.store.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Order search for the Admin backend and operational dashboards.
+ * <p>
+ * Pages are read with keyset pagination on {@code (created_at, id)}: the cursor carries the
+ * position of the last row, so every page is one bounded index range scan, however deep
+ * the client has paged.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderSearchService {
+
+    static final int DEFAULT_LIMIT = 50;
+    static final int MAX_LIMIT = 200;
+
+    private final OrderRepository orderRepository;
+
+    @Transactional(readOnly = true)
+    public OrderSearchPageResponse search(OrderSearchRequest request) {
+        int limit = request.getLimit() == null ? DEFAULT_LIMIT : request.getLimit();
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        if (request.getCreatedFrom() != null && request.getCreatedTo() != null
+                && !request.getCreatedFrom().isBefore(request.getCreatedTo())) {
+            throw new BadRequestException("createdFrom must be before createdTo");
+        }
+
+        LocalDateTime beforeCreatedAt = null;
+        Long beforeId = null;
+        if (request.getCursor() != null && !request.getCursor().isBlank()) {
+            Cursor cursor = Cursor.decode(request.getCursor());
+            beforeCreatedAt = cursor.createdAt();
+            beforeId = cursor.id();
+        }
+
+        // One extra row tells whether there is another page
+        List<OrderSearchItemResponse> rows = orderRepository.search(request, beforeCreatedAt, beforeId, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        List<OrderSearchItemResponse> items = hasMore ? rows.subList(0, limit) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            OrderSearchItemResponse last = items.get(items.size() - 1);
+            nextCursor = new Cursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        return OrderSearchPageResponse.builder()
+                .items(items)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .limit(limit)
+                .build();
+    }
+
+    private record Cursor(LocalDateTime createdAt, Long id) {
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String value) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                throw new BadRequestException("Invalid cursor");
+            }
+        }
+    }
+}
@@ -4,20 +4,26 @@ import com.restaurant.store.controller.api.OrderStatusWebSocketController;
 import com.restaurant.store.dto.request.CreateOrderRequest;
 import com.restaurant.store.dto.request.OrderItemRequest;
 import com.restaurant.store.dto.request.PaymentRequest;
-import com.restaurant.store.dto.response.CartItemResponse;
-import com.restaurant.store.dto.response.CartResponse;
+import com.restaurant.store.dto.response.OrderHistoryPageResponse;
+import com.restaurant.store.dto.response.OrderItemResponse;
 import com.restaurant.store.dto.response.OrderResponse;
 import com.restaurant.store.dto.response.OrderStatusMessage;
+import com.restaurant.store.dto.response.OrderSummaryResponse;
+import com.restaurant.store.dto.response.ProductResponse;
 import com.restaurant.store.entity.*;
 import com.restaurant.store.exception.BadRequestException;
+import com.restaurant.store.exception.ConflictException;
 import com.restaurant.store.exception.ResourceNotFoundException;
-import com.restaurant.store.integration.AdminIntegrationService;
+import com.restaurant.store.integration.AdminSyncOutbox;
+import com.restaurant.store.mapper.OrderItemMapper;
 import com.restaurant.store.mapper.OrderMapper;
 import com.restaurant.store.repository.*;
 import com.restaurant.store.security.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -35,20 +41,29 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
     private final ProductRepository productRepository;
-    private final CategoryRepository categoryRepository;
     private final CustomerRepository customerRepository;
     private final PaymentRepository paymentRepository;
     private final DeliveryRepository deliveryRepository;
     private final PickupRepository pickupRepository;
     private final JwtUtil jwtUtil;
     private final OrderMapper orderMapper;
+    private final OrderItemMapper orderItemMapper;
     private final PaymentService paymentService;
-    private final AdminIntegrationService adminIntegrationService;
-    private final CartService cartService;
+    private final AdminSyncOutbox adminSyncOutbox;
+    private final CartItemRepository cartItemRepository;
+    private final CartStore cartStore;
+    private final CartCheckoutService cartCheckoutService;
     private final OrderStatusWebSocketController orderStatusWebSocketController;
+    private final MenuCatalogService menuCatalogService;
+    private final OrderHistoryLoader orderHistoryLoader;
+    private final OrderResponseCache orderResponseCache;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final OrderArchiver orderArchiver;
     @Value("${admin.api.websocket.bridge.enabled:false}")
     private boolean adminWebsocketBridgeEnabled;
 
+    public static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private static final EnumSet<PaymentStatus> REUSABLE_PAYMENT_STATUSES =
             EnumSet.of(PaymentStatus.PENDING, PaymentStatus.PROCESSING);
     private static final Duration DEFAULT_PREPARATION_DURATION = Duration.ofMinutes(30);
@@ -69,28 +84,38 @@ public class OrderService {
     }
 
     private OrderResponse createOrderInternal(CreateOrderRequest request, Customer customer) {
-        // Validate and calculate total price
+        // Validate and calculate total price from the menu; products are attached by
+        // reference and not read, and the menu supplies their names for the response
         BigDecimal totalPrice = BigDecimal.ZERO;
         List<OrderItem> orderItems = new ArrayList<>();
-        List<OrderItemRequest> requestedItems = resolveOrderItems(request, customer);
+        List<ProductResponse> orderedProducts = new ArrayList<>();
+        boolean fromCart = request.getOrderItems() == null || request.getOrderItems().isEmpty();
+        List<OrderItemRequest> requestedItems = fromCart ? readCartLines(customer) : request.getOrderItems();
+        MenuSnapshot menu = menuCatalogService.snapshot();
+        ProductHotTable hotTable = menu.getHotTable();
 
         for (OrderItemRequest itemRequest : requestedItems) {
-            Product product = productRepository.findById(itemRequest.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + itemRequest.getProductId()));
+            Long productId = itemRequest.getProductId();
+            ProductResponse product = menu.findProduct(productId);
+            if (product == null || !hotTable.contains(productId)) {
+                throw new ResourceNotFoundException("Product not found with id: " + productId);
+            }
 
-            if (!product.getIsAvailable()) {
+            if (!hotTable.isAvailable(productId)) {
                 throw new BadRequestException("Product " + product.getName() + " is not available");
             }
 
-            BigDecimal itemTotal = product.getPrice().multiply(BigDecimal.valueOf(itemRequest.getQuantity()));
+            BigDecimal price = hotTable.price(productId);
+            BigDecimal itemTotal = price.multiply(BigDecimal.valueOf(itemRequest.getQuantity()));
             totalPrice = totalPrice.add(itemTotal);
 
             OrderItem orderItem = new OrderItem();
-            orderItem.setProduct(product);
+            orderItem.setProduct(productRepository.getReferenceById(productId));
             orderItem.setQuantity(itemRequest.getQuantity());
-            orderItem.setPrice(product.getPrice());
+            orderItem.setPrice(price);
             orderItem.setSpecialInstructions(itemRequest.getSpecialInstructions());
             orderItems.add(orderItem);
+            orderedProducts.add(product);
         }
 
         // Create order
@@ -107,19 +132,31 @@ public class OrderService {
         order.setSpecialInstructions(request.getSpecialInstructions());
         order.setStatus(OrderStatus.PENDING);
         order.setEstimatedDeliveryTime(LocalDateTime.now().plus(DEFAULT_PREPARATION_DURATION));
+        // The cart gets its lines back if the order is given up unpaid, see CartCheckoutService
+        order.setCartRestorable(fromCart);
 
         order = orderRepository.save(order);
 
-        // Link order items to order
+        // Link order items to order; saved together as one JDBC batch
         for (OrderItem item : orderItems) {
             item.setOrder(order);
         }
         orderItemRepository.saveAll(orderItems);
+        try {
+            // Written now, so a product deleted since the menu was read fails the order here
+            orderItemRepository.flush();
+        } catch (DataIntegrityViolationException e) {
+            throw new ResourceNotFoundException("A product of this order is no longer on the menu");
+        }
+        if (fromCart) {
+            emptyCheckedOutCart(customer, requestedItems.size());
+        }
 
         // Create delivery or pickup record depending on order type
+        Delivery delivery = null;
         Pickup pickup = null;
         if (request.getOrderType() == OrderType.DELIVERY) {
-            Delivery delivery = new Delivery();
+            delivery = new Delivery();
             delivery.setOrder(order);
             delivery.setDeliveryAddress(request.getDeliveryAddress());
             delivery.setPhoneNumber(request.getPhoneNumber());
@@ -129,15 +166,20 @@ public class OrderService {
             }
             delivery.setStatus(DeliveryStatus.PENDING);
             delivery.setEstimatedDeliveryTime(order.getEstimatedDeliveryTime());
-            deliveryRepository.save(delivery);
+            delivery = deliveryRepository.save(delivery);
         } else if (request.getOrderType() == OrderType.PICKUP) {
             pickup = createPickupRecord(order, request, customer);
         }
 
-        List<OrderItem> persistedItems = orderItemRepository.findByOrderId(order.getId());
-        ensureProductsSyncedWithAdmin(persistedItems);
-        syncOrderWithAdmin(order, persistedItems);
-        OrderResponse response = buildOrderResponse(order, persistedItems);
+        // Pushed to the Admin backend after commit, see AdminSyncOutbox
+        adminSyncOutbox.orderCreated(order);
+        // A new order has no payments yet; everything else is already in memory
+        List<OrderItemResponse> itemResponses = new ArrayList<>(orderItems.size());
+        for (int i = 0; i < orderItems.size(); i++) {
+            itemResponses.add(orderItemMapper.toResponse(orderItems.get(i), orderedProducts.get(i)));
+        }
+        OrderResponse response = orderMapper.toResponse(order, null, List.of(), delivery, pickup);
+        response.setOrderItems(itemResponses);
         if (!adminWebsocketBridgeEnabled) {
             orderStatusWebSocketController.sendOrderUpdate(order.getId(), response);
         }
@@ -151,43 +193,37 @@ public class OrderService {
     }
 
     public OrderResponse getOrderById(Long orderId, String token) {
-        Customer customer = getCustomerFromToken(token);
+        String email = getEmailFromToken(token);
 
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
-
-        // Verify order belongs to customer
-        if (!order.getCustomer().getId().equals(customer.getId())) {
-            throw new BadRequestException("Order does not belong to current customer");
+        Optional<Order> found = orderRepository.findByIdAndCustomerEmail(orderId, email);
+        if (found.isEmpty()) {
+            if (orderRepository.existsById(orderId)) {
+                throw new BadRequestException("Order does not belong to current customer");
+            }
+            return getArchivedOrder(orderId, getCustomerFromToken(token).getId());
         }
 
-        List<OrderItem> orderItems = orderItemRepository.findByOrderId(orderId);
-        return buildOrderResponse(order, orderItems);
+        return orderResponseCache.get(found.get());
     }
 
     public String getOrderStatus(Long orderId, String token) {
-        Customer customer = getCustomerFromToken(token);
+        String email = getEmailFromToken(token);
 
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
-
-        if (!order.getCustomer().getId().equals(customer.getId())) {
+        Optional<OrderStatus> status = orderRepository.findStatusByIdAndCustomerEmail(orderId, email);
+        if (status.isPresent()) {
+            return status.get().toString();
+        }
+        if (orderRepository.existsById(orderId)) {
             throw new BadRequestException("Order does not belong to current customer");
         }
-
-        return order.getStatus().toString();
+        return orderArchiver.getForCustomer(orderId, email).getStatus().toString();
     }
 
     @Transactional
     public Map<String, Object> createPaymentIntent(Long orderId, String token) {
-        Customer customer = getCustomerFromToken(token);
-
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
-
-        if (!order.getCustomer().getId().equals(customer.getId())) {
-            throw new BadRequestException("Order does not belong to current customer");
-        }
+        String email = getEmailFromToken(token);
+        Order order = orderRepository.findByIdAndCustomerEmail(orderId, email)
+                .orElseThrow(() -> orderNotPayable(orderId, email));
 
         if (order.getStatus() == OrderStatus.CANCELLED) {
             throw new BadRequestException("Cannot process payment for cancelled order");
@@ -211,7 +247,7 @@ public class OrderService {
         Customer customer = getCustomerFromToken(token);
 
         Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
+                .orElseThrow(() -> orderNotPayable(orderId, customer.getEmail()));
 
         if (!order.getCustomer().getId().equals(customer.getId())) {
             throw new BadRequestException("Order does not belong to current customer");
@@ -247,12 +283,11 @@ public class OrderService {
             payment.setPaidAt(null);
             payment.setUpdatedAt(LocalDateTime.now());
             paymentRepository.save(payment);
+            cartCheckoutService.paymentConfirmed(order);
 
-            order.setStatus(OrderStatus.PENDING);
-            order = orderRepository.save(order);
             updatePickupStatus(order, PickupStatus.PREPARING);
 
-            broadcastOrderSnapshot(order, null);
+            broadcastOrderSnapshot(order);
             publishStatusUpdate(order,
                     "PAYMENT_CONFIRMED",
                     "Payment confirmed",
@@ -273,11 +308,9 @@ public class OrderService {
 
         try {
             paymentService.handlePaymentSuccess(request.getTransactionId());
-            order.setStatus(OrderStatus.PENDING);
-            order = orderRepository.save(order);
             updatePickupStatus(order, PickupStatus.PREPARING);
 
-            broadcastOrderSnapshot(order, null);
+            broadcastOrderSnapshot(order);
             publishStatusUpdate(order,
                     "PAYMENT_CONFIRMED",
                     "Payment confirmed",
@@ -309,8 +342,15 @@ public class OrderService {
         return getOrdersForCustomer(customerId);
     }
 
-    public List<OrderResponse> getMyOrders(String token) {
+    /**
+     * All of the customer's orders; with {@code includeArchived}, one page of them including
+     * archived ones, see {@link #getOrderPageForCustomer}.
+     */
+    public List<OrderResponse> getMyOrders(String token, boolean includeArchived, Long beforeId, int limit) {
         Customer customer = getCustomerFromToken(token);
+        if (includeArchived) {
+            return getOrderPageForCustomer(customer.getId(), beforeId, limit);
+        }
         return getOrdersForCustomer(customer.getId());
     }
 
@@ -321,32 +361,89 @@ public class OrderService {
         return "Order cancelled successfully";
     }
 
+    /**
+     * All orders of the customer still in the hot tables, newest first.
+     */
     @Transactional(readOnly = true)
     public List<OrderResponse> getOrdersForCustomer(Long customerId) {
         Customer customer = customerRepository.findById(customerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Customer not found"));
 
         List<Order> orders = orderRepository.findByCustomerIdOrderByCreatedAtDesc(customer.getId());
-        return orders.stream()
-                .map(order -> buildOrderResponse(order,
-                        orderItemRepository.findByOrderId(order.getId())))
-                .collect(Collectors.toList());
+        return orderHistoryLoader.load(orders);
     }
 
+    /**
+     * Up to {@code limit} of the customer's orders with ids below {@code beforeId}, newest
+     * first, merged from the hot and the archived orders, which share one id sequence. Pass
+     * the id of the last order as {@code beforeId} to get the next, older page.
+     */
     @Transactional(readOnly = true)
-    public OrderResponse getOrderForCustomer(Long orderId, Long customerId) {
+    public List<OrderResponse> getOrderPageForCustomer(Long customerId, Long beforeId, int limit) {
+        if (limit < 1 || limit > MAX_HISTORY_PAGE_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_HISTORY_PAGE_SIZE);
+        }
         Customer customer = customerRepository.findById(customerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Customer not found"));
 
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
+        long before = beforeId != null ? beforeId : Long.MAX_VALUE;
+        PageRequest page = PageRequest.of(0, limit);
+        List<OrderResponse> merged = new ArrayList<>(orderHistoryLoader.load(
+                orderRepository.findByCustomerIdAndIdLessThanOrderByIdDesc(customer.getId(), before, page)));
+        archivedOrderRepository.findByCustomerIdAndIdLessThanOrderByIdDesc(customer.getId(), before, page)
+                .forEach(archivedOrder -> merged.add(orderArchiver.toResponse(archivedOrder)));
+        merged.sort(Comparator.comparing(OrderResponse::getId).reversed());
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
 
-        if (!order.getCustomer().getId().equals(customer.getId())) {
-            throw new BadRequestException("Order does not belong to current customer");
+    public OrderHistoryPageResponse getMyOrderHistory(String token, Long beforeId, int limit, boolean includeArchived) {
+        Customer customer = getCustomerFromToken(token);
+        return getOrderHistoryForCustomer(customer.getId(), beforeId, limit, includeArchived);
+    }
+
+    /**
+     * One page of order summaries, newest first. Pass the returned cursor as
+     * {@code beforeId} to get the next, older page. With {@code includeArchived} the page is
+     * merged from the hot and the archived orders, which share one id sequence.
+     */
+    @Transactional(readOnly = true)
+    public OrderHistoryPageResponse getOrderHistoryForCustomer(Long customerId, Long beforeId, int limit,
+                                                               boolean includeArchived) {
+        if (limit < 1 || limit > MAX_HISTORY_PAGE_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_HISTORY_PAGE_SIZE);
+        }
+
+        // One extra row tells whether another page follows without a count query
+        long before = beforeId != null ? beforeId : Long.MAX_VALUE;
+        List<OrderSummaryResponse> rows = orderRepository.findHistoryPage(customerId, before, PageRequest.of(0, limit + 1));
+        if (includeArchived) {
+            List<OrderSummaryResponse> merged = new ArrayList<>(rows);
+            merged.addAll(archivedOrderRepository.findHistoryPage(customerId, before, PageRequest.of(0, limit + 1)));
+            merged.sort(Comparator.comparing(OrderSummaryResponse::getId).reversed());
+            rows = merged.size() > limit + 1 ? merged.subList(0, limit + 1) : merged;
+        }
+        boolean hasMore = rows.size() > limit;
+        List<OrderSummaryResponse> items = hasMore ? rows.subList(0, limit) : rows;
+
+        return OrderHistoryPageResponse.builder()
+                .items(items)
+                .nextCursor(hasMore ? items.get(items.size() - 1).getId() : null)
+                .hasMore(hasMore)
+                .limit(limit)
+                .build();
+    }
+
+    @Transactional(readOnly = true)
+    public OrderResponse getOrderForCustomer(Long orderId, Long customerId) {
+        Optional<Order> found = orderRepository.findByIdAndCustomerIdWithCustomer(orderId, customerId);
+        if (found.isEmpty()) {
+            if (orderRepository.existsById(orderId)) {
+                throw new BadRequestException("Order does not belong to current customer");
+            }
+            return getArchivedOrder(orderId, customerId);
         }
 
-        List<OrderItem> orderItems = orderItemRepository.findByOrderId(orderId);
-        return buildOrderResponse(order, orderItems);
+        return orderResponseCache.get(found.get());
     }
 
     @Transactional
@@ -354,27 +451,36 @@ public class OrderService {
         Customer customer = customerRepository.findById(customerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Customer not found"));
 
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
-
-        if (!order.getCustomer().getId().equals(customer.getId())) {
+        if (!orderRepository.existsByIdAndCustomerId(orderId, customer.getId())) {
+            if (!orderRepository.existsById(orderId)) {
+                // Only finished orders are archived
+                OrderStatus archived = orderArchiver.getForCustomer(orderId, customer.getId()).getStatus();
+                throw new BadRequestException(archived == OrderStatus.CANCELLED
+                        ? "Order is already cancelled"
+                        : "Cannot cancel delivered order");
+            }
             throw new BadRequestException("Order does not belong to current customer");
         }
 
-        if (order.getStatus() == OrderStatus.COMPLETED) {
-            throw new BadRequestException("Cannot cancel delivered order");
-        }
-
-        if (order.getStatus() == OrderStatus.CANCELLED) {
-            throw new BadRequestException("Order is already cancelled");
+        if (!orderRepository.transitionStatus(orderId, OrderStatus.CANCELLED)) {
+            OrderStatus current = orderRepository.findStatusById(orderId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
+            if (current == OrderStatus.COMPLETED) {
+                throw new BadRequestException("Cannot cancel delivered order");
+            }
+            if (current == OrderStatus.CANCELLED) {
+                throw new BadRequestException("Order is already cancelled");
+            }
+            throw new BadRequestException("Order cannot be cancelled while " + current.name());
         }
 
-        order.setStatus(OrderStatus.CANCELLED);
-        order = orderRepository.save(order);
+        // Loaded only after the transition, so it reflects the committed status change
+        Order order = orderRepository.findById(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
         updatePickupStatus(order, PickupStatus.CANCELLED);
+        cartCheckoutService.restoreCart(order);
 
-        List<OrderItem> orderItems = orderItemRepository.findByOrderId(orderId);
-        OrderResponse response = buildOrderResponse(order, orderItems);
+        OrderResponse response = orderResponseCache.get(order);
         if (!adminWebsocketBridgeEnabled) {
             orderStatusWebSocketController.sendOrderUpdate(orderId, response);
         }
@@ -387,27 +493,35 @@ public class OrderService {
         return response;
     }
 
-    private OrderResponse buildOrderResponse(Order order, List<OrderItem> orderItems) {
-        if (order == null) {
-            return null;
-        }
-
-        List<Payment> payments = paymentRepository.findByOrderId(order.getId());
-        Delivery delivery = deliveryRepository.findByOrderId(order.getId()).orElse(null);
-        Pickup pickup = order.getOrderType() == OrderType.PICKUP
-                ? pickupRepository.findByOrderId(order.getId()).orElse(null)
-                : null;
+    private OrderResponse getArchivedOrder(Long orderId, Long customerId) {
+        return orderArchiver.toResponse(orderArchiver.getForCustomer(orderId, customerId));
+    }
 
-        return orderMapper.toResponse(order, orderItems, payments, delivery, pickup);
+    /**
+     * Error for an order to pay that was not returned by an ownership-checked query: only
+     * this (unhappy) path pays for more lookups to tell why. An archived order is finished,
+     * so it is refused as it would have been before it was archived.
+     */
+    private RuntimeException orderNotPayable(Long orderId, String email) {
+        if (orderRepository.existsById(orderId)) {
+            return new BadRequestException("Order does not belong to current customer");
+        }
+        OrderStatus archived = orderArchiver.getForCustomer(orderId, email).getStatus();
+        return new BadRequestException(archived == OrderStatus.CANCELLED
+                ? "Cannot process payment for cancelled order"
+                : "Order already delivered and paid");
     }
 
     private Customer getCustomerFromToken(String token) {
-        String email = jwtUtil.extractUsername(token.substring(7));
-        return customerRepository.findByEmail(email)
+        return customerRepository.findByEmail(getEmailFromToken(token))
                 .orElseThrow(() -> new ResourceNotFoundException("Customer not found"));
     }
 
-    private void broadcastOrderSnapshot(Order order, List<OrderItem> orderItems) {
+    private String getEmailFromToken(String token) {
+        return jwtUtil.extractUsername(token.substring(7));
+    }
+
+    private void broadcastOrderSnapshot(Order order) {
         if (order == null) {
             return;
         }
@@ -418,8 +532,7 @@ public class OrderService {
             return;
         }
 
-        List<OrderItem> items = orderItems != null ? orderItems : orderItemRepository.findByOrderId(order.getId());
-        OrderResponse response = buildOrderResponse(order, items);
+        OrderResponse response = orderResponseCache.get(order);
         orderStatusWebSocketController.sendOrderUpdate(order.getId(), response);
     }
 
@@ -442,11 +555,7 @@ public class OrderService {
                 .metadata(buildOrderMetadata(order, metadata, pickupOverride))
                 .build();
 
-        try {
-            adminIntegrationService.updateOrderStatus(order);
-        } catch (Exception e) {
-            log.error("Failed to forward order {} status {} to Admin backend", order.getId(), order.getStatus(), e);
-        }
+        adminSyncOutbox.orderStatusChanged(order);
 
         if (adminWebsocketBridgeEnabled) {
             log.debug("Skipping local WebSocket status broadcast for order {} because admin bridge will relay updates.",
@@ -458,76 +567,32 @@ public class OrderService {
         orderStatusWebSocketController.sendOrderNotification(order.getId(), statusMessage);
     }
 
-    private void ensureProductsSyncedWithAdmin(List<OrderItem> orderItems) {
-        if (orderItems == null || orderItems.isEmpty()) {
-            return;
-        }
-
-        for (OrderItem orderItem : orderItems) {
-            Product product = orderItem.getProduct();
-            if (product == null) {
-                continue;
-            }
-
-            Category category = product.getCategory();
-            if (category != null && category.getExternalId() == null) {
-                try {
-                    adminIntegrationService.pushCategory(category).ifPresent(externalId -> {
-                        category.setExternalId(externalId);
-                        category.setSyncedAt(LocalDateTime.now());
-                        categoryRepository.save(category);
-                    });
-                } catch (Exception e) {
-                    log.error("Failed to sync category {} for product {}", category.getId(), product.getId(), e);
-                }
-            }
-
-            if (product.getExternalId() != null) {
-                continue;
-            }
-
-            try {
-                adminIntegrationService.pushProduct(product).ifPresent(externalId -> {
-                    product.setExternalId(externalId);
-                    product.setSyncedAt(LocalDateTime.now());
-                    productRepository.save(product);
-                });
-            } catch (Exception e) {
-                log.error("Failed to sync product {} to Admin backend", product.getId(), e);
-            }
-        }
-    }
-
-    private void syncOrderWithAdmin(Order order, List<OrderItem> orderItems) {
-        if (order == null || orderItems == null || orderItems.isEmpty()) {
-            return;
-        }
-
-        try {
-            adminIntegrationService.syncOrderToAdmin(order, orderItems).ifPresent(externalId -> {
-                order.setExternalId(externalId);
-                order.setSyncedAt(LocalDateTime.now());
-                orderRepository.save(order);
-            });
-        } catch (Exception e) {
-            log.error("Failed to sync order {} to Admin backend", order.getId(), e);
+    /**
+     * Order lines for a checkout of the customer's cart, taken straight from the cart rows
+     * once any cart edits still held in memory are written.
+     */
+    private List<OrderItemRequest> readCartLines(Customer customer) {
+        cartStore.flush(customer.getId());
+        List<OrderItemRequest> lines = cartItemRepository.findLinesByCustomerId(customer.getId()).stream()
+                .map(line -> new OrderItemRequest(line.getProductId(), line.getQuantity(), null))
+                .collect(Collectors.toList());
+        if (lines.isEmpty()) {
+            throw new BadRequestException("Order items cannot be empty");
         }
+        return lines;
     }
 
-    private List<OrderItemRequest> resolveOrderItems(CreateOrderRequest request, Customer customer) {
-        if (request.getOrderItems() != null && !request.getOrderItems().isEmpty()) {
-            return request.getOrderItems();
-        }
-
-        CartResponse cartResponse = cartService.getCartByCustomerId(customer.getId());
-        List<CartItemResponse> cartItems = cartResponse.getItems();
-        if (cartItems == null || cartItems.isEmpty()) {
-            throw new BadRequestException("Order items cannot be empty");
+    /**
+     * Empties the cart in the order's transaction. If fewer lines are removed than were
+     * ordered, a concurrent checkout (or cart edit) got there first; failing here rolls the
+     * order back instead of ordering the same cart twice.
+     */
+    private void emptyCheckedOutCart(Customer customer, int orderedLines) {
+        int removed = cartItemRepository.deleteByCustomerId(customer.getId());
+        cartStore.evict(customer.getId());
+        if (removed != orderedLines) {
+            throw new ConflictException("Your cart changed while the order was being placed. Please review it and try again.");
         }
-
-        return cartItems.stream()
-                .map(item -> new OrderItemRequest(item.getProductId(), item.getQuantity(), null))
-                .collect(Collectors.toList());
     }
 
     private Pickup createPickupRecord(Order order, CreateOrderRequest request, Customer customer) {
@@ -602,7 +667,9 @@ public class OrderService {
     }
 
     /**
-     * Updates order with data from admin backend
+     * Updates order with data from admin backend. Both fields are written with conditional
+     * updates rather than by saving {@code order}; the status only moves if the transition
+     * is allowed from the order's current status. {@code order} is updated in memory to match.
      * @param order Order to update
      * @param statusStr Order status string
      * @param estimatedDeliveryTime Estimated delivery time
@@ -619,26 +686,26 @@ public class OrderService {
         if (statusStr != null && !statusStr.isBlank()) {
             try {
                 OrderStatus status = OrderStatus.valueOf(statusStr.toUpperCase());
-                if (status != order.getStatus()) {
+                if (orderRepository.transitionStatus(order.getId(), status)) {
                     order.setStatus(status);
                     updated = true;
                     log.debug("Updated order {} status to {}", order.getId(), status);
+                } else {
+                    log.debug("Ignoring order {} status {}: not a valid transition from the current status",
+                            order.getId(), status);
                 }
             } catch (IllegalArgumentException ex) {
                 log.debug("Ignoring unknown order status: {}", statusStr);
             }
         }
 
-        if (estimatedDeliveryTime != null && !estimatedDeliveryTime.equals(order.getEstimatedDeliveryTime())) {
+        if (estimatedDeliveryTime != null
+                && orderRepository.updateEstimatedDeliveryTime(order.getId(), estimatedDeliveryTime, LocalDateTime.now()) == 1) {
             order.setEstimatedDeliveryTime(estimatedDeliveryTime);
             updated = true;
             log.debug("Updated order {} estimated delivery time", order.getId());
         }
 
-        if (updated) {
-            orderRepository.save(order);
-        }
-
         return updated;
     }
 
@@ -0,0 +1,224 @@
+package com.restaurant.store.service;
+
+import com.restaurant.store.dto.request.OrderStatusBatchUpdateRequest;
+import com.restaurant.store.dto.response.OrderResponse;
+import com.restaurant.store.dto.response.OrderStatusBatchResult;
+import com.restaurant.store.dto.response.OrderStatusBatchResult.Outcome;
+import com.restaurant.store.entity.Order;
+import com.restaurant.store.entity.OrderStatus;
+import com.restaurant.store.entity.OrderType;
+import com.restaurant.store.entity.Payment;
+import com.restaurant.store.entity.PaymentMethod;
+import com.restaurant.store.entity.PaymentStatus;
+import com.restaurant.store.entity.Pickup;
+import com.restaurant.store.entity.PickupStatus;
+import com.restaurant.store.exception.BadRequestException;
+import com.restaurant.store.repository.OrderRepository;
+import com.restaurant.store.repository.PaymentRepository;
+import com.restaurant.store.repository.PickupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Applies status changes coming from the Admin backend, and the pickup and payment
+ * changes that go with them.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderStatusUpdateService {
+
+    private final OrderRepository orderRepository;
+    private final PaymentRepository paymentRepository;
+    private final PickupRepository pickupRepository;
+    private final OrderHistoryLoader orderHistoryLoader;
+    private final CartCheckoutService cartCheckoutService;
+
+    /**
+     * Applies many status changes in one transaction. Orders moving to the same status are
+     * changed with one compare-and-set statement, and everything else (pickups, payments,
+     * responses) is read with one query per table. Estimated delivery times are set with a
+     * compare-and-set per order, so each result tells whether it changed. An entry that
+     * cannot be applied is reported in its result instead of failing the batch. Results are
+     * in request order.
+     *
+     * @throws BadRequestException if a status is unknown or an order appears twice
+     */
+    @Transactional
+    public List<OrderStatusBatchResult> applyBatch(List<OrderStatusBatchUpdateRequest.Update> updates) {
+        Map<Long, OrderStatusBatchUpdateRequest.Update> updatesById = new LinkedHashMap<>();
+        Map<Long, OrderStatus> targets = new HashMap<>();
+        for (OrderStatusBatchUpdateRequest.Update update : updates) {
+            if (updatesById.putIfAbsent(update.getOrderId(), update) != null) {
+                throw new BadRequestException("Order " + update.getOrderId() + " appears more than once in the batch");
+            }
+            targets.put(update.getOrderId(), parseStatus(update.getStatus()));
+        }
+
+        Map<Long, OrderStatus> before = currentStatuses(updatesById.keySet());
+
+        Map<OrderStatus, List<Long>> idsByTarget = new HashMap<>();
+        before.forEach((orderId, current) -> {
+            OrderStatus target = targets.get(orderId);
+            if (current.canTransitionTo(target)) {
+                idsByTarget.computeIfAbsent(target, status -> new ArrayList<>()).add(orderId);
+            }
+        });
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, OrderStatus> transitioned = new HashMap<>();
+        // A concurrent writer may have moved an order first; only the ones that moved here count
+        idsByTarget.forEach((target, orderIds) ->
+                orderRepository.updateStatusesIfIn(orderIds, target.previousStatuses(), target, now)
+                        .forEach(orderId -> transitioned.put(orderId, target)));
+
+        Set<Long> estimatedDeliveryTimeChanged = new HashSet<>();
+        before.keySet().forEach(orderId -> {
+            LocalDateTime estimatedDeliveryTime = updatesById.get(orderId).getEstimatedDeliveryTime();
+            if (estimatedDeliveryTime != null
+                    && orderRepository.updateEstimatedDeliveryTime(orderId, estimatedDeliveryTime, now) == 1) {
+                estimatedDeliveryTimeChanged.add(orderId);
+            }
+        });
+
+        List<Order> orders = orderRepository.findAllById(before.keySet());
+        syncAfterTransitions(orders, transitioned);
+        orderRepository.flush();
+
+        Map<Long, OrderResponse> responses = new HashMap<>();
+        List<OrderResponse> loaded = orderHistoryLoader.load(orders);
+        for (int i = 0; i < orders.size(); i++) {
+            responses.put(orders.get(i).getId(), loaded.get(i));
+        }
+
+        List<OrderStatusBatchResult> results = new ArrayList<>(updatesById.size());
+        updatesById.keySet().forEach(orderId ->
+                results.add(toResult(orderId, targets.get(orderId), responses.get(orderId), transitioned,
+                        estimatedDeliveryTimeChanged.contains(orderId))));
+        log.info("Applied batch status update: {} of {} orders changed status", transitioned.size(), results.size());
+        return results;
+    }
+
+    /**
+     * Brings pickups and cash-on-delivery payments in line with the orders that just moved
+     * to a new status, with one query per table, and gives cancelled unpaid orders back to
+     * their carts.
+     *
+     * @param transitioned new status by order id, for the orders that changed
+     */
+    public void syncAfterTransitions(List<Order> orders, Map<Long, OrderStatus> transitioned) {
+        if (transitioned.isEmpty()) {
+            return;
+        }
+
+        List<Long> pickupOrderIds = orders.stream()
+                .filter(order -> order.getOrderType() == OrderType.PICKUP)
+                .map(Order::getId)
+                .filter(transitioned::containsKey)
+                .toList();
+        if (!pickupOrderIds.isEmpty()) {
+            List<Pickup> pickups = pickupRepository.findByOrderIdIn(pickupOrderIds);
+            pickups.forEach(pickup -> syncPickupStatus(pickup, transitioned.get(pickup.getOrder().getId())));
+            pickupRepository.saveAll(pickups);
+        }
+
+        List<Long> completedOrderIds = transitioned.entrySet().stream()
+                .filter(entry -> entry.getValue() == OrderStatus.COMPLETED)
+                .map(Map.Entry::getKey)
+                .toList();
+        if (!completedOrderIds.isEmpty()) {
+            markCashOnDeliveryPaymentsAsCompleted(completedOrderIds);
+        }
+
+        orders.stream()
+                .filter(order -> transitioned.get(order.getId()) == OrderStatus.CANCELLED)
+                .filter(Order::isCartRestorable)
+                .forEach(cartCheckoutService::restoreCart);
+    }
+
+    private void syncPickupStatus(Pickup pickup, OrderStatus newStatus) {
+        switch (newStatus) {
+            case PREPARING -> pickup.setStatus(PickupStatus.PREPARING);
+            case READY_FOR_DELIVERY, READY_FOR_PICKUP -> pickup.setStatus(PickupStatus.READY_FOR_PICKUP);
+            case COMPLETED -> {
+                pickup.setStatus(PickupStatus.COMPLETED);
+                pickup.setPickedUpAt(LocalDateTime.now());
+            }
+            case CANCELLED -> pickup.setStatus(PickupStatus.CANCELLED);
+            default -> { }
+        }
+
+        if (pickup.getStatus() == PickupStatus.READY_FOR_PICKUP) {
+            LocalDateTime now = LocalDateTime.now();
+            pickup.setReadyAt(now);
+            pickup.setWindowStart(now.minusMinutes(5));
+            pickup.setWindowEnd(now.plusHours(1));
+        }
+    }
+
+    private void markCashOnDeliveryPaymentsAsCompleted(List<Long> orderIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Payment> payments = paymentRepository.findByOrderIdIn(orderIds).stream()
+                .filter(payment -> payment.getMethod() == PaymentMethod.CASH_ON_DELIVERY)
+                .filter(payment -> payment.getStatus() != PaymentStatus.COMPLETED)
+                .toList();
+        payments.forEach(payment -> {
+            payment.setStatus(PaymentStatus.COMPLETED);
+            if (payment.getPaidAt() == null) {
+                payment.setPaidAt(now);
+            }
+            payment.setUpdatedAt(now);
+        });
+        paymentRepository.saveAll(payments);
+    }
+
+    private Map<Long, OrderStatus> currentStatuses(Collection<Long> orderIds) {
+        return orderRepository.findStatusesByIdIn(orderIds).stream()
+                .collect(Collectors.toMap(OrderRepository.StatusView::getId, OrderRepository.StatusView::getStatus));
+    }
+
+    private OrderStatusBatchResult toResult(Long orderId,
+                                            OrderStatus target,
+                                            OrderResponse response,
+                                            Map<Long, OrderStatus> transitioned,
+                                            boolean estimatedDeliveryTimeChanged) {
+        OrderStatusBatchResult.OrderStatusBatchResultBuilder result = OrderStatusBatchResult.builder()
+                .orderId(orderId)
+                .order(response)
+                .estimatedDeliveryTimeChanged(estimatedDeliveryTimeChanged);
+        if (response == null) {
+            return result.outcome(Outcome.NOT_FOUND).message("Order not found: " + orderId).build();
+        }
+        if (transitioned.containsKey(orderId)) {
+            return result.outcome(Outcome.UPDATED).build();
+        }
+        if (response.getStatus() == target) {
+            return result.outcome(Outcome.UNCHANGED).build();
+        }
+        return result.outcome(Outcome.REJECTED)
+                .message("Order " + orderId + " cannot move from " + response.getStatus() + " to " + target)
+                .build();
+    }
+
+    private static OrderStatus parseStatus(String status) {
+        try {
+            return OrderStatus.valueOf(status.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unknown order status: " + status);
+        }
+    }
+}
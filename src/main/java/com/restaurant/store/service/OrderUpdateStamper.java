@@ -0,0 +1,53 @@
+package com.restaurant.store.service;
+
+import com.restaurant.store.event.OrderChangedEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Moves {@code orders.updated_at} forward when only an order's items, payments, delivery or
+ * pickup changed, so the order row alone tells every instance whether a response built from
+ * it is still current ({@link OrderResponseCache}). The orders a transaction changed this
+ * way are stamped with one statement, in that transaction, right before it commits.
+ */
+@Service
+public class OrderUpdateStamper {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BeforeCommitStamp pending = new BeforeCommitStamp(this::stamp);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public OrderUpdateStamper(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener
+    public void onOrderChanged(OrderChangedEvent event) {
+        if (!event.isOrderRowWritten() && event.getOrderId() != null) {
+            pending.add(entityManager, List.of(event.getOrderId()));
+        }
+    }
+
+    /**
+     * Runs while the transaction is completing, where the persistence context must not be
+     * used, so it is a plain JDBC update.
+     */
+    private void stamp(Set<Long> orderIds) {
+        String placeholders = String.join(", ", Collections.nCopies(orderIds.size(), "?"));
+        List<Object> args = new ArrayList<>();
+        args.add(LocalDateTime.now());
+        args.addAll(orderIds);
+        jdbcTemplate.update("UPDATE orders SET updated_at = ? WHERE id IN (" + placeholders + ")", args.toArray());
+    }
+}
@@ -30,6 +30,7 @@ import java.util.EnumSet;
 public class PaymentIntentService implements PaymentService {
 
     private final PaymentRepository paymentRepository;
+    private final CartCheckoutService cartCheckoutService;
     
     @Value("${stripe.secret.key}")
     private String stripeSecretKey;
@@ -111,6 +112,7 @@ public class PaymentIntentService implements PaymentService {
             payment.setPaidAt(LocalDateTime.now());
             payment.setUpdatedAt(LocalDateTime.now());
             paymentRepository.save(payment);
+            cartCheckoutService.paymentConfirmed(payment.getOrder());
             log.info("Payment confirmed successfully: {}", paymentId);
         } else {
             log.warn("Payment intent status is not succeeded: {}", paymentIntent.getStatus());
@@ -30,6 +30,7 @@ import java.util.EnumSet;
 public class PaymentSessionService implements PaymentService {
 
     private final PaymentRepository paymentRepository;
+    private final CartCheckoutService cartCheckoutService;
     
     @Value("${stripe.secret.key}")
     private String stripeSecretKey;
@@ -134,6 +135,7 @@ public class PaymentSessionService implements PaymentService {
             payment.setPaidAt(LocalDateTime.now());
             payment.setUpdatedAt(LocalDateTime.now());
             paymentRepository.save(payment);
+            cartCheckoutService.paymentConfirmed(payment.getOrder());
             log.info("Payment session confirmed successfully: {}", paymentId);
         } else {
             log.warn("Payment session status is not complete/paid: {} / {}", session.getStatus(), session.getPaymentStatus());
@@ -153,6 +155,8 @@ public class PaymentSessionService implements PaymentService {
         payment.setStatus(PaymentStatus.FAILED);
         payment.setUpdatedAt(LocalDateTime.now());
         paymentRepository.save(payment);
+        // The session has expired, so the order will not be paid through it
+        cartCheckoutService.restoreCart(payment.getOrder());
         log.info("Payment session marked as failed: {}", paymentId);
     }
 
@@ -1,52 +1,60 @@
 package com.restaurant.store.service;
 
 import com.restaurant.store.dto.response.PickupResponse;
-import com.restaurant.store.entity.Customer;
 import com.restaurant.store.entity.Order;
 import com.restaurant.store.entity.OrderType;
 import com.restaurant.store.entity.Pickup;
 import com.restaurant.store.exception.BadRequestException;
 import com.restaurant.store.exception.ResourceNotFoundException;
 import com.restaurant.store.mapper.PickupMapper;
-import com.restaurant.store.repository.CustomerRepository;
 import com.restaurant.store.repository.OrderRepository;
 import com.restaurant.store.repository.PickupRepository;
 import com.restaurant.store.security.JwtUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.Optional;
+
 @Service
 @RequiredArgsConstructor
 public class PickupService {
 
     private final PickupRepository pickupRepository;
     private final OrderRepository orderRepository;
-    private final CustomerRepository customerRepository;
     private final JwtUtil jwtUtil;
     private final PickupMapper pickupMapper;
+    private final OrderArchiver orderArchiver;
 
     public PickupResponse getPickupDetails(Long orderId, String token) {
-        Customer customer = resolveCustomer(token);
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
+        String email = jwtUtil.extractUsername(token.substring(7));
 
-        if (!order.getCustomer().getId().equals(customer.getId())) {
-            throw new BadRequestException("Order does not belong to current customer");
+        Optional<Pickup> found = pickupRepository.findByOrderIdAndCustomerEmail(orderId, email);
+        if (found.isEmpty() && !orderRepository.existsById(orderId)) {
+            return orderArchiver.toPickupResponse(orderArchiver.getForCustomer(orderId, email));
         }
+        Pickup pickup = found.orElseThrow(() -> missingPickup(orderId, email));
 
-        if (order.getOrderType() != OrderType.PICKUP) {
+        if (pickup.getOrder().getOrderType() != OrderType.PICKUP) {
             throw new BadRequestException("Order is not a pickup order");
         }
 
-        Pickup pickup = pickupRepository.findByOrderId(orderId)
-                .orElseThrow(() -> new ResourceNotFoundException("Pickup details not found for order id: " + orderId));
-
         return pickupMapper.toResponse(pickup);
     }
 
-    private Customer resolveCustomer(String token) {
-        String email = jwtUtil.extractUsername(token.substring(7));
-        return customerRepository.findByEmail(email)
-                .orElseThrow(() -> new ResourceNotFoundException("Customer not found"));
+    /**
+     * Works out why the ownership-checked lookup came back empty; only this path reads the order.
+     */
+    private RuntimeException missingPickup(Long orderId, String email) {
+        Order order = orderRepository.findById(orderId).orElse(null);
+        if (order == null) {
+            return new ResourceNotFoundException("Order not found with id: " + orderId);
+        }
+        if (!orderRepository.existsByIdAndCustomerEmail(orderId, email)) {
+            return new BadRequestException("Order does not belong to current customer");
+        }
+        if (order.getOrderType() != OrderType.PICKUP) {
+            return new BadRequestException("Order is not a pickup order");
+        }
+        return new ResourceNotFoundException("Pickup details not found for order id: " + orderId);
     }
 }
@@ -0,0 +1,89 @@
+package com.restaurant.store.service;
+
+import com.restaurant.store.dto.response.ProductResponse;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Compact, immutable price and availability lookup for the cart and order write paths.
+ * <p>
+ * Product ids are kept sorted in a primitive array, with prices in minor units (hundredths,
+ * the scale of the {@code price} column) in a parallel array and availability in a bitset, so
+ * a lookup is a binary search over a few kilobytes instead of a database read. A table is
+ * built with every {@link MenuSnapshot} and therefore follows every catalog write, including
+ * admin product events and the sync job.
+ */
+public final class ProductHotTable {
+
+    static final int PRICE_SCALE = 2;
+
+    private final long[] ids;
+    private final long[] pricesMinor;
+    private final BitSet available;
+
+    ProductHotTable(List<ProductResponse> products) {
+        ProductResponse[] sorted = products.stream()
+                .filter(product -> product.getId() != null && product.getPrice() != null)
+                .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+                .toArray(ProductResponse[]::new);
+
+        this.ids = new long[sorted.length];
+        this.pricesMinor = new long[sorted.length];
+        this.available = new BitSet(sorted.length);
+        for (int i = 0; i < sorted.length; i++) {
+            ids[i] = sorted[i].getId();
+            pricesMinor[i] = toMinor(sorted[i].getPrice());
+            if (Boolean.TRUE.equals(sorted[i].getIsAvailable())) {
+                available.set(i);
+            }
+        }
+    }
+
+    public boolean contains(Long productId) {
+        return indexOf(productId) >= 0;
+    }
+
+    /**
+     * False for unknown products as well as for products marked unavailable.
+     */
+    public boolean isAvailable(Long productId) {
+        int index = indexOf(productId);
+        return index >= 0 && available.get(index);
+    }
+
+    /**
+     * Price in minor units, or -1 when the product is unknown.
+     */
+    public long priceMinor(Long productId) {
+        int index = indexOf(productId);
+        return index >= 0 ? pricesMinor[index] : -1L;
+    }
+
+    /**
+     * Price at the scale of the {@code price} column, or null when the product is unknown.
+     */
+    public BigDecimal price(Long productId) {
+        int index = indexOf(productId);
+        return index >= 0 ? BigDecimal.valueOf(pricesMinor[index], PRICE_SCALE) : null;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    private int indexOf(Long productId) {
+        if (productId == null) {
+            return -1;
+        }
+        int index = Arrays.binarySearch(ids, productId);
+        return index >= 0 ? index : -1;
+    }
+
+    static long toMinor(BigDecimal price) {
+        return price.movePointRight(PRICE_SCALE).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
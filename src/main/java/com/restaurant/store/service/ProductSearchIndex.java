@@ -0,0 +1,257 @@
+package com.restaurant.store.service;
+
+import com.restaurant.store.dto.response.ProductResponse;
+import com.restaurant.store.event.CatalogChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-process inverted index over product names and descriptions.
+ * <p>
+ * Full-text search looks up the character n-grams of each query term (see
+ * {@link SearchTokenizer}), intersects their posting lists and confirms the candidates
+ * against the indexed text. Autocomplete walks a sorted term dictionary by prefix.
+ * Neither touches the database.
+ * <p>
+ * The index is built from the menu snapshot at startup. Afterwards only the products named
+ * in {@link CatalogChangedEvent}s are re-indexed, on the next query, from the snapshot of
+ * that moment. Results are always resolved through the current snapshot, so category names
+ * and prices in them are never stale.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+
+    private final MenuCatalogService menuCatalogService;
+
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+    private final NavigableMap<String, Set<Long>> prefixes = new ConcurrentSkipListMap<>();
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+
+    private final Set<Long> pendingProducts = ConcurrentHashMap.newKeySet();
+    private final Object writeLock = new Object();
+    private volatile boolean built;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        applyPendingChanges();
+        log.info("Product search index ready with {} products and {} n-grams", documents.size(), postings.size());
+    }
+
+    /**
+     * Queues the changed product for re-indexing. Category changes need no work: the index
+     * holds product text only, and category details are read from the snapshot.
+     */
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.getEntityType() == CatalogChangedEvent.EntityType.PRODUCT && event.getEntityId() != null) {
+            pendingProducts.add(event.getEntityId());
+        }
+    }
+
+    /**
+     * Queues the product again once the writing transaction finishes, so a version indexed
+     * by another thread before the commit (or from data that was rolled back) is replaced.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void onCatalogChangeCompleted(CatalogChangedEvent event) {
+        onCatalogChanged(event);
+    }
+
+    /**
+     * Products containing every term of {@code query}, best matches first: name matches
+     * rank above description matches, and names starting with the query rank highest.
+     */
+    public List<ProductResponse> search(String query, int limit) {
+        MenuSnapshot snapshot = applyPendingChanges();
+        String normalized = SearchTokenizer.normalize(query);
+        List<String> terms = SearchTokenizer.terms(normalized);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        Set<Long> candidates = null;
+        for (String term : terms) {
+            for (String gram : SearchTokenizer.queryGrams(term)) {
+                Set<Long> posting = postings.getOrDefault(gram, Set.of());
+                if (candidates == null) {
+                    candidates = new HashSet<>(posting);
+                } else {
+                    candidates.retainAll(posting);
+                }
+                if (candidates.isEmpty()) {
+                    return List.of();
+                }
+            }
+        }
+
+        List<Match> matches = new ArrayList<>();
+        for (Long productId : candidates) {
+            Document document = documents.get(productId);
+            if (document == null) {
+                continue;
+            }
+            int score = document.score(normalized, terms);
+            if (score > 0) {
+                matches.add(new Match(productId, score));
+            }
+        }
+        matches.sort(Comparator.comparingInt(Match::score).reversed().thenComparing(Match::productId));
+
+        return resolve(snapshot, matches.stream().map(Match::productId).toList(), limit);
+    }
+
+    /**
+     * Products with a name or description term, or a whole name, starting with {@code prefix},
+     * in alphabetical order of the matched term.
+     */
+    public List<ProductResponse> autocomplete(String prefix, int limit) {
+        MenuSnapshot snapshot = applyPendingChanges();
+        String normalized = SearchTokenizer.normalize(prefix).strip();
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (Set<Long> ids : prefixes.subMap(normalized, true, normalized + Character.MAX_VALUE, false).values()) {
+            productIds.addAll(ids);
+            if (productIds.size() >= limit) {
+                break;
+            }
+        }
+        return resolve(snapshot, productIds, limit);
+    }
+
+    private static List<ProductResponse> resolve(MenuSnapshot snapshot, Iterable<Long> productIds, int limit) {
+        List<ProductResponse> results = new ArrayList<>();
+        for (Long productId : productIds) {
+            ProductResponse product = snapshot.findProduct(productId);
+            if (product != null) {
+                results.add(product);
+                if (results.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Brings the index up to date with the current snapshot and returns that snapshot.
+     */
+    private MenuSnapshot applyPendingChanges() {
+        MenuSnapshot snapshot = menuCatalogService.snapshot();
+        if (built && pendingProducts.isEmpty()) {
+            return snapshot;
+        }
+
+        synchronized (writeLock) {
+            if (!built) {
+                pendingProducts.clear();
+                snapshot.getProducts().forEach(this::index);
+                built = true;
+                return snapshot;
+            }
+
+            List<Long> changed = new ArrayList<>(pendingProducts);
+            pendingProducts.removeAll(changed);
+            for (Long productId : changed) {
+                ProductResponse product = snapshot.findProduct(productId);
+                if (product != null) {
+                    index(product);
+                } else {
+                    remove(productId);
+                }
+            }
+            log.debug("Re-indexed {} products from menu snapshot v{}", changed.size(), snapshot.getVersion());
+        }
+        return snapshot;
+    }
+
+    private void index(ProductResponse product) {
+        remove(product.getId());
+
+        Document document = new Document(
+                SearchTokenizer.normalize(product.getName()),
+                SearchTokenizer.normalize(product.getDescription()));
+        documents.put(product.getId(), document);
+
+        Set<String> grams = new HashSet<>();
+        Set<String> keys = new HashSet<>();
+        keys.add(document.name().strip());
+        for (String text : List.of(document.name(), document.description())) {
+            for (String term : SearchTokenizer.terms(text)) {
+                grams.addAll(SearchTokenizer.grams(term));
+                keys.add(term);
+            }
+        }
+        grams.forEach(gram -> postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(product.getId()));
+        keys.stream()
+                .filter(key -> !key.isEmpty())
+                .forEach(key -> prefixes.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(product.getId()));
+    }
+
+    private void remove(Long productId) {
+        Document document = documents.remove(productId);
+        if (document == null) {
+            return;
+        }
+        for (String text : List.of(document.name(), document.description())) {
+            for (String term : SearchTokenizer.terms(text)) {
+                SearchTokenizer.grams(term).forEach(gram -> detach(postings, gram, productId));
+                detach(prefixes, term, productId);
+            }
+        }
+        detach(prefixes, document.name().strip(), productId);
+    }
+
+    private static void detach(Map<String, Set<Long>> index, String key, Long productId) {
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(productId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private record Document(String name, String description) {
+
+        /**
+         * Zero when some term is in neither field, which filters out n-gram false positives.
+         */
+        int score(String query, List<String> terms) {
+            int score = 0;
+            for (String term : terms) {
+                if (name.contains(term)) {
+                    score += 2;
+                } else if (description.contains(term)) {
+                    score += 1;
+                } else {
+                    return 0;
+                }
+            }
+            if (name.startsWith(query.strip())) {
+                score += terms.size() * 2;
+            }
+            return score;
+        }
+    }
+
+    private record Match(Long productId, int score) {
+    }
+}
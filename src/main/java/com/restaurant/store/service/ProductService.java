@@ -1,74 +1,127 @@
 package com.restaurant.store.service;
 
+import com.restaurant.store.dto.response.CatalogChangesResponse;
 import com.restaurant.store.dto.response.CategoryResponse;
+import com.restaurant.store.dto.response.ProductPageResponse;
 import com.restaurant.store.dto.response.ProductResponse;
-import com.restaurant.store.entity.Product;
+import com.restaurant.store.exception.BadRequestException;
 import com.restaurant.store.exception.ResourceNotFoundException;
-import com.restaurant.store.mapper.CategoryMapper;
-import com.restaurant.store.mapper.ProductMapper;
-import com.restaurant.store.repository.CategoryRepository;
 import com.restaurant.store.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
+/**
+ * Catalog reads. Every method except {@link #getProductPage} is served from the current
+ * {@link MenuSnapshot} (searches through the {@link ProductSearchIndex} kept beside it);
+ * none of them touches the database unless the catalog changed since the last read.
+ */
 @Service
 public class ProductService {
 
-    @Autowired
-    private ProductRepository productRepository;
+    public static final int MAX_PAGE_SIZE = 100;
 
     @Autowired
-    private CategoryRepository categoryRepository;
+    private MenuCatalogService menuCatalogService;
 
     @Autowired
-    private ProductMapper productMapper;
+    private ProductRepository productRepository;
 
     @Autowired
-    private CategoryMapper categoryMapper;
+    private ProductSearchIndex productSearchIndex;
+
+    /**
+     * Entity tag shared by the category and product list endpoints; changes whenever any
+     * product or category visible to clients changes.
+     */
+    public String getCatalogEtag() {
+        return menuCatalogService.snapshot().getEtag();
+    }
+
+    public String getCatalogChangesEtag(Long since) {
+        return menuCatalogService.snapshot().changesEtag(since);
+    }
+
+    public String getProductEtag(Long id) {
+        String etag = menuCatalogService.snapshot().findProductEtag(id);
+        if (etag == null) {
+            throw new ResourceNotFoundException("Product not found with id: " + id);
+        }
+        return etag;
+    }
 
     public List<CategoryResponse> getAllCategories() {
-        return categoryRepository.findAll()
-                .stream()
-                .map(categoryMapper::toResponse)
-                .collect(Collectors.toList());
+        return menuCatalogService.snapshot().getCategories();
     }
 
     public List<ProductResponse> getAllProducts(Long categoryId, Boolean availableOnly) {
-        List<Product> products;
-
-        if (categoryId != null && availableOnly != null && availableOnly) {
-            products = productRepository.findByIsAvailableTrueAndCategoryId(categoryId);
-        } else if (categoryId != null) {
-            products = productRepository.findByCategoryId(categoryId);
-        } else if (availableOnly != null && availableOnly) {
-            products = productRepository.findByIsAvailableTrue();
-        } else {
-            products = productRepository.findAll();
+        return menuCatalogService.snapshot()
+                .findProducts(categoryId, availableOnly != null && availableOnly);
+    }
+
+    /**
+     * Keyset page of products ordered by id, starting after {@code afterId}. Each page is a
+     * single indexed range query whose cost does not grow with the catalog size or with how
+     * far the client has paged.
+     */
+    public ProductPageResponse getProductPage(Long afterId, int limit, Long categoryId, Boolean availableOnly) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
         }
 
-        return products.stream()
-                .map(productMapper::toResponse)
-                .collect(Collectors.toList());
+        // One extra row tells whether another page follows without a count query
+        List<ProductResponse> rows = productRepository.findPageAfter(
+                afterId != null ? afterId : 0L, categoryId, availableOnly != null && availableOnly, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        List<ProductResponse> items = hasMore ? rows.subList(0, limit) : rows;
+
+        return ProductPageResponse.builder()
+                .items(items)
+                .nextCursor(hasMore ? items.get(items.size() - 1).getId() : null)
+                .hasMore(hasMore)
+                .limit(limit)
+                .build();
+    }
+
+    public List<ProductResponse> searchProducts(String query, int limit) {
+        validateSearch(query, limit);
+        return productSearchIndex.search(query, limit);
+    }
+
+    public List<ProductResponse> autocompleteProducts(String prefix, int limit) {
+        validateSearch(prefix, limit);
+        return productSearchIndex.autocomplete(prefix, limit);
+    }
+
+    private void validateSearch(String text, int limit) {
+        if (text == null || text.isBlank()) {
+            throw new BadRequestException("Search text is required");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
     }
 
     public ProductResponse getProductById(Long id) {
-        Product product = productRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
-        return productMapper.toResponse(product);
+        ProductResponse product = menuCatalogService.snapshot().findProduct(id);
+        if (product == null) {
+            throw new ResourceNotFoundException("Product not found with id: " + id);
+        }
+        return product;
+    }
+
+    public CatalogChangesResponse getCatalogChanges(Long since) {
+        return menuCatalogService.snapshot().changesSince(since);
     }
 
     public List<ProductResponse> getProductsByCategory(Long categoryId) {
+        MenuSnapshot snapshot = menuCatalogService.snapshot();
         // Verify category exists
-        categoryRepository.findById(categoryId)
-                .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + categoryId));
+        if (!snapshot.hasCategory(categoryId)) {
+            throw new ResourceNotFoundException("Category not found with id: " + categoryId);
+        }
 
-        List<Product> products = productRepository.findByCategoryId(categoryId);
-        return products.stream()
-                .map(productMapper::toResponse)
-                .collect(Collectors.toList());
+        return snapshot.findProducts(categoryId, false);
     }
 }
-
@@ -0,0 +1,105 @@
+package com.restaurant.store.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits product text into search terms and character n-grams.
+ * <p>
+ * A term is a run of letters, digits and combining marks. That gives whole words for
+ * Latin text, while Khmer, which is written without spaces between words, comes out as
+ * one long run per phrase. Because every term is then indexed by its n-grams, a query
+ * matches anywhere inside a run, so Khmer needs no dictionary-based word breaking.
+ * Positions are counted in code points, so Khmer subscripts (coeng) and vowel signs
+ * are never split from the surrogate pairs or marks around them.
+ */
+final class SearchTokenizer {
+
+    /**
+     * Longest n-gram indexed. Shorter grams are indexed too, so one- and two-character
+     * queries still have a posting list to look up.
+     */
+    static final int MAX_GRAM = 3;
+
+    private SearchTokenizer() {
+    }
+
+    /**
+     * Case-folded, NFC-normalized form of {@code text} with zero-width characters removed;
+     * Khmer text often carries stray zero-width spaces that would otherwise break a term.
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+        return normalized.replaceAll("[\\u200B\\u200C\\u200D\\u2060\\uFEFF]", "");
+    }
+
+    /**
+     * Terms of already-normalized text, in order of appearance.
+     */
+    static List<String> terms(String normalized) {
+        List<String> terms = new ArrayList<>();
+        int start = -1;
+        int i = 0;
+        while (i < normalized.length()) {
+            int codePoint = normalized.codePointAt(i);
+            if (isTermChar(codePoint)) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                terms.add(normalized.substring(start, i));
+                start = -1;
+            }
+            i += Character.charCount(codePoint);
+        }
+        if (start >= 0) {
+            terms.add(normalized.substring(start));
+        }
+        return terms;
+    }
+
+    /**
+     * Every n-gram of {@code term} from one to {@link #MAX_GRAM} code points long.
+     */
+    static Set<String> grams(String term) {
+        int[] codePoints = term.codePoints().toArray();
+        Set<String> grams = new LinkedHashSet<>();
+        for (int size = 1; size <= MAX_GRAM; size++) {
+            for (int from = 0; from + size <= codePoints.length; from++) {
+                grams.add(new String(codePoints, from, size));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * The grams a query term has to match: its longest n-grams, or the term itself when it
+     * is shorter than {@link #MAX_GRAM}. Matching the longest grams keeps posting lists short.
+     */
+    static Set<String> queryGrams(String term) {
+        int[] codePoints = term.codePoints().toArray();
+        if (codePoints.length <= MAX_GRAM) {
+            return Set.of(term);
+        }
+        Set<String> grams = new LinkedHashSet<>();
+        for (int from = 0; from + MAX_GRAM <= codePoints.length; from++) {
+            grams.add(new String(codePoints, from, MAX_GRAM));
+        }
+        return grams;
+    }
+
+    private static boolean isTermChar(int codePoint) {
+        if (Character.isLetterOrDigit(codePoint)) {
+            return true;
+        }
+        int type = Character.getType(codePoint);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK;
+    }
+}
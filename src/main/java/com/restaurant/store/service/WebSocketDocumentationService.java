@@ -30,6 +30,12 @@ public class WebSocketDocumentationService {
                         .subscribeEndpoint("Subscribe to /topic/orders/{orderId}")
                         .messageTypes(List.of("OrderStatusMessage"))
                         .build(),
+                WebSocketTopic.builder()
+                        .topic("/topic/orders/intake/{ticketId}")
+                        .description("Outcome of an order accepted with 202 in async intake mode")
+                        .subscribeEndpoint("Subscribe to /topic/orders/intake/{ticketId}")
+                        .messageTypes(List.of("OrderIntakeResponse"))
+                        .build(),
                 WebSocketTopic.builder()
                         .topic("/topic/deliveries/{orderId}")
                         .description("Real-time delivery tracking updates")
@@ -53,6 +59,13 @@ public class WebSocketDocumentationService {
                         .description("Delivery notifications (driver assigned, arriving soon, etc.)")
                         .subscribeEndpoint("Subscribe to /topic/deliveries/{orderId}")
                         .messageTypes(List.of("OrderStatusMessage"))
+                        .build(),
+                WebSocketTopic.builder()
+                        .topic("/user/queue/cart")
+                        .description("Item count and total of the customer's cart whenever it changes; "
+                                + "requires an Authorization header on CONNECT")
+                        .subscribeEndpoint("Subscribe to /user/queue/cart")
+                        .messageTypes(List.of("CartSummaryResponse"))
                         .build()
         );
 
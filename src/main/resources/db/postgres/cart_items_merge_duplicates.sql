@@ -0,0 +1,20 @@
+-- One row per (cart_id, product_id) in cart_items, then the unique key the cart upserts rely on.
+-- Run by PostgresMigrations before Hibernate updates the schema, for as long as the key is missing;
+-- duplicate lines are folded into the oldest one with their quantities summed.
+LOCK TABLE cart_items IN SHARE ROW EXCLUSIVE MODE;
+
+UPDATE cart_items keep
+SET quantity = dup.total_quantity
+FROM (SELECT MIN(id) AS keep_id, SUM(quantity) AS total_quantity
+      FROM cart_items
+      GROUP BY cart_id, product_id
+      HAVING COUNT(*) > 1) dup
+WHERE keep.id = dup.keep_id;
+
+DELETE FROM cart_items extra
+USING cart_items keep
+WHERE extra.cart_id = keep.cart_id
+  AND extra.product_id = keep.product_id
+  AND extra.id > keep.id;
+
+ALTER TABLE cart_items ADD CONSTRAINT uk_cart_items_cart_product UNIQUE (cart_id, product_id);
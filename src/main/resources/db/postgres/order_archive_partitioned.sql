@@ -0,0 +1,19 @@
+-- order_archive as a table range-partitioned by created_at (one partition per month).
+-- Created by OrderArchivePartitions when order.archive.postgres-partitioning=true and the
+-- table does not exist yet or is still empty; monthly partitions are added as orders are archived.
+CREATE TABLE order_archive (
+    id          BIGINT         NOT NULL,
+    customer_id BIGINT         NOT NULL,
+    status      VARCHAR(255)   NOT NULL,
+    order_type  VARCHAR(255)   NOT NULL,
+    total_price NUMERIC(10, 2) NOT NULL,
+    item_count  BIGINT         NOT NULL,
+    external_id BIGINT,
+    created_at  TIMESTAMP(6)   NOT NULL,
+    updated_at  TIMESTAMP(6),
+    archived_at TIMESTAMP(6)   NOT NULL,
+    snapshot    TEXT           NOT NULL,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX idx_order_archive_customer_id_id ON order_archive (customer_id, id);
@@ -0,0 +1,6 @@
+-- Drops the status indexes of orders that idx_orders_status_created_at_id (status, created_at, id)
+-- replaces: the earlier (status, created_at) one, and the same name over seven columns, which
+-- Hibernate would otherwise keep as it only compares index names. Run by PostgresMigrations before
+-- Hibernate updates the schema, which then creates the narrow index.
+DROP INDEX IF EXISTS idx_orders_status_created_at;
+DROP INDEX IF EXISTS idx_orders_status_created_at_id;
@@ -13,14 +13,25 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -55,6 +66,9 @@ class CartControllerIntegrationTest {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private String authToken;
     private Customer customer;
     private Product product1;
@@ -340,4 +354,205 @@ class CartControllerIntegrationTest {
                         .header("Authorization", authToken))
                 .andExpect(status().isNotFound());
     }
+
+    @Test
+    @DisplayName("Should write cart changes through to the cart rows")
+    void testCartChanges_Persisted() throws Exception {
+        AddToCartRequest addRequest = new AddToCartRequest(product1.getId(), 1);
+        String addResponse = mockMvc.perform(post("/api/cart/add")
+                        .header("Authorization", authToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(addRequest)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        Long cartItemId = objectMapper.readTree(addResponse)
+                .get("data").get("items").get(0).get("id").asLong();
+
+        // Adding the same product again adds to its line
+        mockMvc.perform(post("/api/cart/add")
+                        .header("Authorization", authToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(addRequest)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items", hasSize(1)))
+                .andExpect(jsonPath("$.data.items[0].id").value(cartItemId))
+                .andExpect(jsonPath("$.data.items[0].quantity").value(2));
+        assertEquals(2, cartItemRepository.findLinesByCustomerId(customer.getId()).get(0).getQuantity());
+
+        mockMvc.perform(delete("/api/cart/items/{cartItemId}", cartItemId)
+                        .header("Authorization", authToken))
+                .andExpect(status().isOk());
+        assertTrue(cartItemRepository.findLinesByCustomerId(customer.getId()).isEmpty());
+
+        mockMvc.perform(delete("/api/cart/items/{cartItemId}", cartItemId)
+                        .header("Authorization", authToken))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Should apply batched cart operations in order, all or none")
+    void testApplyBatch() throws Exception {
+        String batch = """
+                {"operations": [
+                  {"type": "ADD", "productId": %d, "quantity": 2},
+                  {"type": "ADD", "productId": %d, "quantity": 1},
+                  {"type": "SET_QUANTITY", "productId": %d, "quantity": 3}
+                ]}""".formatted(product1.getId(), product2.getId(), product1.getId());
+
+        mockMvc.perform(post("/api/cart/batch")
+                        .header("Authorization", authToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batch))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.items", hasSize(2)))
+                .andExpect(jsonPath("$.data.items[0].quantity").value(3))
+                .andExpect(jsonPath("$.data.items[1].quantity").value(1))
+                .andExpect(jsonPath("$.data.itemCount").value(4))
+                .andExpect(jsonPath("$.data.subtotal").value(45.00))
+                .andExpect(jsonPath("$.data.total").value(6049.50));
+        assertEquals(2, cartItemRepository.findLinesByCustomerId(customer.getId()).size());
+
+        // The second operation fails, so the removal before it is not applied either
+        String failing = """
+                {"operations": [
+                  {"type": "REMOVE", "productId": %d},
+                  {"type": "SET_QUANTITY", "cartItemId": 999999, "quantity": 2}
+                ]}""".formatted(product1.getId());
+
+        mockMvc.perform(post("/api/cart/batch")
+                        .header("Authorization", authToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(failing))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/api/cart")
+                        .header("Authorization", authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items", hasSize(2)))
+                .andExpect(jsonPath("$.data.itemCount").value(4));
+
+        mockMvc.perform(post("/api/cart/batch")
+                        .header("Authorization", authToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"operations\": [{\"type\": \"REMOVE\"}]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should return the cart item count and total")
+    void testGetCartSummary() throws Exception {
+        mockMvc.perform(get("/api/cart/summary")
+                        .header("Authorization", authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.itemCount").value(0))
+                .andExpect(jsonPath("$.data.total").value(0.0));
+
+        AddToCartRequest request = new AddToCartRequest();
+        request.setProductId(product1.getId());
+        request.setQuantity(2);
+        mockMvc.perform(post("/api/cart/add")
+                        .header("Authorization", authToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/cart/summary")
+                        .header("Authorization", authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.itemCount").value(2))
+                .andExpect(jsonPath("$.data.total").value(6022.00)) // 2*10 + VAT + fee
+                .andExpect(jsonPath("$.data.items").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Should keep every add when another instance writes the same cart lines")
+    void testConcurrentCartWrites() throws Exception {
+        AddToCartRequest request = new AddToCartRequest();
+        request.setProductId(product1.getId());
+        request.setQuantity(2);
+        String response = mockMvc.perform(post("/api/cart/add")
+                        .header("Authorization", authToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        Long cartId = objectMapper.readTree(response).get("data").get("id").asLong();
+
+        // Another instance adds 3 of the same product, and inserts a line for product 2
+        jdbcTemplate.update("UPDATE cart_items SET quantity = quantity + 3, version = version + 1 "
+                + "WHERE cart_id = ? AND product_id = ?", cartId, product1.getId());
+        jdbcTemplate.update("INSERT INTO cart_items (cart_id, product_id, quantity, price, version) "
+                + "VALUES (?, ?, 2, 15.00, 0)", cartId, product2.getId());
+
+        request.setQuantity(1);
+        mockMvc.perform(post("/api/cart/add")
+                        .header("Authorization", authToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items[0].quantity").value(6));
+
+        request.setProductId(product2.getId());
+        mockMvc.perform(post("/api/cart/add")
+                        .header("Authorization", authToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items", hasSize(2)))
+                .andExpect(jsonPath("$.data.items[1].quantity").value(3))
+                .andExpect(jsonPath("$.data.itemCount").value(9));
+
+        var lines = cartItemRepository.findLinesByCustomerId(customer.getId());
+        assertEquals(2, lines.size());
+        assertEquals(6, lines.get(0).getQuantity());
+        assertEquals(3, lines.get(1).getQuantity());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Should fold concurrent adds of the same product into one cart line")
+    void testConcurrentAddsOfSameProduct() throws Exception {
+        Cart cart = new Cart();
+        cart.setCustomer(customer);
+        Long cartId = cartRepository.save(cart).getId();
+
+        int threads = 8;
+        int addsPerThread = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> adds = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                adds.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < addsPerThread; i++) {
+                        cartItemRepository.upsertIncrement(cartId, product1.getId(), 1, product1.getPrice());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> add : adds) {
+                add.get(30, TimeUnit.SECONDS);
+            }
+
+            var lines = cartItemRepository.findLinesByCustomerId(customer.getId());
+            assertEquals(1, lines.size());
+            assertEquals(threads * addsPerThread, lines.get(0).getQuantity());
+        } finally {
+            executor.shutdownNow();
+            // Nothing rolls this test back
+            cartItemRepository.deleteAll();
+            cartRepository.deleteAll();
+            productRepository.deleteAll();
+            categoryRepository.deleteAll();
+            customerRepository.deleteAll();
+        }
+    }
 }
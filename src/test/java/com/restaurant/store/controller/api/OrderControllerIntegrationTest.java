@@ -4,23 +4,53 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.restaurant.store.dto.request.AddToCartRequest;
 import com.restaurant.store.dto.request.CreateOrderRequest;
 import com.restaurant.store.dto.request.LoginRequest;
+import com.restaurant.store.dto.request.OrderItemRequest;
+import com.restaurant.store.dto.request.PaymentRequest;
+import com.restaurant.store.dto.response.OrderIntakeResponse;
 import com.restaurant.store.entity.*;
+import com.restaurant.store.event.OrderChangedEvent;
+import com.restaurant.store.exception.BadRequestException;
+import com.restaurant.store.integration.AdminOutboxDispatcher;
+import com.restaurant.store.integration.AdminSyncOutbox;
 import com.restaurant.store.repository.*;
+import com.restaurant.store.security.InternalApiKeyFilter;
+import com.restaurant.store.service.MenuCatalogService;
+import com.restaurant.store.service.OrderArchiver;
+import com.restaurant.store.service.OrderIntakeDispatcher;
+import com.restaurant.store.service.OrderIntakeService;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -28,9 +58,12 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
 @Transactional
+@RecordApplicationEvents
 @DisplayName("Order Controller Integration Tests")
 class OrderControllerIntegrationTest {
 
+    private static final String INTERNAL_API_KEY = "test-internal-key";
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -58,9 +91,48 @@ class OrderControllerIntegrationTest {
     @Autowired
     private OrderItemRepository orderItemRepository;
 
+    @Autowired
+    private PickupRepository pickupRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private AdminOutboxMessageRepository adminOutboxMessageRepository;
+
+    @Autowired
+    private OrderArchiver orderArchiver;
+
+    @Autowired
+    private AdminSyncOutbox adminSyncOutbox;
+
+    @Autowired
+    private AdminOutboxDispatcher adminOutboxDispatcher;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private OrderIntakeService orderIntakeService;
+
+    @Autowired
+    private OrderIntakeDispatcher orderIntakeDispatcher;
+
+    @Autowired
+    private OrderIntakeTicketRepository orderIntakeTicketRepository;
+
+    @Autowired
+    private MenuCatalogService menuCatalogService;
+
     private String authToken;
     private Customer customer;
     private Product product1;
@@ -419,4 +491,1023 @@ class OrderControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true));
     }
+
+    @Test
+    @DisplayName("Should order the cart and empty it in the same request")
+    void testCreateOrder_ChecksOutCart() throws Exception {
+        addToCart(product2.getId(), 2);
+
+        CreateOrderRequest orderRequest = new CreateOrderRequest();
+        orderRequest.setPhoneNumber("1234567890");
+        orderRequest.setOrderType(OrderType.PICKUP);
+
+        mockMvc.perform(post("/api/orders")
+                        .header("Authorization", authToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.totalPrice").value(30.00))
+                .andExpect(jsonPath("$.data.orderItems", hasSize(1)))
+                .andExpect(jsonPath("$.data.orderItems[0].quantity").value(2));
+
+        mockMvc.perform(get("/api/cart")
+                        .header("Authorization", authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items", hasSize(0)));
+
+        // The cart was consumed by the first order
+        mockMvc.perform(post("/api/orders")
+                        .header("Authorization", authToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isBadRequest());
+        assertEquals(1, orderRepository.count());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Should give a cancelled unpaid order back to the cart, but not a paid one")
+    void testCancelOrder_ReturnsCartLines() throws Exception {
+        CreateOrderRequest orderRequest = new CreateOrderRequest();
+        orderRequest.setPhoneNumber("1234567890");
+        orderRequest.setOrderType(OrderType.PICKUP);
+        PaymentRequest paymentRequest = new PaymentRequest();
+        paymentRequest.setPaymentMethod(PaymentMethod.CASH_ON_DELIVERY);
+
+        try {
+            addToCart(product2.getId(), 2);
+            long unpaidOrderId = placeOrder(orderRequest);
+
+            for (int i = 0; i < 2; i++) {
+                mockMvc.perform(put("/api/orders/" + unpaidOrderId + "/cancel")
+                                .header("Authorization", authToken))
+                        .andExpect(i == 0 ? status().isOk() : status().isBadRequest());
+
+                // Back once, however often the cancel is retried
+                mockMvc.perform(get("/api/cart")
+                                .header("Authorization", authToken))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.data.items", hasSize(1)))
+                        .andExpect(jsonPath("$.data.items[0].productId").value(product2.getId()))
+                        .andExpect(jsonPath("$.data.items[0].quantity").value(2));
+            }
+
+            long paidOrderId = placeOrder(orderRequest);
+            mockMvc.perform(post("/api/orders/{orderId}/pay", paidOrderId)
+                            .header("Authorization", authToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(paymentRequest)))
+                    .andExpect(status().isOk());
+            mockMvc.perform(put("/api/orders/" + paidOrderId + "/cancel")
+                            .header("Authorization", authToken))
+                    .andExpect(status().isOk());
+
+            mockMvc.perform(get("/api/cart")
+                            .header("Authorization", authToken))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.items", hasSize(0)));
+        } finally {
+            // Nothing rolls this test back
+            jdbcTemplate.update("DELETE FROM payments");
+            jdbcTemplate.update("DELETE FROM pickups");
+            orderItemRepository.deleteAll();
+            adminOutboxMessageRepository.deleteAll();
+            orderRepository.deleteAll();
+            cartItemRepository.deleteAll();
+            cartRepository.deleteAll();
+            productRepository.deleteAll();
+            categoryRepository.deleteAll();
+            customerRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Should move the order's updatedAt forward when only its pickup changes")
+    void testPickupChange_StampsOrder() throws Exception {
+        try {
+            long orderId = objectMapper.readTree(orderPickup(product1.getId())
+                            .andExpect(status().isCreated())
+                            .andReturn()
+                            .getResponse()
+                            .getContentAsString())
+                    .get("data").get("id").asLong();
+            LocalDateTime before = jdbcTemplate.queryForObject(
+                    "SELECT updated_at FROM orders WHERE id = ?", LocalDateTime.class, orderId);
+
+            // Only dirty when the transaction commits, so only flushed by the commit itself
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    pickupRepository.findByOrderId(orderId).orElseThrow().setInstructions("Ring twice"));
+
+            LocalDateTime after = jdbcTemplate.queryForObject(
+                    "SELECT updated_at FROM orders WHERE id = ?", LocalDateTime.class, orderId);
+            assertTrue(after.isAfter(before));
+        } finally {
+            // Nothing rolls this test back
+            jdbcTemplate.update("DELETE FROM payments");
+            jdbcTemplate.update("DELETE FROM pickups");
+            orderItemRepository.deleteAll();
+            adminOutboxMessageRepository.deleteAll();
+            orderRepository.deleteAll();
+            cartItemRepository.deleteAll();
+            cartRepository.deleteAll();
+            productRepository.deleteAll();
+            categoryRepository.deleteAll();
+            customerRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @DisplayName("Should queue the admin sync in the outbox instead of calling the admin backend")
+    void testCreateOrder_QueuesAdminSync() throws Exception {
+        OrderItemRequest item = new OrderItemRequest(product1.getId(), 1, null);
+
+        CreateOrderRequest orderRequest = new CreateOrderRequest();
+        orderRequest.setOrderItems(List.of(item));
+        orderRequest.setPhoneNumber("1234567890");
+        orderRequest.setOrderType(OrderType.PICKUP);
+
+        String response = mockMvc.perform(post("/api/orders")
+                        .header("Authorization", authToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        Long orderId = objectMapper.readTree(response).get("data").get("id").asLong();
+
+        List<AdminOutboxMessage> messages = pendingOutboxMessages(orderId);
+        assertEquals(List.of(AdminOutboxMessage.Type.ORDER_CREATED, AdminOutboxMessage.Type.ORDER_STATUS_CHANGED),
+                messages.stream().map(AdminOutboxMessage::getType).toList());
+    }
+
+    @Test
+    @DisplayName("Should keep a status change pending when the admin backend does not confirm it")
+    void testDeliverAdminSync_UnconfirmedStatusChangeIsRetried() throws Exception {
+        Long orderId = createPickupOrder();
+        Order order = orderRepository.findById(orderId).orElseThrow();
+        order.setExternalId(999L);
+        orderRepository.save(order);
+
+        // No Admin backend is listening in tests, so the status update cannot be confirmed
+        adminSyncOutbox.deliver(orderId);
+
+        List<AdminOutboxMessage> pending = pendingOutboxMessages(orderId);
+        assertEquals(List.of(AdminOutboxMessage.Type.ORDER_STATUS_CHANGED),
+                pending.stream().map(AdminOutboxMessage::getType).toList());
+        AdminOutboxMessage statusChange = pending.get(0);
+        assertEquals(1, statusChange.getAttempts());
+        assertTrue(statusChange.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertEquals("Admin backend did not accept the status change", statusChange.getLastError());
+    }
+
+    @Test
+    @DisplayName("Should leave an order alone while another instance leases its outbox messages")
+    void testDeliverAdminSync_SkipsOrderLeasedElsewhere() throws Exception {
+        Long orderId = createPickupOrder();
+        List<AdminOutboxMessage> messages = pendingOutboxMessages(orderId);
+        messages.forEach(message -> {
+            message.setClaimedBy("other-instance");
+            message.setClaimedUntil(LocalDateTime.now().plusMinutes(5));
+        });
+        adminOutboxMessageRepository.saveAll(messages);
+
+        adminSyncOutbox.deliver(orderId);
+
+        List<AdminOutboxMessage> pending = pendingOutboxMessages(orderId);
+        assertEquals(2, pending.size());
+        pending.forEach(message -> assertEquals(0, message.getAttempts()));
+    }
+
+    @Test
+    @DisplayName("Should only dispatch orders whose oldest pending outbox message is due")
+    void testAdminOutbox_SkipsOrdersWhoseFirstMessageBacksOff() throws Exception {
+        Long backingOff = createPickupOrder();
+        Long due = createPickupOrder();
+        AdminOutboxMessage first = pendingOutboxMessages(backingOff).get(0);
+        first.setNextAttemptAt(LocalDateTime.now().plusMinutes(5));
+        adminOutboxMessageRepository.save(first);
+
+        // The later messages of the backing-off order are due, but have to wait for the first
+        assertEquals(List.of(due), adminOutboxMessageRepository.findDueOrderIds(
+                AdminOutboxMessage.Status.PENDING, LocalDateTime.now(), PageRequest.of(0, 10)));
+    }
+
+    @Test
+    @DisplayName("Should prune sent and failed outbox messages after the retention period")
+    void testAdminOutbox_PrunesFinishedMessages() throws Exception {
+        Long orderId = createPickupOrder();
+        List<AdminOutboxMessage> messages = pendingOutboxMessages(orderId);
+        AdminOutboxMessage oldSent = messages.get(0);
+        oldSent.setStatus(AdminOutboxMessage.Status.SENT);
+        oldSent.setSentAt(LocalDateTime.now().minusDays(10));
+        AdminOutboxMessage oldFailed = messages.get(1);
+        oldFailed.setStatus(AdminOutboxMessage.Status.FAILED);
+        oldFailed.setNextAttemptAt(LocalDateTime.now().minusDays(10));
+        AdminOutboxMessage recentSent = new AdminOutboxMessage(orderId, AdminOutboxMessage.Type.ORDER_STATUS_CHANGED);
+        recentSent.setStatus(AdminOutboxMessage.Status.SENT);
+        recentSent.setSentAt(LocalDateTime.now());
+        AdminOutboxMessage pending = new AdminOutboxMessage(orderId, AdminOutboxMessage.Type.ORDER_STATUS_CHANGED);
+        pending.setNextAttemptAt(LocalDateTime.now().minusDays(10));
+        adminOutboxMessageRepository.saveAll(List.of(oldSent, oldFailed, recentSent, pending));
+        adminOutboxMessageRepository.flush();
+        entityManager.clear();
+
+        adminOutboxDispatcher.pruneFinished();
+
+        assertFalse(adminOutboxMessageRepository.existsById(oldSent.getId()));
+        assertFalse(adminOutboxMessageRepository.existsById(oldFailed.getId()));
+        assertTrue(adminOutboxMessageRepository.existsById(recentSent.getId()));
+        assertTrue(adminOutboxMessageRepository.existsById(pending.getId()));
+    }
+
+    @Test
+    @DisplayName("Should refresh only the transitioned order and announce the change")
+    void testTransitionStatus_KeepsPersistenceContext() throws Exception {
+        long orderId = createPickupOrder();
+        Order order = orderRepository.findById(orderId).orElseThrow();
+        Customer loadedCustomer = customerRepository.findById(customer.getId()).orElseThrow();
+        entityManager.flush();
+        applicationEvents.clear();
+
+        assertTrue(orderRepository.transitionStatus(orderId, OrderStatus.CANCELLED));
+
+        assertTrue(entityManager.contains(order));
+        assertTrue(entityManager.contains(loadedCustomer));
+        assertEquals(OrderStatus.CANCELLED, order.getStatus());
+        assertEquals(1, applicationEvents.stream(OrderChangedEvent.class)
+                .filter(event -> event.getOrderId().equals(orderId))
+                .count());
+
+        applicationEvents.clear();
+        assertFalse(orderRepository.transitionStatus(orderId, OrderStatus.PREPARING));
+        assertEquals(0, applicationEvents.stream(OrderChangedEvent.class).count());
+    }
+
+    @Test
+    @DisplayName("Should list every order with its own items, payment and pickup details")
+    void testGetMyOrders_MultipleOrders() throws Exception {
+        CreateOrderRequest firstOrder = new CreateOrderRequest();
+        firstOrder.setOrderItems(List.of(new OrderItemRequest(product1.getId(), 1, null)));
+        firstOrder.setPhoneNumber("1234567890");
+        firstOrder.setOrderType(OrderType.PICKUP);
+
+        CreateOrderRequest secondOrder = new CreateOrderRequest();
+        secondOrder.setOrderItems(List.of(
+                new OrderItemRequest(product1.getId(), 2, null),
+                new OrderItemRequest(product2.getId(), 1, null)));
+        secondOrder.setPhoneNumber("1234567890");
+        secondOrder.setOrderType(OrderType.PICKUP);
+
+        for (CreateOrderRequest orderRequest : List.of(firstOrder, secondOrder)) {
+            mockMvc.perform(post("/api/orders")
+                            .header("Authorization", authToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(orderRequest)))
+                    .andExpect(status().isCreated());
+        }
+
+        mockMvc.perform(get("/api/orders/my-orders")
+                        .header("Authorization", authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(2)))
+                .andExpect(jsonPath("$.data[*].orderItems.length()", containsInAnyOrder(1, 2)))
+                .andExpect(jsonPath("$.data[*].totalPrice", containsInAnyOrder(10.00, 35.00)))
+                .andExpect(jsonPath("$.data[0].pickupCode").isNotEmpty())
+                .andExpect(jsonPath("$.data[1].pickupCode").isNotEmpty())
+                .andExpect(jsonPath("$.data[0].paymentStatus").value("PENDING"));
+    }
+
+    @Test
+    @DisplayName("Should page through order history summaries, newest first")
+    void testGetMyOrderHistory_Paginated() throws Exception {
+        for (int quantity = 1; quantity <= 3; quantity++) {
+            CreateOrderRequest orderRequest = new CreateOrderRequest();
+            orderRequest.setOrderItems(List.of(new OrderItemRequest(product1.getId(), quantity, null)));
+            orderRequest.setPhoneNumber("1234567890");
+            orderRequest.setOrderType(OrderType.PICKUP);
+            mockMvc.perform(post("/api/orders")
+                            .header("Authorization", authToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(orderRequest)))
+                    .andExpect(status().isCreated());
+        }
+
+        String firstPage = mockMvc.perform(get("/api/orders/history")
+                        .header("Authorization", authToken)
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items", hasSize(2)))
+                .andExpect(jsonPath("$.data.items[0].itemCount").value(3))
+                .andExpect(jsonPath("$.data.items[0].totalPrice").value(30.00))
+                .andExpect(jsonPath("$.data.items[0].orderType").value("PICKUP"))
+                .andExpect(jsonPath("$.data.items[0].orderItems").doesNotExist())
+                .andExpect(jsonPath("$.data.items[1].itemCount").value(2))
+                .andExpect(jsonPath("$.data.hasMore").value(true))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        long cursor = objectMapper.readTree(firstPage).get("data").get("nextCursor").asLong();
+
+        mockMvc.perform(get("/api/orders/history")
+                        .header("Authorization", authToken)
+                        .param("limit", "2")
+                        .param("before", String.valueOf(cursor)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items", hasSize(1)))
+                .andExpect(jsonPath("$.data.items[0].itemCount").value(1))
+                .andExpect(jsonPath("$.data.hasMore").value(false))
+                .andExpect(jsonPath("$.data.nextCursor").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Should not serve a cached order response after the order changes")
+    void testGetOrderById_AfterCancel() throws Exception {
+        CreateOrderRequest orderRequest = new CreateOrderRequest();
+        orderRequest.setOrderItems(List.of(new OrderItemRequest(product1.getId(), 1, null)));
+        orderRequest.setPhoneNumber("1234567890");
+        orderRequest.setOrderType(OrderType.PICKUP);
+
+        String created = mockMvc.perform(post("/api/orders")
+                        .header("Authorization", authToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        long orderId = objectMapper.readTree(created).get("data").get("id").asLong();
+
+        mockMvc.perform(get("/api/orders/" + orderId)
+                        .header("Authorization", authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.status").value("PENDING"));
+
+        mockMvc.perform(put("/api/orders/" + orderId + "/cancel")
+                        .header("Authorization", authToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/orders/" + orderId)
+                        .header("Authorization", authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.status").value("CANCELLED"));
+    }
+
+    @Test
+    @DisplayName("Should only apply allowed order status transitions")
+    void testOrderStatusTransitions() throws Exception {
+        CreateOrderRequest orderRequest = new CreateOrderRequest();
+        orderRequest.setOrderItems(List.of(new OrderItemRequest(product1.getId(), 1, null)));
+        orderRequest.setPhoneNumber("1234567890");
+        orderRequest.setOrderType(OrderType.PICKUP);
+
+        String created = mockMvc.perform(post("/api/orders")
+                        .header("Authorization", authToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        long orderId = objectMapper.readTree(created).get("data").get("id").asLong();
+
+        mockMvc.perform(post("/api/internal/orders/" + orderId + "/status")
+                        .header(InternalApiKeyFilter.HEADER, INTERNAL_API_KEY)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"PREPARING\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.status").value("PREPARING"));
+
+        // Repeating the current status is accepted, going back is not
+        mockMvc.perform(post("/api/internal/orders/" + orderId + "/status")
+                        .header(InternalApiKeyFilter.HEADER, INTERNAL_API_KEY)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"PREPARING\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/internal/orders/" + orderId + "/status")
+                        .header(InternalApiKeyFilter.HEADER, INTERNAL_API_KEY)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"CONFIRMED\"}"))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(put("/api/orders/" + orderId + "/cancel")
+                        .header("Authorization", authToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/orders/" + orderId + "/cancel")
+                        .header("Authorization", authToken))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/api/internal/orders/" + orderId + "/status")
+                        .header(InternalApiKeyFilter.HEADER, INTERNAL_API_KEY)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"COMPLETED\"}"))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(get("/api/orders/" + orderId)
+                        .header("Authorization", authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.status").value("CANCELLED"));
+    }
+
+    @Test
+    @DisplayName("Should reject ordering a product the menu marks unavailable")
+    void testCreateOrder_UnavailableProduct() throws Exception {
+        product2.setIsAvailable(false);
+        productRepository.saveAndFlush(product2);
+
+        orderPickup(product2.getId())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Product Product 2 is not available"));
+        assertEquals(0, orderRepository.count());
+
+        orderPickup(product1.getId())
+                .andExpect(status().isCreated());
+    }
+
+    @Test
+    @DisplayName("Should reject a product that is not in the menu's hot table yet")
+    void testCreateOrder_ProductMissingFromHotTable() throws Exception {
+        menuCatalogService.snapshot();
+        entityManager.flush();
+        // Written past JPA, so no catalog change is recorded and the hot table does not have it
+        long productId = 990001L;
+        jdbcTemplate.update("INSERT INTO products (id, name, price, is_available, category_id) VALUES (?, ?, ?, ?, ?)",
+                productId, "Unlisted", BigDecimal.valueOf(5), true, product1.getCategory().getId());
+
+        orderPickup(productId)
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("Product not found with id: " + productId));
+        assertEquals(0, orderRepository.count());
+    }
+
+    @Test
+    @DisplayName("Should reject a product the hot table still lists after it was deleted")
+    void testCreateOrder_ProductStaleInHotTable() throws Exception {
+        menuCatalogService.snapshot();
+        entityManager.flush();
+        // Deleted past JPA, so the hot table still lists it as available
+        jdbcTemplate.update("DELETE FROM products WHERE id = ?", product2.getId());
+        entityManager.clear();
+        assertTrue(menuCatalogService.snapshot().getHotTable().isAvailable(product2.getId()));
+
+        orderPickup(product2.getId())
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Should insert an order's items in one batch without reading the products")
+    void testCreateOrder_InsertsItemsInOneBatch() throws Exception {
+        menuCatalogService.snapshot();
+        entityManager.flush();
+        entityManager.clear();
+
+        CreateOrderRequest orderRequest = new CreateOrderRequest();
+        orderRequest.setOrderItems(List.of(
+                new OrderItemRequest(product1.getId(), 2, null),
+                new OrderItemRequest(product2.getId(), 1, "No onions")));
+        orderRequest.setPhoneNumber("1234567890");
+        orderRequest.setOrderType(OrderType.PICKUP);
+
+        SqlStatementRecorder.start();
+        List<String> statements;
+        try {
+            mockMvc.perform(post("/api/orders")
+                            .header("Authorization", authToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(orderRequest)))
+                    .andExpect(status().isCreated())
+                    .andExpect(jsonPath("$.data.totalPrice").value(35.00))
+                    .andExpect(jsonPath("$.data.orderItems", hasSize(2)))
+                    .andExpect(jsonPath("$.data.orderItems[0].productName").value("Product 1"))
+                    .andExpect(jsonPath("$.data.orderItems[1].productName").value("Product 2"));
+        } finally {
+            statements = SqlStatementRecorder.stop();
+        }
+
+        assertEquals(1, statements.stream().filter(sql -> sql.startsWith("insert into order_items")).count());
+        assertTrue(statements.stream().noneMatch(sql -> sql.startsWith("select") && sql.contains(" from products ")),
+                () -> "Products were read: " + statements);
+        assertEquals(2, orderItemRepository.count());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Should roll the whole order back when a product was deleted after the menu was read")
+    void testCreateOrder_RollsBackWhenProductDeleted() throws Exception {
+        try {
+            menuCatalogService.snapshot();
+            // Deleted past JPA, so the menu still offers it and only the item insert fails
+            jdbcTemplate.update("DELETE FROM products WHERE id = ?", product2.getId());
+
+            CreateOrderRequest orderRequest = new CreateOrderRequest();
+            orderRequest.setOrderItems(List.of(
+                    new OrderItemRequest(product1.getId(), 1, null),
+                    new OrderItemRequest(product2.getId(), 1, null)));
+            orderRequest.setPhoneNumber("1234567890");
+            orderRequest.setOrderType(OrderType.PICKUP);
+
+            mockMvc.perform(post("/api/orders")
+                            .header("Authorization", authToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(orderRequest)))
+                    .andExpect(status().isNotFound());
+
+            assertEquals(0, orderRepository.count());
+            assertEquals(0, orderItemRepository.count());
+        } finally {
+            // Nothing rolls this test back
+            orderItemRepository.deleteAll();
+            orderRepository.deleteAll();
+            adminOutboxMessageRepository.deleteAll();
+            cartItemRepository.deleteAll();
+            cartRepository.deleteAll();
+            productRepository.deleteAll();
+            categoryRepository.deleteAll();
+            customerRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @DisplayName("Should refuse internal calls without the internal API key")
+    void testInternalApi_RequiresKey() throws Exception {
+        mockMvc.perform(get("/api/internal/orders/search"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/api/internal/orders/search")
+                        .header(InternalApiKeyFilter.HEADER, "wrong-key"))
+                .andExpect(status().isUnauthorized());
+        // A customer's token does not open them either
+        mockMvc.perform(get("/api/internal/orders/search")
+                        .header("Authorization", authToken))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(post("/api/sync/all"))
+                .andExpect(status().isUnauthorized());
+
+        mockMvc.perform(get("/api/internal/orders/search")
+                        .header(InternalApiKeyFilter.HEADER, INTERNAL_API_KEY))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @DisplayName("Should replay order creation retried with the same Idempotency-Key")
+    void testCreateOrder_IdempotencyKey() throws Exception {
+        CreateOrderRequest orderRequest = new CreateOrderRequest();
+        orderRequest.setOrderItems(List.of(new OrderItemRequest(product1.getId(), 1, null)));
+        orderRequest.setPhoneNumber("1234567890");
+        orderRequest.setOrderType(OrderType.PICKUP);
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        String created = mockMvc.perform(post("/api/orders")
+                        .header("Authorization", authToken)
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        long orderId = objectMapper.readTree(created).get("data").get("id").asLong();
+
+        mockMvc.perform(post("/api/orders")
+                        .header("Authorization", authToken)
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.data.id").value(orderId));
+
+        orderRequest.setOrderItems(List.of(new OrderItemRequest(product2.getId(), 1, null)));
+        mockMvc.perform(post("/api/orders")
+                        .header("Authorization", authToken)
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(get("/api/orders/my-orders")
+                        .header("Authorization", authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(1)));
+    }
+
+    @Test
+    @DisplayName("Should serve archived orders when asked")
+    void testArchivedOrders() throws Exception {
+        CreateOrderRequest orderRequest = new CreateOrderRequest();
+        orderRequest.setOrderItems(List.of(new OrderItemRequest(product1.getId(), 2, null)));
+        orderRequest.setPhoneNumber("1234567890");
+        orderRequest.setOrderType(OrderType.PICKUP);
+
+        String created = mockMvc.perform(post("/api/orders")
+                        .header("Authorization", authToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        long orderId = objectMapper.readTree(created).get("data").get("id").asLong();
+
+        mockMvc.perform(put("/api/orders/" + orderId + "/cancel")
+                        .header("Authorization", authToken))
+                .andExpect(status().isOk());
+        // The order's Admin sync is still pending and holds it back
+        assertEquals(0, orderArchiver.archiveBatch(LocalDateTime.now().plusMinutes(1), 10));
+        List<AdminOutboxMessage> sent = pendingOutboxMessages(orderId);
+        sent.forEach(message -> {
+            message.setStatus(AdminOutboxMessage.Status.SENT);
+            message.setSentAt(LocalDateTime.now());
+        });
+        adminOutboxMessageRepository.saveAll(sent);
+
+        assertEquals(1, orderArchiver.archiveBatch(LocalDateTime.now().plusMinutes(1), 10));
+        assertEquals(false, orderRepository.existsById(orderId));
+        // Its sent messages go with it
+        assertEquals(0, adminOutboxMessageRepository.count());
+
+        mockMvc.perform(get("/api/orders/history")
+                        .header("Authorization", authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items", hasSize(0)));
+
+        mockMvc.perform(get("/api/orders/history")
+                        .header("Authorization", authToken)
+                        .param("includeArchived", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items", hasSize(1)))
+                .andExpect(jsonPath("$.data.items[0].id").value(orderId))
+                .andExpect(jsonPath("$.data.items[0].itemCount").value(2))
+                .andExpect(jsonPath("$.data.items[0].status").value("CANCELLED"));
+
+        mockMvc.perform(get("/api/orders/" + orderId)
+                        .header("Authorization", authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.status").value("CANCELLED"))
+                .andExpect(jsonPath("$.data.orderItems", hasSize(1)))
+                .andExpect(jsonPath("$.data.pickupCode").isNotEmpty());
+
+        mockMvc.perform(get("/api/orders/" + orderId + "/status")
+                        .header("Authorization", authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data").value("CANCELLED"));
+
+        mockMvc.perform(get("/api/pickups/" + orderId)
+                        .header("Authorization", authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.orderId").value(orderId))
+                .andExpect(jsonPath("$.data.pickupCode").isNotEmpty());
+
+        mockMvc.perform(post("/api/orders/" + orderId + "/payment-intent")
+                        .header("Authorization", authToken))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Cannot process payment for cancelled order"));
+
+        mockMvc.perform(put("/api/orders/" + orderId + "/cancel")
+                        .header("Authorization", authToken))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Order is already cancelled"));
+
+        mockMvc.perform(get("/api/orders/my-orders")
+                        .header("Authorization", authToken)
+                        .param("includeArchived", "true")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(1)))
+                .andExpect(jsonPath("$.data[0].id").value(orderId));
+
+        mockMvc.perform(get("/api/orders/my-orders")
+                        .header("Authorization", authToken)
+                        .param("includeArchived", "true")
+                        .param("before", String.valueOf(orderId)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(0)));
+    }
+
+    @Test
+    @DisplayName("Should apply a batch of status updates with a result per order")
+    void testBatchOrderStatusUpdate() throws Exception {
+        long firstOrderId = createPickupOrder();
+        long secondOrderId = createPickupOrder();
+
+        mockMvc.perform(post("/api/internal/orders/status:batch")
+                        .header(InternalApiKeyFilter.HEADER, INTERNAL_API_KEY)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"updates\":["
+                                + "{\"orderId\":" + firstOrderId + ",\"status\":\"READY_FOR_PICKUP\"},"
+                                + "{\"orderId\":" + secondOrderId + ",\"status\":\"CANCELLED\"},"
+                                + "{\"orderId\":999999,\"status\":\"PREPARING\"}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(3)))
+                .andExpect(jsonPath("$.data[0].outcome").value("UPDATED"))
+                .andExpect(jsonPath("$.data[0].order.status").value("READY_FOR_PICKUP"))
+                .andExpect(jsonPath("$.data[0].order.pickupStatus").value("READY_FOR_PICKUP"))
+                .andExpect(jsonPath("$.data[1].outcome").value("UPDATED"))
+                .andExpect(jsonPath("$.data[1].order.pickupStatus").value("CANCELLED"))
+                .andExpect(jsonPath("$.data[2].outcome").value("NOT_FOUND"));
+
+        mockMvc.perform(post("/api/internal/orders/status:batch")
+                        .header(InternalApiKeyFilter.HEADER, INTERNAL_API_KEY)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"updates\":["
+                                + "{\"orderId\":" + firstOrderId + ",\"status\":\"CONFIRMED\"},"
+                                + "{\"orderId\":" + secondOrderId + ",\"status\":\" cancelled \"}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].outcome").value("REJECTED"))
+                .andExpect(jsonPath("$.data[0].order.status").value("READY_FOR_PICKUP"))
+                .andExpect(jsonPath("$.data[1].outcome").value("UNCHANGED"))
+                .andExpect(jsonPath("$.data[1].estimatedDeliveryTimeChanged").value(false));
+
+        // Only a new estimated delivery time makes an unchanged entry worth announcing
+        for (boolean changed : new boolean[]{true, false}) {
+            mockMvc.perform(post("/api/internal/orders/status:batch")
+                            .header(InternalApiKeyFilter.HEADER, INTERNAL_API_KEY)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("{\"updates\":[{\"orderId\":" + secondOrderId
+                                    + ",\"status\":\"CANCELLED\",\"estimatedDeliveryTime\":\"2030-01-01T12:30:00\"}]}"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data[0].outcome").value("UNCHANGED"))
+                    .andExpect(jsonPath("$.data[0].estimatedDeliveryTimeChanged").value(changed));
+        }
+
+        mockMvc.perform(post("/api/internal/orders/status:batch")
+                        .header(InternalApiKeyFilter.HEADER, INTERNAL_API_KEY)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"updates\":["
+                                + "{\"orderId\":" + firstOrderId + ",\"status\":\"COMPLETED\"},"
+                                + "{\"orderId\":" + firstOrderId + ",\"status\":\"CANCELLED\"}]}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/orders/" + firstOrderId)
+                        .header("Authorization", authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.status").value("READY_FOR_PICKUP"));
+    }
+
+    @Test
+    @DisplayName("Should keep orders, pickups and deliveries to their owner")
+    void testOrderOwnershipChecks() throws Exception {
+        long orderId = createPickupOrder();
+
+        Customer otherCustomer = new Customer();
+        otherCustomer.setEmail("other@example.com");
+        otherCustomer.setPasswordHash(passwordEncoder.encode("password123"));
+        otherCustomer.setName("Other User");
+        otherCustomer.setPhone("0987654321");
+        customerRepository.save(otherCustomer);
+
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("other@example.com");
+        loginRequest.setPassword("password123");
+        String loginResponse = mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String otherToken = "Bearer " + objectMapper.readTree(loginResponse).get("data").get("token").asText();
+
+        mockMvc.perform(get("/api/orders/" + orderId + "/status")
+                        .header("Authorization", authToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/pickups/" + orderId)
+                        .header("Authorization", authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.orderId").value(orderId));
+
+        for (String path : List.of("/api/orders/", "/api/pickups/", "/api/deliveries/")) {
+            mockMvc.perform(get(path + orderId)
+                            .header("Authorization", otherToken))
+                    .andExpect(status().isBadRequest());
+        }
+        mockMvc.perform(get("/api/orders/" + orderId + "/status")
+                        .header("Authorization", otherToken))
+                .andExpect(status().isBadRequest());
+
+        // A pickup order has no delivery
+        mockMvc.perform(get("/api/deliveries/" + orderId)
+                        .header("Authorization", authToken))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/orders/999999/status")
+                        .header("Authorization", authToken))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @DisplayName("Should search orders with filters and keyset pages")
+    void testSearchOrders() throws Exception {
+        long firstOrderId = createPickupOrder();
+        long secondOrderId = createPickupOrder();
+        long thirdOrderId = createPickupOrder();
+        mockMvc.perform(put("/api/orders/" + secondOrderId + "/cancel")
+                        .header("Authorization", authToken))
+                .andExpect(status().isOk());
+
+        String firstPage = mockMvc.perform(get("/api/internal/orders/search")
+                        .header(InternalApiKeyFilter.HEADER, INTERNAL_API_KEY)
+                        .param("status", "PENDING")
+                        .param("customerId", customer.getId().toString())
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items", hasSize(1)))
+                .andExpect(jsonPath("$.data.items[0].id").value(thirdOrderId))
+                .andExpect(jsonPath("$.data.items[0].customerId").value(customer.getId()))
+                .andExpect(jsonPath("$.data.hasMore").value(true))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String cursor = objectMapper.readTree(firstPage).get("data").get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/internal/orders/search")
+                        .header(InternalApiKeyFilter.HEADER, INTERNAL_API_KEY)
+                        .param("status", "PENDING")
+                        .param("customerId", customer.getId().toString())
+                        .param("limit", "1")
+                        .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items", hasSize(1)))
+                .andExpect(jsonPath("$.data.items[0].id").value(firstOrderId))
+                .andExpect(jsonPath("$.data.hasMore").value(false))
+                .andExpect(jsonPath("$.data.nextCursor").isEmpty());
+
+        mockMvc.perform(get("/api/internal/orders/search")
+                        .header(InternalApiKeyFilter.HEADER, INTERNAL_API_KEY)
+                        .param("status", "PENDING", "CANCELLED")
+                        .param("orderType", "PICKUP")
+                        .param("createdFrom", LocalDateTime.now().minusHours(1).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items", hasSize(3)));
+
+        mockMvc.perform(get("/api/internal/orders/search")
+                        .header(InternalApiKeyFilter.HEADER, INTERNAL_API_KEY)
+                        .param("orderType", "DELIVERY"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items", hasSize(0)));
+
+        mockMvc.perform(get("/api/internal/orders/search")
+                        .header(InternalApiKeyFilter.HEADER, INTERNAL_API_KEY)
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should queue an order request as an intake ticket and create the order from it")
+    void testOrderIntake_CompletesTicket() throws Exception {
+        long ticketId = submitIntakeTicket(product1);
+
+        mockMvc.perform(get("/api/orders/intake/" + ticketId)
+                        .header("Authorization", authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.status").value("QUEUED"))
+                .andExpect(jsonPath("$.data.queuePosition").value(0));
+
+        OrderIntakeResponse outcome = orderIntakeService.process(ticketId).orElseThrow();
+        assertEquals(OrderIntakeTicket.Status.COMPLETED, outcome.getStatus());
+        assertTrue(orderRepository.existsById(outcome.getOrderId()));
+        assertTrue(orderIntakeService.process(ticketId).isEmpty());
+
+        mockMvc.perform(get("/api/orders/intake/" + ticketId)
+                        .header("Authorization", authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.data.orderId").value(outcome.getOrderId()))
+                .andExpect(jsonPath("$.data.queuePosition").doesNotExist());
+    }
+
+    @Test
+    @DisplayName("Should fail an intake ticket at once when its order is rejected")
+    void testOrderIntake_RejectedOrderFailsTicket() throws Exception {
+        long ticketId = submitIntakeTicket(product1);
+
+        OrderIntakeResponse outcome = orderIntakeService.recordFailure(ticketId,
+                new BadRequestException("Product 1 is not available")).orElseThrow();
+
+        assertEquals(OrderIntakeTicket.Status.FAILED, outcome.getStatus());
+        assertEquals("Product 1 is not available", outcome.getError());
+        assertTrue(orderIntakeService.process(ticketId).isEmpty());
+        mockMvc.perform(get("/api/orders/intake/" + ticketId)
+                        .header("Authorization", authToken))
+                .andExpect(jsonPath("$.data.status").value("FAILED"));
+    }
+
+    @Test
+    @DisplayName("Should retry an intake ticket after a transient error until the attempts run out")
+    void testOrderIntake_TransientErrorIsRetried() throws Exception {
+        long ticketId = submitIntakeTicket(product1);
+        int maxAttempts = (int) ReflectionTestUtils.getField(orderIntakeService, "maxAttempts");
+
+        for (int attempt = 1; attempt < maxAttempts; attempt++) {
+            assertTrue(orderIntakeService.recordFailure(ticketId,
+                    new DataAccessResourceFailureException("Connection refused")).isEmpty());
+            OrderIntakeTicket ticket = orderIntakeTicketRepository.findById(ticketId).orElseThrow();
+            assertEquals(OrderIntakeTicket.Status.QUEUED, ticket.getStatus());
+            assertEquals(attempt, ticket.getAttempts());
+            assertTrue(ticket.getNextAttemptAt().isAfter(LocalDateTime.now()));
+            assertFalse(orderIntakeTicketRepository.findDueIds(OrderIntakeTicket.Status.QUEUED,
+                    LocalDateTime.now(), PageRequest.of(0, 10)).contains(ticketId));
+        }
+
+        OrderIntakeResponse outcome = orderIntakeService.recordFailure(ticketId,
+                new DataAccessResourceFailureException("Connection refused")).orElseThrow();
+        assertEquals(OrderIntakeTicket.Status.FAILED, outcome.getStatus());
+    }
+
+    @Test
+    @DisplayName("Should prune intake tickets processed before the retention window")
+    void testOrderIntake_PrunesProcessedTickets() throws Exception {
+        long queued = submitIntakeTicket(product1);
+        long recent = submitIntakeTicket(product1);
+        long old = submitIntakeTicket(product1);
+        orderIntakeService.recordFailure(recent, new BadRequestException("Rejected"));
+        orderIntakeService.recordFailure(old, new BadRequestException("Rejected"));
+        jdbcTemplate.update("UPDATE order_intake SET processed_at = ?, created_at = ? WHERE id IN (?, ?)",
+                LocalDateTime.now().minusDays(3), LocalDateTime.now().minusDays(3), old, queued);
+        entityManager.clear();
+
+        orderIntakeDispatcher.pruneProcessed();
+
+        assertTrue(orderIntakeTicketRepository.existsById(queued));
+        assertTrue(orderIntakeTicketRepository.existsById(recent));
+        assertFalse(orderIntakeTicketRepository.existsById(old));
+    }
+
+    /**
+     * Posts an order for one unit of {@code product} with async intake switched on and
+     * returns the ticket id.
+     */
+    private long submitIntakeTicket(Product product) throws Exception {
+        CreateOrderRequest orderRequest = new CreateOrderRequest();
+        orderRequest.setOrderItems(List.of(new OrderItemRequest(product.getId(), 1, null)));
+        orderRequest.setPhoneNumber("1234567890");
+        orderRequest.setOrderType(OrderType.PICKUP);
+
+        ReflectionTestUtils.setField(orderIntakeService, "enabled", true);
+        try {
+            String queued = mockMvc.perform(post("/api/orders")
+                            .header("Authorization", authToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(orderRequest)))
+                    .andExpect(status().isAccepted())
+                    .andExpect(jsonPath("$.data.status").value("QUEUED"))
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+            return objectMapper.readTree(queued).get("data").get("ticketId").asLong();
+        } finally {
+            ReflectionTestUtils.setField(orderIntakeService, "enabled", false);
+        }
+    }
+
+    private List<AdminOutboxMessage> pendingOutboxMessages(Long orderId) {
+        return adminOutboxMessageRepository.findAll().stream()
+                .filter(message -> message.getOrderId().equals(orderId)
+                        && message.getStatus() == AdminOutboxMessage.Status.PENDING)
+                .sorted(Comparator.comparing(AdminOutboxMessage::getId))
+                .toList();
+    }
+
+    private long createPickupOrder() throws Exception {
+        String created = orderPickup(product1.getId())
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readTree(created).get("data").get("id").asLong();
+    }
+
+    private void addToCart(Long productId, int quantity) throws Exception {
+        AddToCartRequest cartRequest = new AddToCartRequest();
+        cartRequest.setProductId(productId);
+        cartRequest.setQuantity(quantity);
+        mockMvc.perform(post("/api/cart/add")
+                        .header("Authorization", authToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(cartRequest)))
+                .andExpect(status().isOk());
+    }
+
+    private long placeOrder(CreateOrderRequest orderRequest) throws Exception {
+        String created = mockMvc.perform(post("/api/orders")
+                        .header("Authorization", authToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(orderRequest)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        return objectMapper.readTree(created).get("data").get("id").asLong();
+    }
+
+    private ResultActions orderPickup(Long productId) throws Exception {
+        CreateOrderRequest orderRequest = new CreateOrderRequest();
+        orderRequest.setOrderItems(List.of(new OrderItemRequest(productId, 1, null)));
+        orderRequest.setPhoneNumber("1234567890");
+        orderRequest.setOrderType(OrderType.PICKUP);
+
+        return mockMvc.perform(post("/api/orders")
+                .header("Authorization", authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(orderRequest)));
+    }
 }
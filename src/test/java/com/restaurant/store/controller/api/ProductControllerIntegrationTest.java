@@ -1,21 +1,42 @@
 package com.restaurant.store.controller.api;
 
+import com.jayway.jsonpath.JsonPath;
+import com.restaurant.store.entity.CatalogTombstone;
 import com.restaurant.store.entity.Category;
 import com.restaurant.store.entity.Product;
+import com.restaurant.store.event.CatalogChangedEvent;
+import com.restaurant.store.repository.CatalogTombstoneRepository;
 import com.restaurant.store.repository.CategoryRepository;
 import com.restaurant.store.repository.ProductRepository;
+import com.restaurant.store.service.CatalogTombstonePruneJob;
+import com.restaurant.store.service.MenuCatalogService;
+import com.restaurant.store.service.MenuFragmentCache;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -36,6 +57,27 @@ class ProductControllerIntegrationTest {
     @Autowired
     private ProductRepository productRepository;
 
+    @Autowired
+    private CatalogTombstoneRepository catalogTombstoneRepository;
+
+    @Autowired
+    private CatalogTombstonePruneJob catalogTombstonePruneJob;
+
+    @Autowired
+    private MenuCatalogService menuCatalogService;
+
+    @Autowired
+    private MenuFragmentCache menuFragmentCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     private Category category1;
     private Category category2;
     private Product product1;
@@ -85,6 +127,9 @@ class ProductControllerIntegrationTest {
         product3.setIsAvailable(false); // Not available
         product3.setImageUrl("pizza.jpg");
         product3 = productRepository.save(product3);
+
+        // The menu snapshot picks up catalog writes once they are flushed
+        productRepository.flush();
     }
 
     @Test
@@ -198,11 +243,311 @@ class ProductControllerIntegrationTest {
         Category emptyCategory = new Category();
         emptyCategory.setName("Empty Category");
         emptyCategory.setDescription("No products");
-        emptyCategory = categoryRepository.save(emptyCategory);
+        emptyCategory = categoryRepository.saveAndFlush(emptyCategory);
 
         mockMvc.perform(get("/api/categories/{categoryId}/products", emptyCategory.getId()))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
                 .andExpect(jsonPath("$.data", hasSize(0)));
     }
+
+    @Test
+    @DisplayName("Should reflect catalog changes in subsequent reads")
+    void testGetAllProducts_ReflectsCatalogChanges() throws Exception {
+        mockMvc.perform(get("/api/products").param("availableOnly", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(2)));
+
+        product3.setIsAvailable(true);
+        productRepository.saveAndFlush(product3);
+
+        mockMvc.perform(get("/api/products").param("availableOnly", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(3)))
+                .andExpect(jsonPath("$.data[*].name", hasItem("Margherita Pizza")));
+    }
+
+    @Test
+    @DisplayName("Should answer 304 while the catalog ETag still matches")
+    void testGetAllProducts_ConditionalGet() throws Exception {
+        String etag = mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/products").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        product1.setPrice(BigDecimal.valueOf(10.49));
+        productRepository.saveAndFlush(product1);
+
+        mockMvc.perform(get("/api/products").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    @Test
+    @DisplayName("Should answer 304 for the products grid while its ETag still matches")
+    void testProductsGrid_ConditionalGet() throws Exception {
+        String etag = mockMvc.perform(get("/menu/products-grid").param("categoryId", category1.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().string(containsString("Classic Burger")))
+                .andExpect(content().string(containsString("x-data")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/menu/products-grid").param("categoryId", category1.getId().toString())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT_ENCODING)))
+                .andExpect(content().string(""));
+
+        product1.setPrice(BigDecimal.valueOf(10.49));
+        productRepository.saveAndFlush(product1);
+
+        mockMvc.perform(get("/menu/products-grid").param("categoryId", category1.getId().toString())
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    @Test
+    @DisplayName("Should inline the cached products grid into the menu page")
+    void testMenuPage_InlinesCachedGrid() throws Exception {
+        String grid = menuFragmentCache.get(category1.getId()).gridMarkup();
+        assertThat(grid).contains("Classic Burger").doesNotContain("Margherita Pizza");
+
+        mockMvc.perform(get("/menu").param("categoryId", category1.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(grid)));
+    }
+
+    @Test
+    @DisplayName("Should serve one shared empty grid for categories the menu does not know")
+    void testProductsGrid_UnknownCategoriesShareOneEntry() throws Exception {
+        assertThat(menuFragmentCache.get(990001L)).isSameAs(menuFragmentCache.get(990002L));
+
+        mockMvc.perform(get("/menu/products-grid").param("categoryId", "990003"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("No menu items found")))
+                .andExpect(content().string(not(containsString("Classic Burger"))));
+    }
+
+    @Test
+    @DisplayName("Should negotiate the products grid encoding with its own ETag per encoding")
+    void testProductsGrid_EncodingNegotiation() throws Exception {
+        MvcResult gzipped = mockMvc.perform(get("/menu/products-grid")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn();
+        String gzipEtag = gzipped.getResponse().getHeader(HttpHeaders.ETAG);
+        try (GZIPInputStream in = new GZIPInputStream(
+                new ByteArrayInputStream(gzipped.getResponse().getContentAsByteArray()))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).contains("Margherita Pizza");
+        }
+
+        String plainEtag = mockMvc.perform(get("/menu/products-grid")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, *"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().string(containsString("Margherita Pizza")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(plainEtag).isNotEqualTo(gzipEtag);
+
+        mockMvc.perform(get("/menu/products-grid").header(HttpHeaders.ACCEPT_ENCODING, "*;q=0.5"))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+
+        // The gzip ETag does not validate the identity representation
+        mockMvc.perform(get("/menu/products-grid").header(HttpHeaders.IF_NONE_MATCH, gzipEtag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, plainEtag));
+    }
+
+    @Test
+    @DisplayName("Should return the whole menu, then only changes since the returned version")
+    void testGetCatalogChanges() throws Exception {
+        String body = mockMvc.perform(get("/api/products/changes"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.fullResync").value(true))
+                .andExpect(jsonPath("$.data.products", hasSize(3)))
+                .andExpect(jsonPath("$.data.categories", hasSize(2)))
+                .andReturn().getResponse().getContentAsString();
+        long version = JsonPath.parse(body).read("$.data.version", Long.class);
+
+        mockMvc.perform(get("/api/products/changes").param("since", String.valueOf(version + 60_000)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.fullResync").value(false))
+                .andExpect(jsonPath("$.data.products", hasSize(0)))
+                .andExpect(jsonPath("$.data.deletedProductIds", hasSize(0)));
+
+        product1.setPrice(BigDecimal.valueOf(10.49));
+        productRepository.saveAndFlush(product1);
+
+        mockMvc.perform(get("/api/products/changes").param("since", String.valueOf(version)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.version", greaterThanOrEqualTo(version)))
+                .andExpect(jsonPath("$.data.products[?(@.id == " + product1.getId() + ")].price", contains(10.49)));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Should report both categories when a product moves between them")
+    void testGetCatalogChanges_CategoryMove() throws Exception {
+        try {
+            long since = ageCatalog() + 10_000;
+
+            mockMvc.perform(get("/api/products/changes").param("since", String.valueOf(since)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.fullResync").value(false))
+                    .andExpect(jsonPath("$.data.categories", hasSize(0)))
+                    .andExpect(jsonPath("$.data.products", hasSize(0)));
+
+            // The categories are restamped right before the move commits
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> productRepository
+                    .findById(product1.getId()).orElseThrow()
+                    .setCategory(categoryRepository.getReferenceById(category2.getId())));
+
+            mockMvc.perform(get("/api/products/changes").param("since", String.valueOf(since)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.categories[*].id",
+                            containsInAnyOrder(category1.getId().intValue(), category2.getId().intValue())))
+                    .andExpect(jsonPath("$.data.products[*].id", hasItem(product1.getId().intValue())));
+        } finally {
+            // Nothing rolls this test back
+            productRepository.deleteAll();
+            categoryRepository.deleteAll();
+            catalogTombstoneRepository.deleteAll();
+        }
+    }
+
+    @Test
+    @DisplayName("Should key the change feed ETag on the requested version")
+    void testGetCatalogChanges_EtagDependsOnSince() throws Exception {
+        long since = ageCatalog() + 10_000;
+
+        String etag = mockMvc.perform(get("/api/products/changes").param("since", String.valueOf(since)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/products/changes").param("since", String.valueOf(since))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(get("/api/products/changes").param("since", String.valueOf(since - 60_000))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.products", hasSize(3)));
+    }
+
+    @Test
+    @DisplayName("Should resync fully from versions older than the tombstone retention and prune old tombstones")
+    void testGetCatalogChanges_BeyondTombstoneRetention() throws Exception {
+        long longAgo = LocalDateTime.now().minusDays(40).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        mockMvc.perform(get("/api/products/changes").param("since", String.valueOf(longAgo)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.fullResync").value(true))
+                .andExpect(jsonPath("$.data.products", hasSize(3)));
+
+        CatalogTombstone expired = new CatalogTombstone(CatalogChangedEvent.EntityType.PRODUCT, 9_001L);
+        expired.setDeletedAt(LocalDateTime.now().minusDays(31));
+        CatalogTombstone recent = new CatalogTombstone(CatalogChangedEvent.EntityType.PRODUCT, 9_002L);
+        catalogTombstoneRepository.saveAll(List.of(expired, recent));
+        catalogTombstoneRepository.flush();
+
+        catalogTombstonePruneJob.pruneTombstones();
+
+        assertThat(catalogTombstoneRepository.findAll())
+                .extracting(CatalogTombstone::getEntityId)
+                .contains(9_002L)
+                .doesNotContain(9_001L);
+    }
+
+    /**
+     * Moves every product and category stamp a day back and returns that time as a catalog
+     * version.
+     */
+    private long ageCatalog() {
+        LocalDateTime dayAgo = LocalDateTime.now().minusDays(1);
+        jdbcTemplate.update("UPDATE products SET updated_at = ?, synced_at = NULL", dayAgo);
+        jdbcTemplate.update("UPDATE categories SET updated_at = ?, synced_at = NULL", dayAgo);
+        entityManager.clear();
+        menuCatalogService.onCatalogChanged(new CatalogChangedEvent(
+                CatalogChangedEvent.EntityType.CATEGORY, CatalogChangedEvent.ChangeType.UPDATED, category1.getId()));
+        return dayAgo.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @Test
+    @DisplayName("Should page through products with a keyset cursor")
+    void testGetProductPage() throws Exception {
+        mockMvc.perform(get("/api/products").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items", hasSize(2)))
+                .andExpect(jsonPath("$.data.items[0].categoryName").value("Burgers"))
+                .andExpect(jsonPath("$.data.hasMore").value(true))
+                .andExpect(jsonPath("$.data.nextCursor").value(product2.getId()));
+
+        mockMvc.perform(get("/api/products").param("limit", "2").param("after", product2.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items[*].name", contains("Margherita Pizza")))
+                .andExpect(jsonPath("$.data.hasMore").value(false))
+                .andExpect(jsonPath("$.data.nextCursor").doesNotExist());
+
+        mockMvc.perform(get("/api/products").param("limit", "10").param("availableOnly", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items", hasSize(2)));
+
+        mockMvc.perform(get("/api/products").param("limit", "10").param("categoryId", category2.getId().toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items[*].name", contains("Margherita Pizza")));
+
+        mockMvc.perform(get("/api/products").param("limit", "10")
+                        .param("categoryId", category2.getId().toString()).param("availableOnly", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items", hasSize(0)));
+
+        mockMvc.perform(get("/api/products").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should search products by any part of their name or description")
+    void testSearchProducts() throws Exception {
+        mockMvc.perform(get("/api/products/search").param("q", "burg"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[*].name", containsInAnyOrder("Classic Burger", "Cheese Burger")));
+
+        mockMvc.perform(get("/api/products/search").param("q", "ITALIAN piz"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[*].name", contains("Margherita Pizza")));
+
+        product1.setName("បុកល្ហុងប៉ាតេ");
+        productRepository.saveAndFlush(product1);
+
+        mockMvc.perform(get("/api/products/search").param("q", "ល្ហុង"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[*].id", contains(product1.getId().intValue())));
+
+        mockMvc.perform(get("/api/products/search").param("q", "  "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should suggest products by prefix")
+    void testAutocompleteProducts() throws Exception {
+        mockMvc.perform(get("/api/products/autocomplete").param("prefix", "che"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[*].name", contains("Cheese Burger")));
+
+        productRepository.delete(product2);
+        productRepository.flush();
+
+        mockMvc.perform(get("/api/products/autocomplete").param("prefix", "che"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(0)));
+    }
 }
@@ -0,0 +1,39 @@
+package com.restaurant.store.controller.api;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records the SQL Hibernate prepares between {@link #start()} and {@link #stop()}, so a test
+ * can check how many statements a request ran. A batch is prepared once, however many rows
+ * it writes. Registered for the test profile in {@code application-test.properties}.
+ */
+public class SqlStatementRecorder implements StatementInspector {
+
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+    private static volatile boolean recording;
+
+    public static void start() {
+        statements.clear();
+        recording = true;
+    }
+
+    /**
+     * Stops recording and returns what was recorded, lower-cased.
+     */
+    public static List<String> stop() {
+        recording = false;
+        return List.copyOf(statements);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        if (recording) {
+            statements.add(sql.toLowerCase(Locale.ROOT));
+        }
+        return sql;
+    }
+}
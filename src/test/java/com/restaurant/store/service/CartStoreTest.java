@@ -0,0 +1,201 @@
+package com.restaurant.store.service;
+
+import com.restaurant.store.entity.Cart;
+import com.restaurant.store.repository.CartItemRepository;
+import com.restaurant.store.repository.CartItemWriteRepository.LineVersion;
+import com.restaurant.store.repository.CartItemWriteRepository.QuantityWrite;
+import com.restaurant.store.repository.CartRepository;
+import com.restaurant.store.repository.CustomerRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks {@link CartStore} under concurrent requests and write-behind flushes, against an
+ * in-memory stand-in for the cart line writes.
+ */
+class CartStoreTest {
+
+    private static final Long PRODUCT_ID = 10L;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    /** Cart item rows by id: quantity and version. */
+    private final Map<Long, LineVersion> rows = new HashMap<>();
+    private final Map<Long, Long> productByRow = new HashMap<>();
+    private final AtomicLong nextRowId = new AtomicLong(100);
+    private CountDownLatch deleteStarted = new CountDownLatch(0);
+    private CountDownLatch releaseDelete = new CountDownLatch(0);
+
+    private CartRepository cartRepository;
+    private CartStore store;
+
+    @BeforeEach
+    void setUp() {
+        cartRepository = mock(CartRepository.class);
+        when(cartRepository.findByCustomerId(anyLong())).thenAnswer(invocation -> Optional.of(cart(invocation.getArgument(0))));
+
+        CartItemRepository cartItemRepository = mock(CartItemRepository.class);
+        when(cartItemRepository.findByCartId(anyLong())).thenReturn(List.of());
+        when(cartItemRepository.upsertIncrement(anyLong(), anyLong(), anyInt(), any())).thenAnswer(invocation ->
+                upsertIncrement(invocation.getArgument(1), invocation.getArgument(2)));
+        when(cartItemRepository.updateQuantitiesIfVersion(anyList())).thenAnswer(invocation ->
+                updateQuantitiesIfVersion(invocation.getArgument(0)));
+        when(cartItemRepository.deleteIfVersion(anyList())).thenAnswer(invocation ->
+                deleteIfVersion(invocation.getArgument(0)));
+        when(cartItemRepository.findVersionsByIdIn(anyCollection())).thenAnswer(invocation ->
+                findVersionsByIdIn(invocation.getArgument(0)));
+
+        store = new CartStore(cartRepository, cartItemRepository, mock(CustomerRepository.class),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(store, "writeBehind", true);
+        ReflectionTestUtils.setField(store, "maxCarts", 100);
+        ReflectionTestUtils.setField(store, "idleMinutes", 30L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseDelete.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testReAddWhileDeleteIsFlushedKeepsOnlyTheAddedQuantity() throws Exception {
+        CartStore.Snapshot added = store.add(1L, PRODUCT_ID, 2, 500, "Soup", null);
+        Long itemId = added.lines().get(0).cartItemId();
+        store.remove(1L, itemId);
+
+        deleteStarted = new CountDownLatch(1);
+        releaseDelete = new CountDownLatch(1);
+        Future<?> flush = executor.submit(store::flushPending);
+        assertTrue(deleteStarted.await(5, TimeUnit.SECONDS));
+
+        // The flush is writing the delete outside the cart's lock; the product is added again
+        CartStore.Snapshot readded = store.add(1L, PRODUCT_ID, 1, 500, "Soup", null);
+        assertEquals(1, readded.lines().size());
+        assertEquals(itemId, readded.lines().get(0).cartItemId());
+        assertEquals(1, readded.lines().get(0).quantity());
+        assertEquals(1, readded.itemCount());
+
+        releaseDelete.countDown();
+        flush.get(5, TimeUnit.SECONDS);
+        store.flushPending();
+
+        CartStore.Snapshot cart = store.get(1L);
+        assertEquals(1, cart.lines().size());
+        assertEquals(1, cart.lines().get(0).quantity());
+        assertEquals(500, cart.subtotalMinor());
+        assertEquals(1, rows.get(itemId).quantity());
+    }
+
+    @Test
+    void testLoadingOneCartDoesNotHoldUpAnother() throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        when(cartRepository.findByCustomerId(1L)).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            assertTrue(releaseLoad.await(5, TimeUnit.SECONDS));
+            return Optional.of(cart(1L));
+        });
+
+        try {
+            Future<CartStore.Snapshot> slow = executor.submit(() -> store.get(1L));
+            assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+
+            // 65 shared customer 1's lock when carts were locked by stripe
+            Future<CartStore.Snapshot> other = executor.submit(() -> store.add(65L, PRODUCT_ID, 1, 500, "Soup", null));
+            assertEquals(1, other.get(5, TimeUnit.SECONDS).itemCount());
+            assertFalse(slow.isDone());
+
+            releaseLoad.countDown();
+            assertEquals(0, slow.get(5, TimeUnit.SECONDS).itemCount());
+        } finally {
+            releaseLoad.countDown();
+        }
+    }
+
+    private static Cart cart(Long customerId) {
+        Cart cart = new Cart();
+        cart.setId(customerId);
+        return cart;
+    }
+
+    private synchronized LineVersion upsertIncrement(Long productId, int quantity) {
+        for (Map.Entry<Long, Long> entry : productByRow.entrySet()) {
+            if (entry.getValue().equals(productId) && rows.containsKey(entry.getKey())) {
+                LineVersion row = rows.get(entry.getKey());
+                LineVersion updated = new LineVersion(row.id(), row.quantity() + quantity, row.version() + 1);
+                rows.put(row.id(), updated);
+                return updated;
+            }
+        }
+        LineVersion row = new LineVersion(nextRowId.getAndIncrement(), quantity, 0);
+        rows.put(row.id(), row);
+        productByRow.put(row.id(), productId);
+        return row;
+    }
+
+    private synchronized Set<Long> updateQuantitiesIfVersion(List<QuantityWrite> writes) {
+        Set<Long> stale = new HashSet<>();
+        for (QuantityWrite write : writes) {
+            LineVersion row = rows.get(write.id());
+            if (row == null || row.version() != write.version()) {
+                stale.add(write.id());
+            } else {
+                rows.put(write.id(), new LineVersion(write.id(), write.quantity(), write.version() + 1));
+            }
+        }
+        return stale;
+    }
+
+    private Set<Long> deleteIfVersion(List<LineVersion> lines) throws InterruptedException {
+        if (!lines.isEmpty()) {
+            deleteStarted.countDown();
+            assertTrue(releaseDelete.await(5, TimeUnit.SECONDS));
+        }
+        synchronized (this) {
+            Set<Long> stale = new HashSet<>();
+            for (LineVersion line : lines) {
+                LineVersion row = rows.get(line.id());
+                if (row == null || row.version() != line.version()) {
+                    stale.add(line.id());
+                } else {
+                    rows.remove(line.id());
+                }
+            }
+            return stale;
+        }
+    }
+
+    private synchronized Map<Long, LineVersion> findVersionsByIdIn(Collection<Long> ids) {
+        Map<Long, LineVersion> found = new HashMap<>();
+        ids.stream().filter(rows::containsKey).forEach(id -> found.put(id, rows.get(id)));
+        return found;
+    }
+}
@@ -0,0 +1,89 @@
+package com.restaurant.store.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the minor-unit cart totals against the BigDecimal computation they replaced.
+ */
+class CartTotalsTest {
+
+    private static final BigDecimal DELIVERY_FEE = new BigDecimal("6000.00");
+    private static final BigDecimal VAT_RATE = new BigDecimal("0.10");
+
+    @Test
+    void testEmptyCart() {
+        CartTotals totals = CartTotals.of(0L, 0);
+
+        assertEquals(new BigDecimal("0.00"), totals.subtotal());
+        assertEquals(new BigDecimal("0.00"), totals.vat());
+        assertEquals(new BigDecimal("0.00"), totals.deliveryFee());
+        assertEquals(new BigDecimal("0.00"), totals.total());
+    }
+
+    @Test
+    void testVatRoundsHalfUp() {
+        for (long subtotalMinor = 1; subtotalMinor <= 10_000; subtotalMinor++) {
+            BigDecimal subtotal = BigDecimal.valueOf(subtotalMinor, 2);
+            assertEquals(subtotal.multiply(VAT_RATE).setScale(2, RoundingMode.HALF_UP),
+                    CartTotals.of(subtotalMinor, 1).vat(), "subtotal " + subtotal);
+        }
+    }
+
+    @Test
+    void testRunningTotalsMatchRecomputedTotals() {
+        Random random = new Random(42);
+        for (int cart = 0; cart < 500; cart++) {
+            List<long[]> lines = new ArrayList<>();
+            long subtotalMinor = 0;
+            int itemCount = 0;
+
+            for (int step = 0; step < 40; step++) {
+                int action = random.nextInt(4);
+                if (lines.isEmpty() || action == 0) {
+                    long priceMinor = 1 + random.nextInt(5_000_000);
+                    int quantity = 1 + random.nextInt(5);
+                    lines.add(new long[] {priceMinor, quantity});
+                    subtotalMinor += priceMinor * quantity;
+                    itemCount += quantity;
+                } else if (action == 3) {
+                    long[] line = lines.remove(random.nextInt(lines.size()));
+                    subtotalMinor -= line[0] * line[1];
+                    itemCount -= (int) line[1];
+                } else {
+                    long[] line = lines.get(random.nextInt(lines.size()));
+                    int quantity = 1 + random.nextInt(20);
+                    subtotalMinor += line[0] * (quantity - line[1]);
+                    itemCount += quantity - (int) line[1];
+                    line[1] = quantity;
+                }
+
+                assertSameAsBigDecimal(lines, CartTotals.of(subtotalMinor, itemCount));
+            }
+        }
+    }
+
+    private static void assertSameAsBigDecimal(List<long[]> lines, CartTotals totals) {
+        BigDecimal subtotal = lines.stream()
+                .map(line -> BigDecimal.valueOf(line[0], 2).multiply(BigDecimal.valueOf(line[1])))
+                .reduce(BigDecimal.ZERO, BigDecimal::add)
+                .setScale(2, RoundingMode.HALF_UP);
+        int itemCount = lines.stream().mapToInt(line -> (int) line[1]).sum();
+        BigDecimal vat = subtotal.multiply(VAT_RATE).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal deliveryFee = itemCount > 0 ? DELIVERY_FEE : BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP);
+        BigDecimal total = subtotal.add(vat).add(deliveryFee).setScale(2, RoundingMode.HALF_UP);
+
+        assertEquals(subtotal, totals.subtotal());
+        assertEquals(vat, totals.vat());
+        assertEquals(deliveryFee, totals.deliveryFee());
+        assertEquals(total, totals.total());
+        assertEquals(itemCount, totals.itemCount());
+    }
+}
@@ -0,0 +1,144 @@
+package com.restaurant.store.service;
+
+import com.restaurant.store.dto.response.OrderItemResponse;
+import com.restaurant.store.dto.response.OrderResponse;
+import com.restaurant.store.entity.Order;
+import com.restaurant.store.entity.OrderStatus;
+import com.restaurant.store.event.OrderChangedEvent;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks when {@link OrderResponseCache} reuses, rebuilds and drops responses.
+ */
+class OrderResponseCacheTest {
+
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    private final AtomicInteger builds = new AtomicInteger();
+    private Consumer<Order> whileBuilding = order -> { };
+    private OrderResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        OrderHistoryLoader loader = mock(OrderHistoryLoader.class);
+        when(loader.load(anyList())).thenAnswer(invocation -> {
+            Order order = invocation.<List<Order>>getArgument(0).get(0);
+            builds.incrementAndGet();
+            whileBuilding.accept(order);
+            List<OrderItemResponse> items = new ArrayList<>();
+            items.add(OrderItemResponse.builder().id(1L).quantity(2).build());
+            return List.of(OrderResponse.builder()
+                    .id(order.getId())
+                    .status(OrderStatus.PENDING)
+                    .updatedAt(order.getUpdatedAt())
+                    .orderItems(items)
+                    .build());
+        });
+        cache = new OrderResponseCache(loader);
+        ReflectionTestUtils.setField(cache, "entityManager", mock(EntityManager.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.unbindResourceIfPossible(
+                ReflectionTestUtils.getField(OrderResponseCache.class, "CHANGED_IN_TRANSACTION"));
+    }
+
+    @Test
+    void testReturnsIndependentCopies() {
+        OrderResponse first = cache.get(order(1L, UPDATED_AT));
+        first.setStatus(OrderStatus.CANCELLED);
+        first.getOrderItems().get(0).setQuantity(99);
+        first.getOrderItems().add(new OrderItemResponse());
+
+        OrderResponse second = cache.get(order(1L, UPDATED_AT));
+
+        assertEquals(1, builds.get());
+        assertEquals(OrderStatus.PENDING, second.getStatus());
+        assertEquals(1, second.getOrderItems().size());
+        assertEquals(2, second.getOrderItems().get(0).getQuantity());
+    }
+
+    @Test
+    void testRebuildsWhenOrderWasUpdated() {
+        cache.get(order(1L, UPDATED_AT));
+        cache.get(order(1L, UPDATED_AT.plusSeconds(1)));
+        cache.get(order(1L, UPDATED_AT.plusSeconds(1)));
+
+        assertEquals(2, builds.get());
+    }
+
+    @Test
+    void testEvictionWhileBuildingOnlyDropsThatOrder() {
+        whileBuilding = order -> cache.onOrderChanged(new OrderChangedEvent(order.getId() == 1L ? 1L : 3L));
+
+        cache.get(order(1L, UPDATED_AT));
+        cache.get(order(2L, UPDATED_AT));
+        whileBuilding = order -> { };
+        cache.get(order(1L, UPDATED_AT));
+        cache.get(order(2L, UPDATED_AT));
+
+        // Order 1 was evicted while its response was built, so it is built again; order 2 is not
+        assertEquals(3, builds.get());
+    }
+
+    @Test
+    void testKeepsMostRecentlyUsedOrders() {
+        for (long id = 1; id <= OrderResponseCache.MAX_ENTRIES; id++) {
+            cache.get(order(id, UPDATED_AT));
+        }
+        cache.get(order(1L, UPDATED_AT));
+        cache.get(order(OrderResponseCache.MAX_ENTRIES + 1L, UPDATED_AT));
+        builds.set(0);
+
+        cache.get(order(1L, UPDATED_AT));
+        assertEquals(0, builds.get());
+        cache.get(order(2L, UPDATED_AT));
+        assertEquals(1, builds.get());
+    }
+
+    @Test
+    void testWritingTransactionOnlyBypassesOrdersItChanged() {
+        cache.get(order(1L, UPDATED_AT));
+        cache.get(order(2L, UPDATED_AT));
+
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        cache.onOrderChanged(new OrderChangedEvent(1L));
+        builds.set(0);
+
+        cache.get(order(1L, UPDATED_AT));
+        cache.get(order(1L, UPDATED_AT));
+        assertEquals(2, builds.get());
+
+        cache.get(order(2L, UPDATED_AT));
+        assertEquals(2, builds.get());
+    }
+
+    private static Order order(Long id, LocalDateTime updatedAt) {
+        Order order = new Order();
+        order.setId(id);
+        order.setUpdatedAt(updatedAt);
+        return order;
+    }
+}